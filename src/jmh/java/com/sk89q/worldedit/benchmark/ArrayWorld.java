@@ -0,0 +1,202 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.TreeGenerator.TreeType;
+import com.sk89q.worldedit.world.AbstractWorld;
+import com.sk89q.worldedit.world.biome.BaseBiome;
+import com.sk89q.worldedit.world.registry.LegacyWorldData;
+import com.sk89q.worldedit.world.registry.WorldData;
+
+/**
+ * A world that keeps its blocks in arrays in memory, so that edits can be
+ * benchmarked without a Minecraft server.
+ *
+ * <p>
+ * The world spans from (0, 0, 0) to one less than its size on each axis.
+ * Blocks outside of it read as air and cannot be changed. Tile entities,
+ * biomes and entities are not stored.
+ * </p>
+ */
+public class ArrayWorld extends AbstractWorld {
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final short[] ids;
+    private final byte[] data;
+
+    /**
+     * Create a new world filled with air.
+     *
+     * @param sizeX the size along the X axis
+     * @param sizeY the size along the Y axis
+     * @param sizeZ the size along the Z axis
+     */
+    public ArrayWorld(int sizeX, int sizeY, int sizeZ) {
+        checkArgument(sizeX > 0 && sizeY > 0 && sizeZ > 0, "size must be positive");
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.ids = new short[sizeX * sizeY * sizeZ];
+        this.data = new byte[ids.length];
+    }
+
+    /**
+     * Set every block in the given layers to the given block.
+     *
+     * @param minY  the lowest layer
+     * @param maxY  the highest layer
+     * @param block the block
+     */
+    public void fillLayers(int minY, int maxY, BaseBlock block) {
+        int from = Math.max(0, minY) * sizeX * sizeZ;
+        int to = (Math.min(sizeY - 1, maxY) + 1) * sizeX * sizeZ;
+        for (int i = from; i < to; i++) {
+            ids[i] = (short) block.getId();
+            data[i] = (byte) Math.max(0, block.getData());
+        }
+    }
+
+    private int index(Vector position) {
+        int x = position.getBlockX();
+        int y = position.getBlockY();
+        int z = position.getBlockZ();
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+            return -1;
+        }
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    @Override
+    public String getName() {
+        return "benchmark";
+    }
+
+    @Override
+    public int getMaxY() {
+        return sizeY - 1;
+    }
+
+    @Override
+    public Vector getMinimumPoint() {
+        return new Vector(0, 0, 0);
+    }
+
+    @Override
+    public Vector getMaximumPoint() {
+        return new Vector(sizeX - 1, sizeY - 1, sizeZ - 1);
+    }
+
+    @Override
+    public boolean setBlock(Vector position, BaseBlock block, boolean notifyAndLight) throws WorldEditException {
+        int index = index(position);
+        if (index == -1) {
+            return false;
+        }
+        ids[index] = (short) block.getId();
+        data[index] = (byte) Math.max(0, block.getData());
+        return true;
+    }
+
+    @Override
+    public BaseBlock getBlock(Vector position) {
+        int index = index(position);
+        return index == -1 ? new BaseBlock(0) : new BaseBlock(ids[index], data[index]);
+    }
+
+    @Override
+    public BaseBlock getLazyBlock(Vector position) {
+        int index = index(position);
+        return index == -1 ? ImmutableBlock.AIR : ImmutableBlock.of(ids[index], data[index]);
+    }
+
+    @Override
+    public int getBlockLightLevel(Vector position) {
+        return 15;
+    }
+
+    @Override
+    public boolean clearContainerBlockContents(Vector position) {
+        return false;
+    }
+
+    @Override
+    public BaseBiome getBiome(Vector2D position) {
+        return new BaseBiome(0);
+    }
+
+    @Override
+    public boolean setBiome(Vector2D position, BaseBiome biome) {
+        return false;
+    }
+
+    @Override
+    public void dropItem(Vector position, BaseItemStack item) {}
+
+    @Override
+    public boolean regenerate(Region region, EditSession editSession) {
+        return false;
+    }
+
+    @Override
+    public boolean generateTree(TreeType type, EditSession editSession, Vector position)
+        throws MaxChangedBlocksException {
+        return false;
+    }
+
+    @Override
+    public WorldData getWorldData() {
+        return LegacyWorldData.getInstance();
+    }
+
+    @Override
+    public List<Entity> getEntities(Region region) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<Entity> getEntities() {
+        return Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        return null;
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.patterns.SingleBlockPattern;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.world.registry.WorldData;
+
+/**
+ * Benchmarks the common region operations of {@link EditSession} against
+ * an {@link ArrayWorld}.
+ *
+ * <p>
+ * Every invocation uses a new edit session with its queue enabled, as
+ * commands do, and flushes it before returning.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class EditSessionBenchmark {
+
+    private static final BaseBlock STONE = new BaseBlock(BlockID.STONE);
+    private static final BaseBlock DIRT = new BaseBlock(BlockID.DIRT);
+
+    /**
+     * The length of the edges of the edited cube.
+     */
+    @Param({ "32", "64" })
+    public int size;
+
+    private ArrayWorld world;
+    private WorldData worldData;
+    private CuboidRegion region;
+    private Vector center;
+    private BlockArrayClipboard clipboard;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws WorldEditException {
+        world = new ArrayWorld(size * 3, 256, size * 3);
+        world.fillLayers(0, size * 2, STONE);
+        worldData = world.getWorldData();
+        region = new CuboidRegion(world, new Vector(size, 0, size), new Vector(size * 2 - 1, size - 1, size * 2 - 1));
+        center = region.getCenter();
+
+        clipboard = new BlockArrayClipboard(region);
+        clipboard.setOrigin(region.getMinimumPoint());
+        Operations.complete(new ForwardExtentCopy(world, region, clipboard, region.getMinimumPoint()));
+    }
+
+    private EditSession newEditSession() {
+        EditSession editSession = WorldEdit.getInstance()
+            .getEditSessionFactory()
+            .getEditSession(world, -1);
+        editSession.enableQueue();
+        return editSession;
+    }
+
+    /**
+     * Get a block that differs from the one placed by the previous
+     * invocation, so that every invocation changes every block.
+     *
+     * @return the block
+     */
+    private BaseBlock nextBlock() {
+        return invocation++ % 2 == 0 ? DIRT : STONE;
+    }
+
+    @Benchmark
+    public int set() throws WorldEditException {
+        EditSession editSession = newEditSession();
+        int affected = editSession.setBlocks(region, nextBlock());
+        editSession.flushQueue();
+        return affected;
+    }
+
+    @Benchmark
+    public int replace() throws WorldEditException {
+        EditSession editSession = newEditSession();
+        BaseBlock to = nextBlock();
+        BaseBlock from = to == DIRT ? STONE : DIRT;
+        int affected = editSession.replaceBlocks(region, Collections.singleton(from), to);
+        editSession.flushQueue();
+        return affected;
+    }
+
+    @Benchmark
+    public int sphere() throws WorldEditException {
+        EditSession editSession = newEditSession();
+        int affected = editSession.makeSphere(center, new SingleBlockPattern(nextBlock()), size / 2.0, true);
+        editSession.flushQueue();
+        return affected;
+    }
+
+    @Benchmark
+    public int cylinder() throws WorldEditException {
+        EditSession editSession = newEditSession();
+        Vector base = new Vector(center.getX(), 0, center.getZ());
+        int affected = editSession.makeCylinder(base, new SingleBlockPattern(nextBlock()), size / 2.0, size, true);
+        editSession.flushQueue();
+        return affected;
+    }
+
+    @Benchmark
+    public int stack() throws WorldEditException {
+        EditSession editSession = newEditSession();
+        int affected = editSession.stackCuboidRegion(region, new Vector(0, 1, 0), 2, true);
+        editSession.flushQueue();
+        return affected;
+    }
+
+    @Benchmark
+    public int copy() throws WorldEditException {
+        BlockArrayClipboard target = new BlockArrayClipboard(region);
+        ForwardExtentCopy copy = new ForwardExtentCopy(world, region, target, region.getMinimumPoint());
+        Operations.complete(copy);
+        return copy.getAffected();
+    }
+
+    @Benchmark
+    public int pasteRotated() throws WorldEditException {
+        EditSession editSession = newEditSession();
+        ClipboardHolder holder = new ClipboardHolder(clipboard, worldData);
+        holder.setTransform(new AffineTransform().rotateY(90 * (invocation++ % 4 + 1)));
+        Operation operation = holder.createPaste(editSession, worldData)
+            .to(region.getMinimumPoint())
+            .build();
+        Operations.complete(operation);
+        editSession.flushQueue();
+        return editSession.getBlockChangeCount();
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.internal.expression.ExpressionException;
+import com.sk89q.worldedit.internal.expression.runtime.EvaluationException;
+
+/**
+ * Benchmarks the evaluation of expressions as used by {@code //generate}
+ * over a 32x32x32 grid of normalized coordinates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final int SIZE = 32;
+
+    @Param({ "x*x + y*y + z*z < 0.8", "sin(x * 3) * cos(z * 3) > y", "abs(x) + abs(y) + abs(z) < 1 || y > 0.9" })
+    public String expression;
+
+    private Expression compiled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ExpressionException {
+        compiled = Expression.compile(expression, "x", "y", "z");
+        compiled.optimize();
+    }
+
+    @Benchmark
+    public int evaluate() throws EvaluationException {
+        int inside = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    double nx = x * 2.0 / (SIZE - 1) - 1;
+                    double ny = y * 2.0 / (SIZE - 1) - 1;
+                    double nz = z * 2.0 / (SIZE - 1) - 1;
+                    if (compiled.evaluate(nx, ny, nz) > 0) {
+                        inside++;
+                    }
+                }
+            }
+        }
+        return inside;
+    }
+
+}
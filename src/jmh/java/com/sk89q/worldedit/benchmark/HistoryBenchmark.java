@@ -0,0 +1,93 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.history.changeset.BlockOptimizedHistory;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+/**
+ * Benchmarks undoing an edit, which replays a {@link BlockOptimizedHistory}
+ * in reverse.
+ *
+ * <p>
+ * Undoing restores the same blocks every time, so the edit is only made
+ * once.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HistoryBenchmark {
+
+    /**
+     * The length of the edges of the edited cube.
+     */
+    @Param({ "32", "64" })
+    public int size;
+
+    private ArrayWorld world;
+    private EditSession edit;
+
+    @Setup(Level.Trial)
+    public void setUp() throws WorldEditException {
+        world = new ArrayWorld(size, 256, size);
+        world.fillLayers(0, size - 1, new BaseBlock(BlockID.STONE));
+
+        edit = WorldEdit.getInstance()
+            .getEditSessionFactory()
+            .getEditSession(world, -1);
+        edit.enableQueue();
+        edit.setBlocks(new CuboidRegion(new Vector(0, 0, 0), new Vector(size - 1, size - 1, size - 1)),
+            new BaseBlock(BlockID.DIRT));
+        edit.flushQueue();
+    }
+
+    @Benchmark
+    public int undo() {
+        EditSession target = WorldEdit.getInstance()
+            .getEditSessionFactory()
+            .getEditSession(world, -1);
+        target.enableQueue();
+        edit.undo(target);
+        return edit.getBlockChangeCount();
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.init.Bootstrap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.registry.LegacyWorldData;
+import com.sk89q.worldedit.world.registry.WorldData;
+
+/**
+ * Benchmarks writing a clipboard to a schematic and reading it back.
+ *
+ * <p>
+ * The schematicplus format stores blocks by name, so the vanilla blocks
+ * are registered before it is benchmarked.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchematicBenchmark {
+
+    private static final int SIZE = 48;
+
+    @Param({ "schematic", "schematicplus" })
+    public String format;
+
+    private ClipboardFormat clipboardFormat;
+    private WorldData worldData;
+    private Clipboard clipboard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws WorldEditException {
+        clipboardFormat = ClipboardFormat.findByAlias(format);
+        if (clipboardFormat == ClipboardFormat.SCHEMATICPLUS) {
+            Bootstrap.func_151354_b();
+        }
+
+        worldData = LegacyWorldData.getInstance();
+        CuboidRegion region = new CuboidRegion(new Vector(0, 0, 0), new Vector(SIZE - 1, SIZE - 1, SIZE - 1));
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        clipboard.setOrigin(region.getMinimumPoint());
+
+        // A mix of blocks, data values and air that compresses like terrain
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    int id = y < SIZE / 2 ? 1 + (x * 7 + y * 3 + z) % 5 : (x + z) % 9 == 0 ? 17 : 0;
+                    clipboard.setBlock(new Vector(x, y, z), new BaseBlock(id, id == 17 ? z % 4 : 0));
+                }
+            }
+        }
+
+        this.clipboard = clipboard;
+    }
+
+    @Benchmark
+    public Clipboard roundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ClipboardWriter writer = clipboardFormat.getWriter(out)) {
+            writer.write(clipboard, worldData);
+        }
+
+        return clipboardFormat.getReader(new ByteArrayInputStream(out.toByteArray()))
+            .read(worldData);
+    }
+
+}
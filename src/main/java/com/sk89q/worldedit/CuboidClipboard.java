@@ -28,6 +28,7 @@ import java.util.Map;
 
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.command.ClipboardCommands;
 import com.sk89q.worldedit.command.SchematicCommands;
 import com.sk89q.worldedit.extent.Extent;
@@ -340,7 +341,7 @@ public class CuboidClipboard {
         for (int x = 0; x < size.getBlockX(); ++x) {
             for (int y = 0; y < size.getBlockY(); ++y) {
                 for (int z = 0; z < size.getBlockZ(); ++z) {
-                    data[x][y][z] = editSession.getBlock(new Vector(x, y, z).add(getOrigin()));
+                    data[x][y][z] = Blocks.snapshot(editSession.getBlock(new Vector(x, y, z).add(getOrigin())));
                 }
             }
         }
@@ -358,7 +359,7 @@ public class CuboidClipboard {
                 for (int z = 0; z < size.getBlockZ(); ++z) {
                     final Vector pt = new Vector(x, y, z).add(getOrigin());
                     if (region.contains(pt)) {
-                        data[x][y][z] = editSession.getBlock(pt);
+                        data[x][y][z] = Blocks.snapshot(editSession.getBlock(pt));
                     } else {
                         data[x][y][z] = null;
                     }
@@ -23,9 +23,8 @@ import static com.sk89q.worldedit.regions.Regions.maximumBlockY;
 import static com.sk89q.worldedit.regions.Regions.minimumBlockY;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -35,9 +34,11 @@ import java.util.logging.Logger;
 
 import javax.annotation.Nullable;
 
+import com.google.common.collect.Iterators;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockID;
 import com.sk89q.worldedit.blocks.BlockType;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.event.extent.EditSessionEvent;
@@ -46,6 +47,7 @@ import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.MaskingExtent;
 import com.sk89q.worldedit.extent.NullExtent;
 import com.sk89q.worldedit.extent.buffer.ForgetfulExtentBuffer;
+import com.sk89q.worldedit.extent.buffer.PackedExtentBuffer;
 import com.sk89q.worldedit.extent.cache.LastAccessExtentCache;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.extent.inventory.BlockBagExtent;
@@ -56,10 +58,10 @@ import com.sk89q.worldedit.extent.world.BlockQuirkExtent;
 import com.sk89q.worldedit.extent.world.ChunkLoadingExtent;
 import com.sk89q.worldedit.extent.world.FastModeExtent;
 import com.sk89q.worldedit.extent.world.SurvivalModeExtent;
+import com.sk89q.worldedit.extent.world.TileEntityBatchExtent;
 import com.sk89q.worldedit.function.GroundFunction;
 import com.sk89q.worldedit.function.RegionMaskingFilter;
 import com.sk89q.worldedit.function.block.BlockReplace;
-import com.sk89q.worldedit.function.block.Counter;
 import com.sk89q.worldedit.function.block.Naturalizer;
 import com.sk89q.worldedit.function.generator.GardenPatchGenerator;
 import com.sk89q.worldedit.function.mask.BlockMask;
@@ -74,9 +76,12 @@ import com.sk89q.worldedit.function.mask.NoiseFilter2D;
 import com.sk89q.worldedit.function.mask.RegionMask;
 import com.sk89q.worldedit.function.operation.ChangeSetExecutor;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.InPlaceMove;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.OperationQueue;
 import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.function.operation.StackOperation;
 import com.sk89q.worldedit.function.pattern.BlockPattern;
 import com.sk89q.worldedit.function.pattern.Patterns;
 import com.sk89q.worldedit.function.util.RegionOffset;
@@ -85,8 +90,10 @@ import com.sk89q.worldedit.function.visitor.LayerVisitor;
 import com.sk89q.worldedit.function.visitor.NonRisingVisitor;
 import com.sk89q.worldedit.function.visitor.RecursiveVisitor;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
+import com.sk89q.worldedit.history.HistoryRecord;
 import com.sk89q.worldedit.history.UndoContext;
 import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
 import com.sk89q.worldedit.history.changeset.BlockOptimizedHistory;
 import com.sk89q.worldedit.history.changeset.ChangeSet;
 import com.sk89q.worldedit.internal.expression.Expression;
@@ -144,6 +151,7 @@ public class EditSession implements Extent {
     @SuppressWarnings("ProtectedField")
     protected final World world;
     private final ChangeSet changeSet = new BlockOptimizedHistory();
+    private final @Nullable HistoryRecord historyRecord;
 
     private @Nullable FastModeExtent fastModeExtent;
     private final SurvivalModeExtent survivalExtent;
@@ -152,6 +160,7 @@ public class EditSession implements Extent {
     private @Nullable BlockQuirkExtent quirkExtent;
     private @Nullable DataValidatorExtent validator;
     private final BlockBagExtent blockBagExtent;
+    private @Nullable TileEntityBatchExtent tileEntityExtent;
     private final MultiStageReorder reorderExtent;
     private @Nullable ChangeSetExtent changeSetExtent;
     private final MaskingExtent maskingExtent;
@@ -215,6 +224,10 @@ public class EditSession implements Extent {
         if (world != null) {
             Extent extent;
 
+            historyRecord = WorldEdit.getInstance()
+                .getHistoryIndex()
+                .createRecord(world, event.getActor(), changeSet);
+
             // These extents are ALWAYS used
             extent = fastModeExtent = new FastModeExtent(world, false);
             extent = survivalExtent = new SurvivalModeExtent(extent, world);
@@ -225,12 +238,13 @@ public class EditSession implements Extent {
             extent = validator = new DataValidatorExtent(extent, world);
             extent = blockBagExtent = new BlockBagExtent(extent, blockBag);
 
-            // This extent can be skipped by calling rawSetBlock()
+            // These extents can be skipped by calling rawSetBlock()
+            extent = tileEntityExtent = new TileEntityBatchExtent(extent, world, false);
             extent = reorderExtent = new MultiStageReorder(extent, false);
             extent = wrapExtent(extent, eventBus, event, Stage.BEFORE_REORDER);
 
             // These extents can be skipped by calling smartSetBlock()
-            extent = changeSetExtent = new ChangeSetExtent(extent, changeSet);
+            extent = changeSetExtent = new ChangeSetExtent(extent, changeSet, historyRecord);
             extent = maskingExtent = new MaskingExtent(extent, Masks.alwaysTrue());
             extent = changeLimiter = new BlockChangeLimiter(extent, maxBlocks);
             extent = wrapExtent(extent, eventBus, event, Stage.BEFORE_HISTORY);
@@ -239,6 +253,8 @@ public class EditSession implements Extent {
             this.bypassHistory = reorderExtent;
             this.bypassNone = extent;
         } else {
+            historyRecord = null;
+
             Extent extent = new NullExtent();
             extent = survivalExtent = new SurvivalModeExtent(extent, NullWorld.getInstance());
             extent = blockBagExtent = new BlockBagExtent(extent, blockBag);
@@ -276,6 +292,16 @@ public class EditSession implements Extent {
         return changeSet;
     }
 
+    /**
+     * Get the record of this edit session in the
+     * {@link com.sk89q.worldedit.history.HistoryIndex}.
+     *
+     * @return the record, or null if the index is disabled
+     */
+    public @Nullable HistoryRecord getHistoryRecord() {
+        return historyRecord;
+    }
+
     /**
      * Get the maximum number of blocks that can be changed. -1 will be returned
      * if it the limit disabled.
@@ -309,6 +335,9 @@ public class EditSession implements Extent {
      */
     public void enableQueue() {
         reorderExtent.setEnabled(true);
+        if (tileEntityExtent != null) {
+            tileEntityExtent.setEnabled(true);
+        }
     }
 
     /**
@@ -319,6 +348,9 @@ public class EditSession implements Extent {
             flushQueue();
         }
         reorderExtent.setEnabled(true);
+        if (tileEntityExtent != null) {
+            tileEntityExtent.setEnabled(false);
+        }
     }
 
     /**
@@ -439,6 +471,59 @@ public class EditSession implements Extent {
         return changeSet.size();
     }
 
+    /**
+     * Start loading the chunks of the given region in the background, ahead
+     * of the blocks in the region being accessed.
+     *
+     * @param region the region that is about to be edited
+     */
+    public void prefetchChunks(Region region) {
+        checkNotNull(region);
+        if (chunkLoadingExtent != null) {
+            chunkLoadingExtent.prefetch(region);
+        }
+    }
+
+    /**
+     * Get the number of prefetched chunks that were loaded by the time they
+     * were first accessed.
+     *
+     * @return the number of chunks
+     */
+    public int getChunkPrefetchHits() {
+        return chunkLoadingExtent != null ? chunkLoadingExtent.getPrefetchHits() : 0;
+    }
+
+    /**
+     * Get the number of prefetched chunks that still had to be loaded on
+     * demand when they were first accessed.
+     *
+     * @return the number of chunks
+     */
+    public int getChunkPrefetchMisses() {
+        return chunkLoadingExtent != null ? chunkLoadingExtent.getPrefetchMisses() : 0;
+    }
+
+    /**
+     * Get the number of tile entities that were created in the tile entity
+     * stage of the commit.
+     *
+     * @return the number of tile entities
+     */
+    public int getTileEntityCount() {
+        return tileEntityExtent != null ? tileEntityExtent.getTileEntityCount() : 0;
+    }
+
+    /**
+     * Get the time spent creating tile entities in the tile entity stage of
+     * the commit.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTileEntityTime() {
+        return tileEntityExtent != null ? tileEntityExtent.getTileEntityTime() : 0;
+    }
+
     @Override
     public BaseBiome getBiome(Vector2D position) {
         return bypassNone.getBiome(position);
@@ -672,6 +757,9 @@ public class EditSession implements Extent {
     @Deprecated
     public void rememberChange(Vector position, BaseBlock existing, BaseBlock block) {
         changeSet.add(new BlockChange(position.toBlockVector(), existing, block));
+        if (historyRecord != null) {
+            historyRecord.touch(position.getBlockX(), position.getBlockZ());
+        }
     }
 
     /**
@@ -684,6 +772,9 @@ public class EditSession implements Extent {
         context.setExtent(editSession.bypassHistory);
         Operations.completeBlindly(ChangeSetExecutor.createUndo(changeSet, context));
         editSession.flushQueue();
+        if (historyRecord != null) {
+            historyRecord.setUndone(true);
+        }
     }
 
     /**
@@ -696,6 +787,68 @@ public class EditSession implements Extent {
         context.setExtent(editSession.bypassHistory);
         Operations.completeBlindly(ChangeSetExecutor.createRedo(changeSet, context));
         editSession.flushQueue();
+        if (historyRecord != null) {
+            historyRecord.setUndone(false);
+        }
+    }
+
+    /**
+     * Stop applying the queued changes and restore the blocks that have
+     * already been changed.
+     *
+     * <p>
+     * Queued blocks that have not reached the world yet are dropped, and
+     * only the changes that have reached it are undone, so that blocks which
+     * have since been changed by others at the dropped positions are left
+     * alone. The returned operation can be run over several ticks; the
+     * given edit session should have its queue enabled.
+     * </p>
+     *
+     * @param editSession a new {@link EditSession} to perform the rollback in
+     * @return an operation that restores the blocks
+     */
+    public Operation rollback(final EditSession editSession) {
+        final Set<BlockVector> discarded = reorderExtent.discard();
+        if (tileEntityExtent != null) {
+            tileEntityExtent.discard();
+        }
+
+        Iterator<Change> changes = Iterators.filter(
+            changeSet.backwardIterator(),
+            change -> !(change instanceof BlockChange && discarded.contains(((BlockChange) change).getPosition())));
+        UndoContext context = new UndoContext();
+        context.setExtent(editSession.bypassHistory);
+        if (historyRecord != null) {
+            historyRecord.setUndone(true);
+        }
+
+        return new OperationQueue(ChangeSetExecutor.createUndo(changes, context), new Operation() {
+
+            // The queue of the rollback can only be committed once the undo has filled it
+            private Operation commit;
+
+            @Override
+            public Operation resume(RunContext run) throws WorldEditException {
+                if (commit == null) {
+                    commit = editSession.commit();
+                    if (commit == null) {
+                        return null;
+                    }
+                }
+                commit = commit.resume(run);
+                return commit != null ? this : null;
+            }
+
+            @Override
+            public void cancel() {
+                if (commit != null) {
+                    commit.cancel();
+                }
+            }
+
+            @Override
+            public void addStatusMessages(List<String> messages) {}
+        });
     }
 
     /**
@@ -762,12 +915,10 @@ public class EditSession implements Extent {
      * @return the number of blocks that matched the pattern
      */
     public int countBlocks(Region region, Set<BaseBlock> searchBlocks) {
-        FuzzyBlockMask mask = new FuzzyBlockMask(this, searchBlocks);
-        Counter count = new Counter();
-        RegionMaskingFilter filter = new RegionMaskingFilter(mask, count);
-        RegionVisitor visitor = new RegionVisitor(region, filter);
-        Operations.completeBlindly(visitor); // We can't throw exceptions, nor do we expect any
-        return count.getCount();
+        checkNotNull(region);
+        checkNotNull(searchBlocks);
+        return world.getBlockHistogram(region)
+            .getCount(searchBlocks);
     }
 
     /**
@@ -929,6 +1080,8 @@ public class EditSession implements Extent {
         checkNotNull(region);
         checkNotNull(pattern);
 
+        prefetchChunks(region);
+
         BlockReplace replace = new BlockReplace(this, Patterns.wrap(pattern));
         RegionVisitor visitor = new RegionVisitor(region, replace);
         Operations.completeLegacy(visitor);
@@ -984,6 +1137,8 @@ public class EditSession implements Extent {
         checkNotNull(mask);
         checkNotNull(pattern);
 
+        prefetchChunks(region);
+
         BlockReplace replace = new BlockReplace(this, Patterns.wrap(pattern));
         RegionMaskingFilter filter = new RegionMaskingFilter(mask, replace);
         RegionVisitor visitor = new RegionVisitor(region, filter);
@@ -1169,6 +1324,8 @@ public class EditSession implements Extent {
         checkNotNull(region);
         checkNotNull(pattern);
 
+        prefetchChunks(region);
+
         BlockReplace replace = new BlockReplace(this, Patterns.wrap(pattern));
         RegionOffset offset = new RegionOffset(new Vector(0, 1, 0), replace);
         GroundFunction ground = new GroundFunction(new ExistingBlockMask(this), offset);
@@ -1192,6 +1349,8 @@ public class EditSession implements Extent {
     public int naturalizeCuboidBlocks(Region region) throws MaxChangedBlocksException {
         checkNotNull(region);
 
+        prefetchChunks(region);
+
         Naturalizer naturalizer = new Naturalizer(this);
         FlatRegion flatRegion = Regions.asFlatRegion(region);
         LayerVisitor visitor = new LayerVisitor(flatRegion, minimumBlockY(region), maximumBlockY(region), naturalizer);
@@ -1218,6 +1377,17 @@ public class EditSession implements Extent {
         Vector size = region.getMaximumPoint()
             .subtract(region.getMinimumPoint())
             .add(1, 1, 1);
+
+        // Read the source once if it fits in memory
+        if (StackOperation.isSupported(region)) {
+            StackOperation stack = new StackOperation(this, region, this, dir.multiply(size), count);
+            if (!copyAir) {
+                stack.setSourceMask(new ExistingBlockMask(this));
+            }
+            Operations.completeLegacy(stack);
+            return stack.getAffected();
+        }
+
         Vector to = region.getMinimumPoint();
         ForwardExtentCopy copy = new ForwardExtentCopy(this, region, this, to);
         copy.setRepetitions(count);
@@ -1247,16 +1417,41 @@ public class EditSession implements Extent {
         checkArgument(distance >= 1, "distance >= 1 required");
 
         Vector to = region.getMinimumPoint();
+        Vector offset = dir.multiply(distance);
 
         // Remove the original blocks
         com.sk89q.worldedit.function.pattern.Pattern pattern = replacement != null ? new BlockPattern(replacement)
             : new BlockPattern(new BaseBlock(BlockID.AIR));
+
+        // A cuboid can be moved in place by visiting it in an order that reads every block before it is overwritten
+        if (region instanceof CuboidRegion) {
+            InPlaceMove move = new InPlaceMove(this, (CuboidRegion) region, offset, pattern);
+            if (!copyAir) {
+                move.setSourceMask(new ExistingBlockMask(this));
+            }
+            Operations.completeLegacy(move);
+            return move.getAffected();
+        }
+
         BlockReplace remove = new BlockReplace(this, pattern);
 
         // Copy to a buffer so we don't destroy our original before we can copy all the blocks from it
-        ForgetfulExtentBuffer buffer = new ForgetfulExtentBuffer(this, new RegionMask(region));
+        Extent buffer;
+        com.sk89q.worldedit.function.pattern.Pattern bufferPattern;
+        Region bufferRegion;
+        if (PackedExtentBuffer.isSupported(region)) {
+            PackedExtentBuffer packedBuffer = new PackedExtentBuffer(this, region);
+            buffer = packedBuffer;
+            bufferPattern = packedBuffer;
+            bufferRegion = packedBuffer.asRegion();
+        } else {
+            ForgetfulExtentBuffer forgetfulBuffer = new ForgetfulExtentBuffer(this, new RegionMask(region));
+            buffer = forgetfulBuffer;
+            bufferPattern = forgetfulBuffer;
+            bufferRegion = forgetfulBuffer.asRegion();
+        }
         ForwardExtentCopy copy = new ForwardExtentCopy(this, region, buffer, to);
-        copy.setTransform(new AffineTransform().translate(dir.multiply(distance)));
+        copy.setTransform(new AffineTransform().translate(offset));
         copy.setSourceFunction(remove); // Remove
         copy.setRemovingEntities(true);
         if (!copyAir) {
@@ -1264,8 +1459,8 @@ public class EditSession implements Extent {
         }
 
         // Then we need to copy the buffer to the world
-        BlockReplace replace = new BlockReplace(this, buffer);
-        RegionVisitor visitor = new RegionVisitor(buffer.asRegion(), replace);
+        BlockReplace replace = new BlockReplace(this, bufferPattern);
+        RegionVisitor visitor = new RegionVisitor(bufferRegion, replace);
 
         OperationQueue operation = new OperationQueue(copy, visitor);
         Operations.completeLegacy(operation);
@@ -1863,7 +2058,7 @@ public class EditSession implements Extent {
                         ++affected;
                         break;
                     } else if (t == BlockID.SNOW) {
-                        setBlock(new Vector(x, y, z), new BaseBlock(BlockID.AIR));
+                        setBlock(new Vector(x, y, z), ImmutableBlock.AIR);
                     } else if (t != BlockID.AIR) { // Trees won't grow on this!
                         break;
                     }
@@ -1881,57 +2076,9 @@ public class EditSession implements Extent {
      * @return the results
      */
     public List<Countable<Integer>> getBlockDistribution(Region region) {
-        List<Countable<Integer>> distribution = new ArrayList<Countable<Integer>>();
-        Map<Integer, Countable<Integer>> map = new HashMap<Integer, Countable<Integer>>();
-
-        if (region instanceof CuboidRegion) {
-            // Doing this for speed
-            Vector min = region.getMinimumPoint();
-            Vector max = region.getMaximumPoint();
-
-            int minX = min.getBlockX();
-            int minY = min.getBlockY();
-            int minZ = min.getBlockZ();
-            int maxX = max.getBlockX();
-            int maxY = max.getBlockY();
-            int maxZ = max.getBlockZ();
-
-            for (int x = minX; x <= maxX; ++x) {
-                for (int y = minY; y <= maxY; ++y) {
-                    for (int z = minZ; z <= maxZ; ++z) {
-                        Vector pt = new Vector(x, y, z);
-
-                        int id = getBlockType(pt);
-
-                        if (map.containsKey(id)) {
-                            map.get(id)
-                                .increment();
-                        } else {
-                            Countable<Integer> c = new Countable<Integer>(id, 1);
-                            map.put(id, c);
-                            distribution.add(c);
-                        }
-                    }
-                }
-            }
-        } else {
-            for (Vector pt : region) {
-                int id = getBlockType(pt);
-
-                if (map.containsKey(id)) {
-                    map.get(id)
-                        .increment();
-                } else {
-                    Countable<Integer> c = new Countable<Integer>(id, 1);
-                    map.put(id, c);
-                }
-            }
-        }
-
-        Collections.sort(distribution);
-        // Collections.reverse(distribution);
-
-        return distribution;
+        checkNotNull(region);
+        return world.getBlockHistogram(region)
+            .getDistribution();
     }
 
     /**
@@ -1940,59 +2087,10 @@ public class EditSession implements Extent {
      * @param region a region
      * @return the results
      */
-    // TODO reduce code duplication - probably during ops-redux
     public List<Countable<BaseBlock>> getBlockDistributionWithData(Region region) {
-        List<Countable<BaseBlock>> distribution = new ArrayList<Countable<BaseBlock>>();
-        Map<BaseBlock, Countable<BaseBlock>> map = new HashMap<BaseBlock, Countable<BaseBlock>>();
-
-        if (region instanceof CuboidRegion) {
-            // Doing this for speed
-            Vector min = region.getMinimumPoint();
-            Vector max = region.getMaximumPoint();
-
-            int minX = min.getBlockX();
-            int minY = min.getBlockY();
-            int minZ = min.getBlockZ();
-            int maxX = max.getBlockX();
-            int maxY = max.getBlockY();
-            int maxZ = max.getBlockZ();
-
-            for (int x = minX; x <= maxX; ++x) {
-                for (int y = minY; y <= maxY; ++y) {
-                    for (int z = minZ; z <= maxZ; ++z) {
-                        Vector pt = new Vector(x, y, z);
-
-                        BaseBlock blk = new BaseBlock(getBlockType(pt), getBlockData(pt));
-
-                        if (map.containsKey(blk)) {
-                            map.get(blk)
-                                .increment();
-                        } else {
-                            Countable<BaseBlock> c = new Countable<BaseBlock>(blk, 1);
-                            map.put(blk, c);
-                            distribution.add(c);
-                        }
-                    }
-                }
-            }
-        } else {
-            for (Vector pt : region) {
-                BaseBlock blk = new BaseBlock(getBlockType(pt), getBlockData(pt));
-
-                if (map.containsKey(blk)) {
-                    map.get(blk)
-                        .increment();
-                } else {
-                    Countable<BaseBlock> c = new Countable<BaseBlock>(blk, 1);
-                    map.put(blk, c);
-                }
-            }
-        }
-
-        Collections.sort(distribution);
-        // Collections.reverse(distribution);
-
-        return distribution;
+        checkNotNull(region);
+        return world.getBlockHistogram(region)
+            .getDistributionWithData();
     }
 
     public int makeShape(final Region region, final Vector zero, final Vector unit, final Pattern pattern,
@@ -2025,7 +2123,7 @@ public class EditSession implements Extent {
                         return null;
                     }
 
-                    return new BaseBlock((int) typeVariable.getValue(), (int) dataVariable.getValue());
+                    return ImmutableBlock.of((int) typeVariable.getValue(), (int) dataVariable.getValue());
                 } catch (Exception e) {
                     log.log(Level.WARNING, "Failed to create shape", e);
                     return null;
@@ -2033,6 +2131,7 @@ public class EditSession implements Extent {
             }
         };
 
+        prefetchChunks(region);
         return shape.generate(this, pattern, hollow);
     }
 
@@ -2050,6 +2149,8 @@ public class EditSession implements Extent {
 
         final DoubleArrayList<BlockVector, BaseBlock> queue = new DoubleArrayList<BlockVector, BaseBlock>(false);
 
+        prefetchChunks(region);
+
         for (BlockVector position : region) {
             // offset, scale
             final Vector scaled = position.subtract(zero)
@@ -2062,7 +2163,7 @@ public class EditSession implements Extent {
 
             // read block from world
             // TODO: use getBlock here once the reflection is out of the way
-            final BaseBlock material = new BaseBlock(
+            final BaseBlock material = ImmutableBlock.of(
                 world.getBlockType(sourcePosition),
                 world.getBlockData(sourcePosition));
 
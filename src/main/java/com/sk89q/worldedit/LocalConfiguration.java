@@ -77,6 +77,7 @@ public abstract class LocalConfiguration {
     public int navigationWand = ItemID.COMPASS;
     public int navigationWandMaxDistance = 50;
     public int scriptTimeout = 3000;
+    public int scriptOptimizationLevel = 0;
     public Set<Integer> allowedDataCycleBlocks = new HashSet<Integer>();
     public String saveDir = "schematics";
     public String scriptsDir = "craftscripts";
@@ -84,6 +85,12 @@ public abstract class LocalConfiguration {
     public int butcherDefaultRadius = -1;
     public int butcherMaxRadius = -1;
     public boolean allowSymlinks = false;
+    public int jobBlocksPerTick = 0;
+    public int jobQueueDepth = 5;
+    public int sharedClipboardBudget = 256;
+    public int historyIndexRetention = 0;
+    public int historyIndexLimit = 1000;
+    public int historyIndexMaxChanges = 1000000;
 
     /**
      * Load the configuration.
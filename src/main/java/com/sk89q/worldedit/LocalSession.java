@@ -41,6 +41,7 @@ import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.history.HistoryRecord;
 import com.sk89q.worldedit.internal.cui.CUIEvent;
 import com.sk89q.worldedit.internal.cui.CUIRegion;
 import com.sk89q.worldedit.internal.cui.SelectionShapeEvent;
@@ -175,6 +176,9 @@ public class LocalSession {
      * Clear history.
      */
     public void clearHistory() {
+        for (EditSession editSession : history) {
+            release(editSession);
+        }
         history.clear();
         historyPointer = 0;
     }
@@ -193,15 +197,47 @@ public class LocalSession {
 
         // Destroy any sessions after this undo point
         while (historyPointer < history.size()) {
-            history.remove(historyPointer);
+            release(history.remove(historyPointer));
         }
         history.add(editSession);
         while (history.size() > MAX_HISTORY_SIZE) {
-            history.remove(0);
+            release(history.remove(0));
         }
         historyPointer = history.size();
     }
 
+    /**
+     * Remove an edit session from the undo history, such as after its
+     * changes have been rolled back.
+     *
+     * @param editSession the edit session
+     */
+    public void forget(EditSession editSession) {
+        checkNotNull(editSession);
+
+        int index = history.indexOf(editSession);
+        if (index != -1) {
+            history.remove(index);
+            if (index < historyPointer) {
+                --historyPointer;
+            }
+        }
+        release(editSession);
+    }
+
+    /**
+     * Release the record of an edit session that has left the undo history
+     * from the history index.
+     *
+     * @param editSession the edit session
+     */
+    private static void release(EditSession editSession) {
+        HistoryRecord record = editSession.getHistoryRecord();
+        if (record != null) {
+            record.release();
+        }
+    }
+
     /**
      * Performs an undo.
      *
@@ -448,12 +484,16 @@ public class LocalSession {
      * Sets the clipboard.
      *
      * <p>
-     * Pass {@code null} to clear the clipboard.
+     * Pass {@code null} to clear the clipboard. The clipboard that is
+     * replaced is released.
      * </p>
      *
      * @param clipboard the clipboard, or null if the clipboard is to be cleared
      */
     public void setClipboard(@Nullable ClipboardHolder clipboard) {
+        if (this.clipboard != null && this.clipboard != clipboard) {
+            this.clipboard.release();
+        }
         this.clipboard = clipboard;
     }
 
@@ -54,12 +54,15 @@ import com.sk89q.worldedit.extension.platform.PlatformManager;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Masks;
 import com.sk89q.worldedit.function.pattern.Patterns;
+import com.sk89q.worldedit.history.HistoryIndex;
 import com.sk89q.worldedit.masks.Mask;
 import com.sk89q.worldedit.patterns.Pattern;
 import com.sk89q.worldedit.scripting.CraftScriptContext;
 import com.sk89q.worldedit.scripting.CraftScriptEngine;
 import com.sk89q.worldedit.scripting.RhinoCraftScriptEngine;
+import com.sk89q.worldedit.session.ClipboardStore;
 import com.sk89q.worldedit.session.SessionManager;
+import com.sk89q.worldedit.session.job.EditJobScheduler;
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.eventbus.EventBus;
 import com.sk89q.worldedit.util.io.file.FileSelectionAbortedException;
@@ -97,12 +100,17 @@ public class WorldEdit {
     private final PlatformManager platformManager = new PlatformManager(this);
     private final EditSessionFactory editSessionFactory = new EditSessionFactory.EditSessionFactoryImpl(eventBus);
     private final SessionManager sessions = new SessionManager(this);
+    private final EditJobScheduler jobScheduler = new EditJobScheduler(this);
+    private final ClipboardStore clipboardStore = new ClipboardStore(this);
+    private final HistoryIndex historyIndex = new HistoryIndex(this);
 
     private final BlockFactory blockFactory = new BlockFactory(this);
     private final ItemFactory itemFactory = new ItemFactory(this);
     private final MaskFactory maskFactory = new MaskFactory(this);
     private final PatternFactory patternFactory = new PatternFactory(this);
 
+    private CraftScriptEngine scriptEngine;
+
     static {
         WorldEditPrefixHandler.register("com.sk89q.worldedit");
         getVersion();
@@ -735,6 +743,7 @@ public class WorldEdit {
         }
 
         String script;
+        long lastModified = 0;
 
         try {
             InputStream file;
@@ -747,6 +756,7 @@ public class WorldEdit {
                     return;
                 }
             } else {
+                lastModified = f.lastModified();
                 file = new FileInputStream(f);
             }
 
@@ -769,17 +779,20 @@ public class WorldEdit {
             player,
             args);
 
-        CraftScriptEngine engine = null;
+        CraftScriptEngine engine = scriptEngine;
 
-        try {
-            engine = new RhinoCraftScriptEngine();
-        } catch (NoClassDefFoundError e) {
-            player.printError("Failed to find an installed script engine.");
-            player.printError("Please see http://wiki.sk89q.com/wiki/WorldEdit/Installation");
-            return;
+        if (engine == null) {
+            try {
+                engine = scriptEngine = new RhinoCraftScriptEngine();
+            } catch (NoClassDefFoundError e) {
+                player.printError("Failed to find an installed script engine.");
+                player.printError("Please see http://wiki.sk89q.com/wiki/WorldEdit/Installation");
+                return;
+            }
         }
 
         engine.setTimeLimit(getConfiguration().scriptTimeout);
+        engine.setOptimizationLevel(getConfiguration().scriptOptimizationLevel);
 
         Map<String, Object> vars = new HashMap<String, Object>();
         vars.put("argv", args);
@@ -787,7 +800,7 @@ public class WorldEdit {
         vars.put("player", player);
 
         try {
-            engine.evaluate(script, filename, vars);
+            engine.evaluate(script, filename, lastModified, vars);
         } catch (ScriptException e) {
             player.printError("Failed to execute:");
             player.printRaw(e.getMessage());
@@ -835,6 +848,33 @@ public class WorldEdit {
         return editSessionFactory;
     }
 
+    /**
+     * Get the scheduler that applies edits over several server ticks.
+     *
+     * @return the job scheduler
+     */
+    public EditJobScheduler getJobScheduler() {
+        return jobScheduler;
+    }
+
+    /**
+     * Get the store of clipboard data that is shared between sessions.
+     *
+     * @return the clipboard store
+     */
+    public ClipboardStore getClipboardStore() {
+        return clipboardStore;
+    }
+
+    /**
+     * Get the index of the recent edits of all sessions by area.
+     *
+     * @return the history index
+     */
+    public HistoryIndex getHistoryIndex() {
+        return historyIndex;
+    }
+
     /**
      * @deprecated EditSessionFactories are no longer used. Please register an {@link EditSessionEvent} event
      *             with the event bus in order to override or catch changes to the world
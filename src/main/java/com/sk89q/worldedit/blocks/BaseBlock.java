@@ -20,23 +20,26 @@ import java.util.Collection;
 
 import javax.annotation.Nullable;
 
-import net.minecraft.nbt.NBTTagCompound;
-
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.StringTag;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.CuboidClipboard.FlipDirection;
-import com.sk89q.worldedit.forge.NBTConverter;
+import com.sk89q.worldedit.forge.compat.GregTechTileTemplates;
 import com.sk89q.worldedit.foundation.Block;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.world.registry.WorldData;
 
-import gregtech.api.GregTech_API;
-
 /**
  * Represents a mutable "snapshot" of a block.
  *
  * <p>
+ * Blocks that are shared, such as those stored by clipboards or returned
+ * by {@link com.sk89q.worldedit.extent.InputExtent#getLazyBlock(com.sk89q.worldedit.Vector)},
+ * should be {@link ImmutableBlock}s, which can be obtained with
+ * {@link #toImmutable()}.
+ * </p>
+ *
+ * <p>
  * An instance of this block contains all the information needed to
  * accurately reproduce the block, provided that the instance was
  * made correctly. In some implementations, it may not be possible to get a
@@ -188,12 +191,9 @@ public class BaseBlock extends Block implements TileEntityBlock {
      */
     protected final void internalSetData(int data) {
         if (data > MAX_DATA) {
+            // A GregTech meta tile entity with the data value as its ID
             this.data = 0;
-            NBTTagCompound nbt = new NBTTagCompound();
-            GregTech_API.createTileEntity(0)
-                .writeToNBT(nbt);
-            nbt.setInteger("mID", data);
-            setNbtData(NBTConverter.fromNative(nbt));
+            setNbtData(GregTechTileTemplates.get(data));
             return;
         }
 
@@ -270,6 +270,21 @@ public class BaseBlock extends Block implements TileEntityBlock {
         this.nbtData = nbtData;
     }
 
+    /**
+     * Get an immutable copy of this block that can be shared.
+     *
+     * <p>
+     * Blocks without NBT data are returned from a shared table, so this
+     * method does not allocate for them.
+     * </p>
+     *
+     * @return an immutable block
+     * @see ImmutableBlock
+     */
+    public ImmutableBlock toImmutable() {
+        return ImmutableBlock.of(this);
+    }
+
     /**
      * Get the type of block.
      *
@@ -42,4 +42,25 @@ public final class Blocks {
         return false;
     }
 
+    /**
+     * Make sure that the given block holds all of its data, so that it
+     * remains an accurate snapshot after the place it was read from changes.
+     *
+     * <p>
+     * Some implementations (such as blocks with tile entities read from a
+     * world) only read their NBT data once it is first requested. Extents
+     * that keep blocks for later use, such as history or buffers, should
+     * call this method before storing a block.
+     * </p>
+     *
+     * @param block the block
+     * @return the same block
+     */
+    public static BaseBlock snapshot(BaseBlock block) {
+        if (block.hasNbtData()) {
+            block.getNbtData();
+        }
+        return block;
+    }
+
 }
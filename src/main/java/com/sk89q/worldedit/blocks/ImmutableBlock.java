@@ -0,0 +1,146 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.blocks;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.jnbt.CompoundTag;
+
+/**
+ * An immutable block that can be shared freely.
+ *
+ * <p>
+ * Instances without NBT data are taken from a table that is built once and
+ * indexed by {@code (id << 4) | data}, plus one wildcard instance per ID
+ * for a data value of -1, so that {@link #of(int, int)} never allocates.
+ * Blocks with NBT data get their own instance, which can share the NBT
+ * data because {@link CompoundTag}s are immutable.
+ * </p>
+ *
+ * <p>
+ * All mutators on this object will throw an
+ * {@link UnsupportedOperationException}. Use {@link BaseBlock#BaseBlock(BaseBlock)}
+ * to get a copy that can be modified.
+ * </p>
+ */
+public final class ImmutableBlock extends BaseBlock {
+
+    private static final ImmutableBlock[] blocks = new ImmutableBlock[(MAX_ID + 1) * (MAX_DATA + 1)];
+    private static final ImmutableBlock[] wildcards = new ImmutableBlock[MAX_ID + 1];
+
+    static {
+        for (int id = 0; id <= MAX_ID; id++) {
+            for (int data = 0; data <= MAX_DATA; data++) {
+                blocks[id << 4 | data] = new ImmutableBlock(id, data, null);
+            }
+            wildcards[id] = new ImmutableBlock(id, -1, null);
+        }
+    }
+
+    /**
+     * An air block.
+     */
+    public static final ImmutableBlock AIR = of(BlockID.AIR);
+
+    private ImmutableBlock(int id, int data, @Nullable CompoundTag nbtData) {
+        super(id, data);
+        super.setNbtData(nbtData);
+    }
+
+    /**
+     * Get the block with the given ID and a data value of 0.
+     *
+     * @param id the ID
+     * @return the block
+     */
+    public static ImmutableBlock of(int id) {
+        return of(id, 0);
+    }
+
+    /**
+     * Get the block with the given ID and data value.
+     *
+     * @param id   the ID
+     * @param data the data value, or -1 for a wildcard block
+     * @return the block
+     */
+    public static ImmutableBlock of(int id, int data) {
+        if (id >= 0 && id <= MAX_ID) {
+            if (data >= 0 && data <= MAX_DATA) {
+                return blocks[id << 4 | data];
+            } else if (data == -1) {
+                return wildcards[id];
+            }
+        }
+
+        // Validates the values and handles data values that are stored as NBT
+        return of(new BaseBlock(id, data));
+    }
+
+    /**
+     * Get the block with the given ID, data value and NBT data.
+     *
+     * @param id      the ID
+     * @param data    the data value, or -1 for a wildcard block
+     * @param nbtData the NBT data, which may be null
+     * @return the block
+     */
+    public static ImmutableBlock of(int id, int data, @Nullable CompoundTag nbtData) {
+        if (nbtData == null) {
+            return of(id, data);
+        } else if (data > MAX_DATA) {
+            return of(new BaseBlock(id, data, nbtData));
+        } else {
+            return new ImmutableBlock(id, data, nbtData);
+        }
+    }
+
+    /**
+     * Get an immutable block equal to the given block.
+     *
+     * @param block the block
+     * @return the block itself if it is immutable already, otherwise an immutable copy
+     */
+    public static ImmutableBlock of(BaseBlock block) {
+        if (block instanceof ImmutableBlock) {
+            return (ImmutableBlock) block;
+        } else {
+            return of(block.getId(), block.getData(), block.getNbtData());
+        }
+    }
+
+    @Override
+    public void setId(int id) {
+        throw new UnsupportedOperationException("This object is immutable");
+    }
+
+    @Override
+    public void setData(int data) {
+        throw new UnsupportedOperationException("This object is immutable");
+    }
+
+    @Override
+    public void setNbtData(@Nullable CompoundTag nbtData) {
+        throw new UnsupportedOperationException("This object is immutable");
+    }
+
+    @Override
+    public ImmutableBlock toImmutable() {
+        return this;
+    }
+
+}
@@ -89,6 +89,7 @@ public class LazyBlock extends BaseBlock {
         if (!loaded) {
             BaseBlock loadedBlock = extent.getBlock(position);
             super.setNbtData(loadedBlock.getNbtData());
+            loaded = true;
         }
         return super.getNbtData();
     }
@@ -179,16 +179,11 @@ public class ClipboardCommands {
         desc = "Rotate the contents of the clipboard",
         help = "Non-destructively rotate the contents of the clipboard.\n"
             + "Angles are provided in degrees and a positive angle will result in a clockwise rotation. "
-            + "Multiple rotations can be stacked. Interpolation is not performed so angles should be a multiple of 90 degrees.\n")
+            + "Multiple rotations can be stacked. Angles that are not a multiple of 90 degrees are resampled "
+            + "from the nearest block when pasting.\n")
     @CommandPermissions("worldedit.clipboard.rotate")
     public void rotate(Player player, LocalSession session, Double yRotate, @Optional Double xRotate,
         @Optional Double zRotate) throws WorldEditException {
-        if ((yRotate != null && Math.abs(yRotate % 90) > 0.001) || xRotate != null && Math.abs(xRotate % 90) > 0.001
-            || zRotate != null && Math.abs(zRotate % 90) > 0.001) {
-            player.printDebug(
-                "Note: Interpolation is not yet supported, so angles that are multiples of 90 is recommended.");
-        }
-
         ClipboardHolder holder = session.getClipboard();
         AffineTransform transform = new AffineTransform();
         transform = transform.rotateY(-(yRotate != null ? yRotate : 0));
@@ -23,10 +23,12 @@ import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.transform.BlockTransformExtent;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.InverseTransformCopy;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.math.transform.AffineTransform;
 import com.sk89q.worldedit.math.transform.CombinedTransform;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.registry.WorldData;
@@ -73,12 +75,13 @@ class FlattenedClipboardTransform {
         Vector minimum = region.getMinimumPoint();
         Vector maximum = region.getMaximumPoint();
 
-        Transform transformAround = new CombinedTransform(
-            new AffineTransform().translate(
-                original.getOrigin()
-                    .multiply(-1)),
-            transform,
-            new AffineTransform().translate(original.getOrigin()));
+        Transform transformAround = Transforms.compile(
+            new CombinedTransform(
+                new AffineTransform().translate(
+                    original.getOrigin()
+                        .multiply(-1)),
+                transform,
+                new AffineTransform().translate(original.getOrigin())));
 
         Vector[] corners = new Vector[] { minimum, maximum, minimum.setX(maximum.getX()), minimum.setY(maximum.getY()),
             minimum.setZ(maximum.getZ()), maximum.setX(minimum.getX()), maximum.setY(minimum.getY()),
@@ -121,6 +124,17 @@ class FlattenedClipboardTransform {
             transform,
             worldData.getBlockRegistry(),
             worldData.getBlockTransformHook());
+        if (InverseTransformCopy.isResampled(transform)) {
+            InverseTransformCopy copy = new InverseTransformCopy(
+                extent,
+                original.getRegion(),
+                original.getOrigin(),
+                target,
+                original.getOrigin(),
+                transform);
+            copy.setParallel(true);
+            return copy;
+        }
         ForwardExtentCopy copy = new ForwardExtentCopy(
             extent,
             original.getRegion(),
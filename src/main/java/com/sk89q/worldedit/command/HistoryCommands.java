@@ -17,21 +17,30 @@
 package com.sk89q.worldedit.command;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.sk89q.minecraft.util.commands.Logging.LogMode.REGION;
+
+import java.util.List;
 
 import com.sk89q.minecraft.util.commands.Command;
 import com.sk89q.minecraft.util.commands.CommandContext;
+import com.sk89q.minecraft.util.commands.CommandException;
 import com.sk89q.minecraft.util.commands.CommandPermissions;
+import com.sk89q.minecraft.util.commands.Logging;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.history.HistoryRecord;
+import com.sk89q.worldedit.regions.Region;
 
 /**
- * Commands to undo, redo, and clear history.
+ * Commands to undo, redo, clear history and cancel edits in progress.
  */
 public class HistoryCommands {
 
+    private static final int MAX_LISTED_EDITS = 20;
+
     private final WorldEdit worldEdit;
 
     /**
@@ -118,4 +127,124 @@ public class HistoryCommands {
         player.print("History cleared.");
     }
 
+    @Command(
+        aliases = { "/histquery", "histquery" },
+        usage = "[minutes] [player]",
+        desc = "List the edits of all players that changed the selection",
+        help = "Lists the edits of all players that changed blocks in the chunks of the selection\n"
+            + "within the given number of minutes, newest first, optionally only those of one player.",
+        min = 0,
+        max = 2)
+    @CommandPermissions("worldedit.history.query")
+    public void query(Player player, LocalSession session, EditSession editSession, CommandContext args)
+        throws WorldEditException, CommandException {
+        Region region = session.getSelection(player.getWorld());
+        List<HistoryRecord> records = findRecords(player, region, args);
+
+        if (records.isEmpty()) {
+            player.printError("No edits changed the selection in that time.");
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        player.print(records.size() + " edit(s) changed the selection:");
+        for (int i = 0; i < Math.min(MAX_LISTED_EDITS, records.size()); i++) {
+            HistoryRecord record = records.get(i);
+            String actor = record.getActorName() != null ? record.getActorName() : "(unknown)";
+            String description = record.getDescription()
+                .isEmpty() ? "(no command)" : record.getDescription();
+            player.print(
+                "#" + record.getId()
+                    + " "
+                    + actor
+                    + ", "
+                    + (now - record.getTime()) / 60000
+                    + " min ago: "
+                    + description
+                    + " ("
+                    + record.size()
+                    + " changes"
+                    + (record.isUndone() ? ", undone)" : ")"));
+        }
+        if (records.size() > MAX_LISTED_EDITS) {
+            player.print("... and " + (records.size() - MAX_LISTED_EDITS) + " more.");
+        }
+    }
+
+    @Command(
+        aliases = { "/rollback", "rollback" },
+        usage = "[minutes] [player]",
+        desc = "Roll back the edits of all players within the selection",
+        help = "Restores the blocks within the selection that were changed by the edits of all players\n"
+            + "within the given number of minutes, optionally only those of one player.\n"
+            + "Edits are rolled back newest first, and edits that have been undone are skipped.",
+        min = 0,
+        max = 2)
+    @Logging(REGION)
+    @CommandPermissions("worldedit.history.rollback")
+    public void rollback(Player player, LocalSession session, EditSession editSession, CommandContext args)
+        throws WorldEditException, CommandException {
+        Region region = session.getSelection(player.getWorld());
+        List<HistoryRecord> records = findRecords(player, region, args);
+
+        int edits = 0;
+        int affected = 0;
+        for (HistoryRecord record : records) {
+            if (!record.isUndone()) {
+                int restored = record.rollback(region, editSession);
+                if (restored > 0) {
+                    edits++;
+                    affected += restored;
+                }
+            }
+        }
+
+        player.print(affected + " block(s) of " + edits + " edit(s) have been rolled back.");
+    }
+
+    /**
+     * Find the indexed edits that changed a region, using the time window
+     * and player given as command arguments.
+     *
+     * @param player the player
+     * @param region the region
+     * @param args   the arguments
+     * @return the records, newest first
+     * @throws CommandException thrown if the index is disabled or the time window is invalid
+     */
+    private List<HistoryRecord> findRecords(Player player, Region region, CommandContext args)
+        throws CommandException {
+        int retention = worldEdit.getConfiguration().historyIndexRetention;
+        if (retention <= 0) {
+            throw new CommandException("The history index is disabled on this server.");
+        }
+
+        int minutes = args.getInteger(0, retention);
+        if (minutes <= 0) {
+            throw new CommandException("The number of minutes must be positive.");
+        }
+
+        long since = System.currentTimeMillis() - Math.min(minutes, retention) * 60L * 1000L;
+        String actorName = args.argsLength() > 1 ? args.getString(1) : null;
+        return worldEdit.getHistoryIndex()
+            .query(player.getWorld(), region, since, actorName);
+    }
+
+    @Command(
+        aliases = { "/cancel", "cancel" },
+        usage = "",
+        desc = "Cancel your queued edits and roll back the ones in progress",
+        min = 0,
+        max = 0)
+    @CommandPermissions("worldedit.history.cancel")
+    public void cancel(Player player) throws WorldEditException {
+        int cancelled = worldEdit.getJobScheduler()
+            .cancel(player);
+        if (cancelled > 0) {
+            player.print(cancelled + " edit(s) cancelled.");
+        } else {
+            player.printError("You have no edits in progress.");
+        }
+    }
+
 }
@@ -51,6 +51,7 @@ import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.transform.Transform;
 import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.session.ClipboardStore;
 import com.sk89q.worldedit.util.command.binding.Switch;
 import com.sk89q.worldedit.util.command.parametric.Optional;
 import com.sk89q.worldedit.util.io.Closer;
@@ -107,15 +108,19 @@ public class SchematicCommands {
 
         Closer closer = Closer.create();
         try {
-            FileInputStream fis = closer.register(new FileInputStream(f));
-            BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
-            ClipboardReader reader = format.getReader(bis);
-
             WorldData worldData = player.getWorld()
                 .getWorldData();
-            Clipboard clipboard = reader.read(
-                player.getWorld()
-                    .getWorldData());
+
+            // Share the data of a schematic that another player has loaded already
+            ClipboardStore store = worldEdit.getClipboardStore();
+            String alias = f.getCanonicalPath() + ":" + f.length() + ":" + f.lastModified() + ":" + format.name();
+            Clipboard clipboard = store.acquire(alias);
+            if (clipboard == null) {
+                FileInputStream fis = closer.register(new FileInputStream(f));
+                BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
+                ClipboardReader reader = format.getReader(bis);
+                clipboard = store.share(reader.read(worldData), alias);
+            }
             session.setClipboard(new ClipboardHolder(clipboard, worldData));
 
             log.info(player.getName() + " loaded " + f.getCanonicalPath());
@@ -32,11 +32,14 @@ import com.sk89q.minecraft.util.commands.CommandPermissions;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.Vector2D;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.snapshot.InvalidSnapshotException;
 import com.sk89q.worldedit.world.snapshot.Snapshot;
+import com.sk89q.worldedit.world.snapshot.SnapshotDiff;
 import com.sk89q.worldedit.world.storage.MissingWorldException;
 
 /**
@@ -46,6 +49,7 @@ public class SnapshotCommands {
 
     private static final Logger logger = Logger.getLogger("Minecraft.WorldEdit");
     private static final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
+    private static final int MAX_LISTED_CHUNKS = 20;
 
     private final WorldEdit we;
 
@@ -195,6 +199,61 @@ public class SnapshotCommands {
         }
     }
 
+    @Command(
+        aliases = { "diff" },
+        usage = "<from> <to>",
+        desc = "List the chunks of the selection that differ between two snapshots",
+        min = 2,
+        max = 2)
+    @CommandPermissions("worldedit.snapshots.restore")
+    public void diff(Player player, LocalSession session, CommandContext args) throws WorldEditException {
+
+        LocalConfiguration config = we.getConfiguration();
+
+        if (config.snapshotRepo == null) {
+            player.printError("Snapshot/backup restore is not configured.");
+            return;
+        }
+
+        Region region = session.getSelection(player.getWorld());
+        Snapshot from;
+        Snapshot to;
+
+        try {
+            from = config.snapshotRepo.getSnapshot(args.getString(0));
+            to = config.snapshotRepo.getSnapshot(args.getString(1));
+        } catch (InvalidSnapshotException e) {
+            player.printError("That snapshot does not exist or is not available.");
+            return;
+        }
+
+        SnapshotDiff diff = new SnapshotDiff(from, to, player.getWorld(), region);
+        diff.compare();
+
+        List<Vector2D> changed = diff.getChangedChunks();
+        player.print(
+            changed.size() + " of " + diff.getChunksCompared()
+                + " chunk(s) differ between '"
+                + from.getName()
+                + "' and '"
+                + to.getName()
+                + "'.");
+        for (int i = 0; i < Math.min(MAX_LISTED_CHUNKS, changed.size()); i++) {
+            Vector2D chunk = changed.get(i);
+            player.print(" - " + chunk.getBlockX() + ", " + chunk.getBlockZ());
+        }
+        if (changed.size() > MAX_LISTED_CHUNKS) {
+            player.print("... and " + (changed.size() - MAX_LISTED_CHUNKS) + " more.");
+        }
+
+        if (!diff.getErrorChunks()
+            .isEmpty()) {
+            player.printError(
+                diff.getErrorChunks()
+                    .size() + " chunk(s) could not be compared. Last error: " + diff.getLastErrorMessage());
+        }
+    }
+
     @Command(
         aliases = { "before" },
         usage = "<date>",
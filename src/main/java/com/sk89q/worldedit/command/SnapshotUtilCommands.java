@@ -127,7 +127,13 @@ public class SnapshotUtilCommands {
 
         try {
             // Restore snapshot
-            SnapshotRestore restore = new SnapshotRestore(chunkStore, editSession, region);
+            SnapshotRestore restore = new SnapshotRestore(
+                chunkStore,
+                editSession,
+                region,
+                snapshot.getIndex(
+                    player.getWorld()
+                        .getName()));
             // player.print(restore.getChunksAffected() + " chunk(s) will be loaded.");
 
             restore.restore();
@@ -143,11 +149,12 @@ public class SnapshotUtilCommands {
             } else {
                 player.print(
                     String.format(
-                        "Restored; %d " + "missing chunks and %d other errors.",
+                        "Restored; %d " + "missing chunks, %d other errors and %d unchanged chunks.",
                         restore.getMissingChunks()
                             .size(),
                         restore.getErrorChunks()
-                            .size()));
+                            .size(),
+                        restore.getUnchangedChunks()));
             }
         } finally {
             try {
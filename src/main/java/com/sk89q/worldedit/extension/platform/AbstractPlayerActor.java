@@ -385,7 +385,7 @@ public abstract class AbstractPlayerActor implements Actor, Player, Cloneable {
         boolean inFree = false;
 
         while ((block = hitBlox.getNextBlock()) != null) {
-            boolean free = BlockType.canPassThrough(world.getBlock(block));
+            boolean free = BlockType.canPassThrough(world.getLazyBlock(block));
 
             if (firstBlock) {
                 firstBlock = false;
@@ -26,6 +26,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Joiner;
 import com.sk89q.minecraft.util.commands.CommandException;
 import com.sk89q.minecraft.util.commands.CommandLocals;
@@ -65,11 +67,16 @@ import com.sk89q.worldedit.event.platform.CommandEvent;
 import com.sk89q.worldedit.event.platform.CommandSuggestionEvent;
 import com.sk89q.worldedit.function.factory.Deform;
 import com.sk89q.worldedit.function.factory.Deform.Mode;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.history.HistoryRecord;
 import com.sk89q.worldedit.internal.command.ActorAuthorizer;
 import com.sk89q.worldedit.internal.command.CommandLoggingHandler;
 import com.sk89q.worldedit.internal.command.UserCommandCompleter;
 import com.sk89q.worldedit.internal.command.WorldEditBinding;
 import com.sk89q.worldedit.internal.command.WorldEditExceptionConverter;
+import com.sk89q.worldedit.session.job.EditJob;
+import com.sk89q.worldedit.session.job.EditJobScheduler;
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.command.Dispatcher;
 import com.sk89q.worldedit.util.command.InvalidUsageException;
@@ -277,25 +284,63 @@ public final class CommandManager {
     public void handleCommand(CommandEvent event) {
         Request.reset();
 
-        Actor actor = platformManager.createProxyActor(event.getActor());
-        String[] split = commandDetection(
+        final Actor actor = platformManager.createProxyActor(event.getActor());
+        final String[] split = commandDetection(
             event.getArguments()
                 .split(" "));
+        final String arguments = event.getArguments();
 
         // No command found!
         if (!dispatcher.contains(split[0])) {
             return;
         }
 
+        EditJobScheduler scheduler = worldEdit.getJobScheduler();
+
+        // Commands issued while earlier edits are still being applied have
+        // to wait for them, except for the command that cancels them
+        if (scheduler.hasJobs(actor) && !isCancelCommand(split[0])) {
+            EditJob deferred = EditJob.deferred(actor, Joiner.on(" ")
+                .join(split), () -> {
+                    Request.reset();
+                    return runCommand(actor, split, arguments);
+                });
+
+            if (scheduler.submit(deferred)) {
+                actor.print("Your command will run after your current edits (use //cancel to cancel them).");
+            } else {
+                actor.printError("You have too many edits queued. Wait for them to finish or use //cancel.");
+            }
+        } else {
+            EditJob job = runCommand(actor, split, arguments);
+            if (job != null) {
+                scheduler.submit(job);
+            }
+        }
+
+        event.setCancelled(true);
+    }
+
+    /**
+     * Run a command.
+     *
+     * @param actor     the actor running the command
+     * @param split     the command and its arguments
+     * @param arguments the unparsed arguments
+     * @return a job that applies the changes of the command, or null if they have been applied already
+     */
+    @Nullable
+    private EditJob runCommand(final Actor actor, final String[] split, String arguments) {
         LocalSession session = worldEdit.getSessionManager()
             .get(actor);
         LocalConfiguration config = worldEdit.getConfiguration();
 
         CommandLocals locals = new CommandLocals();
         locals.put(Actor.class, actor);
-        locals.put("arguments", event.getArguments());
+        locals.put("arguments", arguments);
 
         long start = System.currentTimeMillis();
+        EditJob job = null;
 
         try {
             dispatcher.call(
@@ -337,33 +382,73 @@ public final class CommandManager {
                 log.log(Level.SEVERE, "An unknown error occurred", e);
             }
         } finally {
-            EditSession editSession = locals.get(EditSession.class);
+            final EditSession editSession = locals.get(EditSession.class);
 
             if (editSession != null) {
+                HistoryRecord record = editSession.getHistoryRecord();
+                if (record != null) {
+                    record.setDescription(
+                        Joiner.on(" ")
+                            .join(split));
+                }
                 session.remember(editSession);
-                editSession.flushQueue();
-
-                if (config.profile) {
-                    long time = System.currentTimeMillis() - start;
-                    int changed = editSession.getBlockChangeCount();
-                    if (time > 0) {
-                        double throughput = changed / (time / 1000.0);
-                        actor.printDebug(
-                            (time / 1000.0) + "s elapsed (history: "
-                                + changed
-                                + " changed; "
-                                + Math.round(throughput)
-                                + " blocks/sec).");
-                    } else {
-                        actor.printDebug((time / 1000.0) + "s elapsed.");
+
+                Runnable completion = () -> {
+                    if (config.profile) {
+                        long time = System.currentTimeMillis() - start;
+                        int changed = editSession.getBlockChangeCount();
+                        if (time > 0) {
+                            double throughput = changed / (time / 1000.0);
+                            actor.printDebug(
+                                (time / 1000.0) + "s elapsed (history: "
+                                    + changed
+                                    + " changed; "
+                                    + Math.round(throughput)
+                                    + " blocks/sec).");
+                        } else {
+                            actor.printDebug((time / 1000.0) + "s elapsed.");
+                        }
+
+                        int hits = editSession.getChunkPrefetchHits();
+                        int misses = editSession.getChunkPrefetchMisses();
+                        if (hits + misses > 0) {
+                            actor.printDebug(
+                                "Chunk prefetch: " + hits + " hits, " + misses + " misses (loaded on demand).");
+                        }
+
+                        int tileEntities = editSession.getTileEntityCount();
+                        if (tileEntities > 0) {
+                            actor.printDebug(
+                                "Tile entities: " + tileEntities
+                                    + " created in "
+                                    + (editSession.getTileEntityTime() / 1000.0)
+                                    + "s.");
+                        }
                     }
-                }
 
-                worldEdit.flushBlockBag(actor, editSession);
+                    worldEdit.flushBlockBag(actor, editSession);
+                };
+
+                // Apply the queued changes over the next ticks if possible
+                Operation commit = editSession.commit();
+                if (commit != null && worldEdit.getJobScheduler()
+                    .isEnabled()) {
+                    job = new EditJob(actor, Joiner.on(" ")
+                        .join(split), editSession, commit, completion);
+                } else {
+                    Operations.completeBlindly(commit);
+                    completion.run();
+                }
             }
         }
 
-        event.setCancelled(true);
+        return job;
+    }
+
+    private static boolean isCancelCommand(String command) {
+        return COMMAND_CLEAN_PATTERN.matcher(command)
+            .replaceFirst("")
+            .equalsIgnoreCase("cancel");
     }
 
     @Subscribe
@@ -26,8 +26,10 @@ import javax.annotation.Nullable;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.history.HistoryRecord;
 import com.sk89q.worldedit.history.change.BlockChange;
 import com.sk89q.worldedit.history.change.EntityCreate;
 import com.sk89q.worldedit.history.change.EntityRemove;
@@ -37,10 +39,17 @@ import com.sk89q.worldedit.util.Location;
 
 /**
  * Stores changes to a {@link ChangeSet}.
+ *
+ * <p>
+ * If a {@link HistoryRecord} is given, the chunks of the changed blocks are
+ * also added to the {@link com.sk89q.worldedit.history.HistoryIndex}.
+ * </p>
  */
 public class ChangeSetExtent extends AbstractDelegateExtent {
 
     private final ChangeSet changeSet;
+    @Nullable
+    private final HistoryRecord record;
 
     /**
      * Create a new instance.
@@ -49,15 +58,30 @@ public class ChangeSetExtent extends AbstractDelegateExtent {
      * @param changeSet the change set
      */
     public ChangeSetExtent(Extent extent, ChangeSet changeSet) {
+        this(extent, changeSet, null);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent    the extent
+     * @param changeSet the change set
+     * @param record    the history record of the changes, or null
+     */
+    public ChangeSetExtent(Extent extent, ChangeSet changeSet, @Nullable HistoryRecord record) {
         super(extent);
         checkNotNull(changeSet);
         this.changeSet = changeSet;
+        this.record = record;
     }
 
     @Override
     public boolean setBlock(Vector location, BaseBlock block) throws WorldEditException {
-        BaseBlock previous = getBlock(location);
-        changeSet.add(new BlockChange(location.toBlockVector(), previous, block));
+        BaseBlock previous = Blocks.snapshot(getBlock(location));
+        changeSet.add(new BlockChange(location.toBlockVector(), previous, Blocks.snapshot(block)));
+        if (record != null) {
+            record.touch(location.getBlockX(), location.getBlockZ());
+        }
         return super.setBlock(location, block);
     }
 
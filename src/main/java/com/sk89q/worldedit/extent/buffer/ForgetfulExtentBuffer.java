@@ -27,6 +27,7 @@ import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.mask.Mask;
@@ -95,7 +96,7 @@ public class ForgetfulExtentBuffer extends AbstractDelegateExtent implements Pat
 
         BlockVector blockVector = location.toBlockVector();
         if (mask.test(blockVector)) {
-            buffer.put(blockVector, block);
+            buffer.put(blockVector, Blocks.snapshot(block));
             return true;
         } else {
             return getExtent().setBlock(location, block);
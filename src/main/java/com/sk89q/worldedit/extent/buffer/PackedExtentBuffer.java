@@ -0,0 +1,243 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.buffer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.Blocks;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.regions.AbstractRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.RegionOperationException;
+
+/**
+ * Buffers changes to an {@link Extent} that fall inside a region, and allows
+ * later retrieval for actual application of the changes.
+ *
+ * <p>
+ * Unlike {@link ForgetfulExtentBuffer}, the buffer is a packed array that
+ * is indexed by the offset of a position from the minimum point of the
+ * region, and only blocks with NBT data are kept as objects. Changes
+ * outside the region are passed on to the delegate extent.
+ * </p>
+ *
+ * <p>
+ * This buffer will not attempt to return results from the buffer when
+ * accessor methods (such as {@link #getBlock(Vector)}) are called.
+ * </p>
+ */
+public class PackedExtentBuffer extends AbstractDelegateExtent implements Pattern {
+
+    /**
+     * The largest bounding box volume of a region that can be buffered, which
+     * keeps the array that is allocated up front at 16 MB.
+     */
+    public static final long MAX_VOLUME = 1 << 22;
+
+    private static final int NBT = -1;
+
+    private final Region region;
+    private final Vector min;
+    private final Vector max;
+    private final int width;
+    private final int length;
+    private final int[] states;
+    private final Map<Integer, BaseBlock> nbtBlocks = new HashMap<Integer, BaseBlock>();
+
+    /**
+     * Create a new extent buffer that will buffer the changes inside the
+     * given region.
+     *
+     * @param delegate the delegate extent for {@link Extent#getBlock(Vector)}, etc. calls
+     * @param region   the region, which must not be modified while the buffer is in use
+     */
+    public PackedExtentBuffer(Extent delegate, Region region) {
+        super(delegate);
+        checkNotNull(delegate);
+        checkNotNull(region);
+        checkArgument(isSupported(region), "region is too large to buffer");
+        this.region = region;
+        this.min = region.getMinimumPoint()
+            .toBlockPoint();
+        this.max = region.getMaximumPoint()
+            .toBlockPoint();
+        this.width = region.getWidth();
+        this.length = region.getLength();
+        this.states = new int[width * region.getHeight() * length];
+    }
+
+    /**
+     * Return whether the given region is small enough to be buffered.
+     *
+     * @param region the region
+     * @return true if supported
+     */
+    public static boolean isSupported(Region region) {
+        return (long) region.getWidth() * region.getHeight() * region.getLength() <= MAX_VOLUME;
+    }
+
+    /**
+     * Get the index of a position in the buffer.
+     *
+     * @param position the position
+     * @return the index, or -1 if the position is outside the bounding box
+     */
+    private int getIndex(Vector position) {
+        int x = position.getBlockX() - min.getBlockX();
+        int y = position.getBlockY() - min.getBlockY();
+        int z = position.getBlockZ() - min.getBlockZ();
+        if (x < 0 || y < 0 || z < 0 || x >= width || z >= length || position.getBlockY() > max.getBlockY()) {
+            return -1;
+        }
+        return (y * length + z) * width + x;
+    }
+
+    @Override
+    public boolean setBlock(Vector location, BaseBlock block) throws WorldEditException {
+        int index = getIndex(location);
+        if (index >= 0 && region.contains(location)) {
+            if (block.hasNbtData()) {
+                states[index] = NBT;
+                nbtBlocks.put(index, Blocks.snapshot(block));
+            } else {
+                states[index] = (block.getType() << 4 | block.getData() & 15) + 1;
+                nbtBlocks.remove(index);
+            }
+            return true;
+        } else {
+            return getExtent().setBlock(location, block);
+        }
+    }
+
+    @Override
+    public BaseBlock apply(Vector pos) {
+        int index = getIndex(pos);
+        return index >= 0 ? getBuffered(index) : ImmutableBlock.AIR;
+    }
+
+    /**
+     * Get the buffered block at an index.
+     *
+     * @param index the index
+     * @return the block, or air if nothing was buffered
+     */
+    private BaseBlock getBuffered(int index) {
+        int state = states[index];
+        if (state == NBT) {
+            return nbtBlocks.get(index);
+        } else if (state != 0) {
+            return ImmutableBlock.of((state - 1) >> 4, (state - 1) & 15);
+        } else {
+            return ImmutableBlock.AIR;
+        }
+    }
+
+    /**
+     * Return a region representation of this buffer.
+     *
+     * <p>
+     * The region contains the positions that have been buffered, which are
+     * iterated in the order of the buffer.
+     * </p>
+     *
+     * @return a region
+     */
+    public Region asRegion() {
+        return new AbstractRegion(null) {
+
+            @Override
+            public Vector getMinimumPoint() {
+                return min;
+            }
+
+            @Override
+            public Vector getMaximumPoint() {
+                return max;
+            }
+
+            @Override
+            public void expand(Vector... changes) throws RegionOperationException {
+                throw new UnsupportedOperationException("Cannot change the size of this region");
+            }
+
+            @Override
+            public void contract(Vector... changes) throws RegionOperationException {
+                throw new UnsupportedOperationException("Cannot change the size of this region");
+            }
+
+            @Override
+            public boolean contains(Vector position) {
+                int index = getIndex(position);
+                return index >= 0 && states[index] != 0;
+            }
+
+            @Override
+            public Iterator<BlockVector> iterator() {
+                return new Iterator<BlockVector>() {
+
+                    private int next = seek(0);
+
+                    private int seek(int from) {
+                        int index = from;
+                        while (index < states.length && states[index] == 0) {
+                            index++;
+                        }
+                        return index;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < states.length;
+                    }
+
+                    @Override
+                    public BlockVector next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next;
+                        next = seek(index + 1);
+                        return new BlockVector(
+                            min.getBlockX() + index % width,
+                            min.getBlockY() + index / width / length,
+                            min.getBlockZ() + index / width % length);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -29,6 +29,7 @@ import com.sk89q.worldedit.Vector2D;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.function.operation.Operation;
@@ -138,14 +139,22 @@ public class BlockArrayClipboard implements Clipboard {
 
     @Override
     public BaseBlock getLazyBlock(Vector position) {
-        return getBlock(position);
+        if (region.contains(position)) {
+            Vector v = position.subtract(region.getMinimumPoint());
+            BaseBlock block = blocks[v.getBlockX()][v.getBlockY()][v.getBlockZ()];
+            if (block != null) {
+                return block;
+            }
+        }
+
+        return ImmutableBlock.AIR;
     }
 
     @Override
     public boolean setBlock(Vector position, BaseBlock block) throws WorldEditException {
         if (region.contains(position)) {
             Vector v = position.subtract(region.getMinimumPoint());
-            blocks[v.getBlockX()][v.getBlockY()][v.getBlockZ()] = new BaseBlock(block);
+            blocks[v.getBlockX()][v.getBlockY()][v.getBlockZ()] = block.toImmutable();
             return true;
         } else {
             return false;
@@ -19,11 +19,14 @@ package com.sk89q.worldedit.extent.reorder;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.ForwardingIterator;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.PlayerDirection;
@@ -32,6 +35,7 @@ import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockID;
 import com.sk89q.worldedit.blocks.BlockType;
+import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.operation.BlockMapEntryPlacer;
@@ -48,6 +52,9 @@ public class MultiStageReorder extends AbstractDelegateExtent implements Reorder
     private TupleArrayList<BlockVector, BaseBlock> stage1 = new TupleArrayList<BlockVector, BaseBlock>();
     private TupleArrayList<BlockVector, BaseBlock> stage2 = new TupleArrayList<BlockVector, BaseBlock>();
     private TupleArrayList<BlockVector, BaseBlock> stage3 = new TupleArrayList<BlockVector, BaseBlock>();
+    private final Set<BlockVector> passedThrough = new HashSet<BlockVector>();
+    private int placedCount = 0;
+    private Stage3Committer committer;
     private boolean enabled;
 
     /**
@@ -98,44 +105,130 @@ public class MultiStageReorder extends AbstractDelegateExtent implements Reorder
 
         if (BlockType.shouldPlaceLast(block.getType())) {
             // Place torches, etc. last
-            stage2.put(location.toBlockVector(), block);
+            stage2.put(location.toBlockVector(), Blocks.snapshot(block));
             return !(lazyBlock.getType() == block.getType() && lazyBlock.getData() == block.getData());
         } else if (BlockType.shouldPlaceFinal(block.getType())) {
             // Place signs, reed, etc even later
-            stage3.put(location.toBlockVector(), block);
+            stage3.put(location.toBlockVector(), Blocks.snapshot(block));
             return !(lazyBlock.getType() == block.getType() && lazyBlock.getData() == block.getData());
         } else if (BlockType.shouldPlaceLast(lazyBlock.getType())) {
             // Destroy torches, etc. first
+            passedThrough.add(location.toBlockVector());
             super.setBlock(location, new BaseBlock(BlockID.AIR));
             return super.setBlock(location, block);
         } else {
-            stage1.put(location.toBlockVector(), block);
+            stage1.put(location.toBlockVector(), Blocks.snapshot(block));
             return !(lazyBlock.getType() == block.getType() && lazyBlock.getData() == block.getData());
         }
     }
 
+    /**
+     * Drop the queued blocks that have not been passed on to the underlying
+     * extent yet, including those of a commit that is still in progress.
+     *
+     * @return the positions of which no change has reached the underlying extent
+     */
+    public Set<BlockVector> discard() {
+        Set<BlockVector> placed = new HashSet<BlockVector>(passedThrough);
+        int count = 0;
+        for (Map.Entry<BlockVector, BaseBlock> entry : Iterables.concat(stage1, stage2)) {
+            if (count++ >= placedCount) {
+                break;
+            }
+            placed.add(entry.getKey());
+        }
+        if (committer != null && committer.blocks != null) {
+            for (Map.Entry<BlockVector, BaseBlock> entry : stage3) {
+                if (!committer.blocks.contains(entry.getKey())) {
+                    placed.add(entry.getKey());
+                }
+            }
+        }
+
+        Set<BlockVector> discarded = new HashSet<BlockVector>();
+        for (Map.Entry<BlockVector, BaseBlock> entry : Iterables.concat(stage1, stage2, stage3)) {
+            if (!placed.contains(entry.getKey())) {
+                discarded.add(entry.getKey());
+            }
+        }
+
+        clear();
+        return discarded;
+    }
+
+    private void clear() {
+        stage1.clear();
+        stage2.clear();
+        stage3.clear();
+        passedThrough.clear();
+        placedCount = 0;
+        committer = null;
+    }
+
     @Override
     public Operation commitBefore() {
-        return new OperationQueue(
-            new BlockMapEntryPlacer(getExtent(), Iterators.concat(stage1.iterator(), stage2.iterator())),
-            new Stage3Committer());
+        placedCount = 0;
+        committer = new Stage3Committer();
+
+        // Count the entries that have been placed so that a cancelled commit
+        // can tell which changes have reached the underlying extent
+        Iterator<Map.Entry<BlockVector, BaseBlock>> counted = new CountingIterator(
+            Iterators.concat(stage1.iterator(), stage2.iterator()));
+
+        return new OperationQueue(new BlockMapEntryPlacer(getExtent(), counted), committer);
+    }
+
+    private class CountingIterator extends ForwardingIterator<Map.Entry<BlockVector, BaseBlock>> {
+
+        private final Iterator<Map.Entry<BlockVector, BaseBlock>> delegate;
+
+        private CountingIterator(Iterator<Map.Entry<BlockVector, BaseBlock>> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected Iterator<Map.Entry<BlockVector, BaseBlock>> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public Map.Entry<BlockVector, BaseBlock> next() {
+            Map.Entry<BlockVector, BaseBlock> entry = super.next();
+            placedCount++;
+            return entry;
+        }
+
     }
 
     private class Stage3Committer implements Operation {
 
+        private Set<BlockVector> blocks;
+        private Map<BlockVector, BaseBlock> blockTypes;
+
         @Override
         public Operation resume(RunContext run) throws WorldEditException {
             Extent extent = getExtent();
 
-            final Set<BlockVector> blocks = new HashSet<BlockVector>();
-            final Map<BlockVector, BaseBlock> blockTypes = new HashMap<BlockVector, BaseBlock>();
-            for (Map.Entry<BlockVector, BaseBlock> entry : stage3) {
-                final BlockVector pt = entry.getKey();
-                blocks.add(pt);
-                blockTypes.put(pt, entry.getValue());
+            if (committer != this) {
+                // The queue has been discarded
+                return null;
+            }
+
+            if (blocks == null) {
+                blocks = new HashSet<BlockVector>();
+                blockTypes = new HashMap<BlockVector, BaseBlock>();
+                for (Map.Entry<BlockVector, BaseBlock> entry : stage3) {
+                    final BlockVector pt = entry.getKey();
+                    blocks.add(pt);
+                    blockTypes.put(pt, entry.getValue());
+                }
             }
 
             while (!blocks.isEmpty()) {
+                if (!run.shouldContinue()) {
+                    return this;
+                }
+
                 BlockVector current = blocks.iterator()
                     .next();
                 if (!blocks.contains(current)) {
@@ -207,9 +300,7 @@ public class MultiStageReorder extends AbstractDelegateExtent implements Reorder
                 }
             }
 
-            stage1.clear();
-            stage2.clear();
-            stage3.clear();
+            clear();
 
             return null;
         }
@@ -25,9 +25,12 @@ import javax.annotation.Nullable;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
+import com.sk89q.worldedit.blocks.LazyBlock;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
 import com.sk89q.worldedit.world.registry.BlockRegistry;
 import com.sk89q.worldedit.world.registry.State;
 import com.sk89q.worldedit.world.registry.StateValue;
@@ -41,6 +44,8 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
     private static final double RIGHT_ANGLE = Math.toRadians(90);
 
     private final Transform transform;
+    @Nullable
+    private Transform inverse;
     private final BlockRegistry blockRegistry;
     private final BlockTransformHook transformHook;
 
@@ -56,7 +61,7 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
         checkNotNull(transform);
         checkNotNull(blockRegistry);
         checkNotNull(transformHook);
-        this.transform = transform;
+        this.transform = Transforms.compile(transform);
         this.blockRegistry = blockRegistry;
         this.transformHook = transformHook;
     }
@@ -70,6 +75,18 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
         return transform;
     }
 
+    /**
+     * Get the inverse of the transform, which is computed once.
+     *
+     * @return the inverse transform
+     */
+    private Transform getInverse() {
+        if (inverse == null) {
+            inverse = transform.inverse();
+        }
+        return inverse;
+    }
+
     /**
      * Transform a block without making a copy.
      *
@@ -78,7 +95,7 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
      * @return the same block
      */
     private BaseBlock transformBlock(BaseBlock block, boolean reverse) {
-        Transform useTransform = reverse ? transform.inverse() : transform;
+        Transform useTransform = reverse ? getInverse() : transform;
         block = transform(block, useTransform, blockRegistry);
         return transformHook.transformBlock(block, useTransform);
     }
@@ -102,13 +119,14 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
      * Transform the given block using the given transform.
      *
      * <p>
-     * The provided block is modified.
+     * The provided block is modified, unless it is immutable, in which case
+     * a modified copy is returned if the block has to change.
      * </p>
      *
      * @param block     the block
      * @param transform the transform
      * @param registry  the registry
-     * @return the same block
+     * @return the transformed block
      */
     public static BaseBlock transform(BaseBlock block, Transform transform, BlockRegistry registry) {
         return transform(block, transform, registry, block);
@@ -141,6 +159,9 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
                 if (value != null && value.getDirection() != null) {
                     StateValue newValue = getNewStateValue(state, transform, value.getDirection());
                     if (newValue != null) {
+                        if (changedBlock == block && isImmutable(block)) {
+                            changedBlock = new BaseBlock(block);
+                        }
                         newValue.set(changedBlock);
                     }
                 }
@@ -150,6 +171,10 @@ public class BlockTransformExtent extends AbstractDelegateExtent {
         return changedBlock;
     }
 
+    private static boolean isImmutable(BaseBlock block) {
+        return block instanceof ImmutableBlock || block instanceof LazyBlock;
+    }
+
     /**
      * Get the new value with the transformed direction.
      *
@@ -16,22 +16,50 @@
 
 package com.sk89q.worldedit.extent.world;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Arrays;
+import java.util.Set;
+
 import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.collection.LongHashSet;
 import com.sk89q.worldedit.world.World;
 
 /**
  * Automatically loads chunks when blocks are accessed.
+ *
+ * <p>
+ * If the region that is about to be edited is passed to
+ * {@link #prefetch(Region)}, the chunks ahead of the chunk that is
+ * currently accessed are loaded in the background (see
+ * {@link World#prefetchChunk(Vector2D)}), so that the edit does not have
+ * to wait for every chunk to be read from disk.
+ * </p>
  */
 public class ChunkLoadingExtent extends AbstractDelegateExtent {
 
+    /**
+     * The default number of chunks that are loaded ahead of the current chunk.
+     */
+    public static final int DEFAULT_PREFETCH_DISTANCE = 8;
+
     private final World world;
     private boolean enabled;
+    private int prefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+    private long[] prefetchOrder = new long[0];
+    private int prefetchedUpTo = -1;
+    private final LongHashSet accessed = new LongHashSet();
+    private boolean hasLastChunk;
+    private long lastChunk;
+    private int prefetchHits;
+    private int prefetchMisses;
 
     /**
      * Create a new instance.
@@ -57,9 +85,154 @@ public class ChunkLoadingExtent extends AbstractDelegateExtent {
         this(extent, world, true);
     }
 
+    /**
+     * Get the number of chunks that are loaded ahead of the current chunk.
+     *
+     * @return the number of chunks
+     */
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    /**
+     * Set the number of chunks that are loaded ahead of the current chunk.
+     *
+     * @param prefetchDistance the number of chunks, or 0 to disable prefetching
+     */
+    public void setPrefetchDistance(int prefetchDistance) {
+        checkArgument(prefetchDistance >= 0, "prefetchDistance >= 0 required");
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Start loading the chunks of the given region ahead of the accesses
+     * to them.
+     *
+     * <p>
+     * Regions are iterated with the X coordinate changing fastest and the
+     * Z coordinate changing slowest, so chunks are expected to be reached
+     * in order of their Z and then X coordinates. Only the chunks of the
+     * last region that was passed are prefetched.
+     * </p>
+     *
+     * @param region the region
+     */
+    public void prefetch(Region region) {
+        checkNotNull(region);
+
+        Set<Vector2D> chunks = region.getChunks();
+        long[] order = new long[chunks.size()];
+        int i = 0;
+        for (Vector2D chunk : chunks) {
+            order[i++] = toKey(chunk.getBlockX(), chunk.getBlockZ());
+        }
+        Arrays.sort(order);
+
+        prefetchOrder = order;
+        prefetchedUpTo = -1;
+        hasLastChunk = false;
+        advance(-1);
+    }
+
+    /**
+     * Get the number of prefetched chunks that were loaded when they were
+     * first accessed.
+     *
+     * @return the number of hits
+     */
+    public int getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    /**
+     * Get the number of prefetched chunks that were not loaded yet when
+     * they were first accessed, and so had to be loaded on demand.
+     *
+     * @return the number of misses
+     */
+    public int getPrefetchMisses() {
+        return prefetchMisses;
+    }
+
+    @Override
+    public BaseBlock getBlock(Vector position) {
+        track(position);
+        return super.getBlock(position);
+    }
+
+    @Override
+    public BaseBlock getLazyBlock(Vector position) {
+        track(position);
+        return super.getLazyBlock(position);
+    }
+
     @Override
     public boolean setBlock(Vector location, BaseBlock block) throws WorldEditException {
+        track(location);
         world.checkLoadedChunk(location);
         return super.setBlock(location, block);
     }
+
+    /**
+     * Record an access to the given position and prefetch the chunks ahead
+     * of it if it is in a new chunk.
+     *
+     * @param position the position
+     */
+    private void track(Vector position) {
+        long key = toKey(position.getBlockX() >> 4, position.getBlockZ() >> 4);
+        if (hasLastChunk && key == lastChunk) {
+            return;
+        }
+
+        hasLastChunk = true;
+        lastChunk = key;
+
+        if (prefetchOrder.length == 0) {
+            return;
+        }
+
+        int index = Arrays.binarySearch(prefetchOrder, key);
+        if (index < 0) {
+            return;
+        }
+
+        if (accessed.add(key)) {
+            if (world.isChunkLoaded(toChunk(key))) {
+                prefetchHits++;
+            } else {
+                prefetchMisses++;
+            }
+        }
+
+        advance(index);
+    }
+
+    /**
+     * Prefetch the chunks up to the prefetch distance after the given index.
+     *
+     * @param index the index of the current chunk in the prefetch order
+     */
+    private void advance(int index) {
+        int end = Math.min(prefetchOrder.length - 1, index + prefetchDistance);
+        while (prefetchedUpTo < end) {
+            world.prefetchChunk(toChunk(prefetchOrder[++prefetchedUpTo]));
+        }
+    }
+
+    /**
+     * Pack chunk coordinates into a key that sorts by Z and then by X.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the key
+     */
+    private static long toKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) + chunkX;
+    }
+
+    private static Vector2D toChunk(long key) {
+        int chunkX = (int) key;
+        return new Vector2D(chunkX, (int) ((key - chunkX) >> 32));
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.BlockVector2D;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.Blocks;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.world.World;
+
+/**
+ * Places the tile entities of blocks in a separate stage when changes are
+ * committed.
+ *
+ * <p>
+ * While enabled, blocks with NBT data are passed on without it, and their
+ * NBT data is kept per chunk. On commit, the tile entities of each chunk are
+ * created together with {@link World#setTileEntities(Map)}, which lets the
+ * world validate them in bulk. The time spent
+ * creating tile entities is measured separately.
+ * </p>
+ */
+public class TileEntityBatchExtent extends AbstractDelegateExtent {
+
+    private final World world;
+    private final Map<BlockVector2D, Map<BlockVector, BaseBlock>> pending = new LinkedHashMap<>();
+    private boolean enabled;
+    private int tileEntityCount = 0;
+    private long tileEntityNanos = 0;
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent  the extent
+     * @param world   the world to create the tile entities in
+     * @param enabled true to enable batching
+     */
+    public TileEntityBatchExtent(Extent extent, World world, boolean enabled) {
+        super(extent);
+        checkNotNull(world);
+        this.world = world;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Return whether batching is enabled.
+     *
+     * @return true if batching is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set whether batching is enabled.
+     *
+     * @param enabled true to enable batching
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the number of tile entities created by this extent.
+     *
+     * @return the number of tile entities
+     */
+    public int getTileEntityCount() {
+        return tileEntityCount;
+    }
+
+    /**
+     * Get the time spent creating tile entities.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTileEntityTime() {
+        return TimeUnit.NANOSECONDS.toMillis(tileEntityNanos);
+    }
+
+    /**
+     * Drop the tile entities that have not been created yet.
+     *
+     * <p>
+     * The blocks of these tile entities have already been passed on without
+     * their NBT data.
+     * </p>
+     */
+    public void discard() {
+        pending.clear();
+    }
+
+    @Override
+    public boolean setBlock(Vector location, BaseBlock block) throws WorldEditException {
+        if (!enabled && pending.isEmpty()) {
+            return super.setBlock(location, block);
+        }
+
+        BlockVector2D chunk = new BlockVector2D(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        BlockVector position = location.toBlockVector();
+        Map<BlockVector, BaseBlock> blocks = pending.get(chunk);
+        if (blocks != null) {
+            // A later change replaces a pending tile entity
+            blocks.remove(position);
+        }
+
+        if (!enabled || !block.hasNbtData()) {
+            return super.setBlock(location, block);
+        }
+
+        boolean changed = super.setBlock(location, ImmutableBlock.of(block.getType(), block.getData()));
+        if (changed) {
+            if (blocks == null) {
+                blocks = new HashMap<BlockVector, BaseBlock>();
+                pending.put(chunk, blocks);
+            }
+            blocks.put(position, Blocks.snapshot(block));
+        }
+        return changed;
+    }
+
+    @Override
+    protected Operation commitBefore() {
+        return new Operation() {
+
+            @Override
+            public Operation resume(RunContext run) throws WorldEditException {
+                Iterator<Map<BlockVector, BaseBlock>> it = pending.values()
+                    .iterator();
+                while (it.hasNext()) {
+                    if (!run.shouldContinue()) {
+                        return this;
+                    }
+
+                    Map<BlockVector, BaseBlock> blocks = it.next();
+                    it.remove();
+                    if (!blocks.isEmpty()) {
+                        long start = System.nanoTime();
+                        tileEntityCount += world.setTileEntities(blocks);
+                        tileEntityNanos += System.nanoTime() - start;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void cancel() {}
+
+            @Override
+            public void addStatusMessages(List<String> messages) {}
+        };
+    }
+
+}
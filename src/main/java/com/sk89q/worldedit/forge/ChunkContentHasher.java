@@ -0,0 +1,92 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import com.sk89q.worldedit.world.chunk.ChunkHasher;
+
+/**
+ * Hashes the content of a chunk by reading its sections directly.
+ *
+ * <p>
+ * Missing or empty sections contain only air and are skipped without
+ * looking at their blocks. Tile entities are taken from the tile entity
+ * map of the chunk, so blocks without one are never checked for NBT data.
+ * </p>
+ */
+final class ChunkContentHasher {
+
+    private ChunkContentHasher() {}
+
+    /**
+     * Hash the content of the given chunk.
+     *
+     * <p>
+     * This method must be called from the thread that owns the world.
+     * </p>
+     *
+     * @param world  the world
+     * @param chunkX the X coordinate of the chunk
+     * @param chunkZ the Z coordinate of the chunk
+     * @return the hash, as described by
+     *         {@link com.sk89q.worldedit.world.World#getChunkContentHash(com.sk89q.worldedit.Vector2D)}
+     */
+    static long hash(World world, int chunkX, int chunkZ) {
+        checkNotNull(world);
+
+        Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+        ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+        ChunkHasher hasher = new ChunkHasher();
+
+        for (int sectionY = 0; sectionY < storage.length && sectionY << 4 < ChunkHasher.HEIGHT; sectionY++) {
+            ExtendedBlockStorage section = storage[sectionY];
+            if (section == null || section.isEmpty()) {
+                continue;
+            }
+
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int id = ChunkSectionBlocks.getId(section, x, y, z);
+                        int data = ChunkSectionBlocks.getData(section, x, y, z);
+                        hasher.setBlock(x, sectionY << 4 | y, z, id, data);
+                    }
+                }
+            }
+        }
+
+        for (Object value : chunk.chunkTileEntityMap.values()) {
+            TileEntity tile = (TileEntity) value;
+            if (!tile.isInvalid()) {
+                NBTTagCompound tag = new NBTTagCompound();
+                tile.writeToNBT(tag);
+                hasher.addTileEntity(NBTConverter.fromNative(tag));
+            }
+        }
+
+        return hasher.hash();
+    }
+
+}
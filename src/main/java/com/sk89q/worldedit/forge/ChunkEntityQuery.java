@@ -0,0 +1,124 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Finds the entities in a region by reading the entity lists of the chunk
+ * sections that the region covers.
+ *
+ * <p>
+ * Only loaded chunks are looked at, and only the sections between the
+ * minimum and maximum Y of the region, so the cost depends on the size of
+ * the region rather than on the number of entities in the world. If the
+ * region spans more chunks than are loaded, the loaded entity list of the
+ * world is scanned instead.
+ * </p>
+ */
+final class ChunkEntityQuery {
+
+    /**
+     * How far an entity can be outside of the section that lists it, as it
+     * is only moved to another section once per tick. This is the margin
+     * that the world uses for its own bounding box queries.
+     */
+    private static final double MARGIN = 2.0;
+
+    private static final int MAX_SECTION = 15;
+
+    private ChunkEntityQuery() {}
+
+    /**
+     * Find the entities in the given region.
+     *
+     * <p>
+     * The entities are returned chunk by chunk. This method must be called
+     * from the thread that owns the world.
+     * </p>
+     *
+     * @param world  the world
+     * @param region the region
+     * @return the entities whose position is contained in the region
+     */
+    @SuppressWarnings("unchecked")
+    static List<Entity> find(World world, Region region) {
+        checkNotNull(world);
+        checkNotNull(region);
+
+        Vector min = region.getMinimumPoint();
+        Vector max = region.getMaximumPoint();
+        int minChunkX = MathHelper.floor_double((min.getX() - MARGIN) / 16.0);
+        int maxChunkX = MathHelper.floor_double((max.getX() + MARGIN) / 16.0);
+        int minChunkZ = MathHelper.floor_double((min.getZ() - MARGIN) / 16.0);
+        int maxChunkZ = MathHelper.floor_double((max.getZ() + MARGIN) / 16.0);
+        int minSection = clampSection(MathHelper.floor_double((min.getY() - MARGIN) / 16.0));
+        int maxSection = clampSection(MathHelper.floor_double((max.getY() + MARGIN) / 16.0));
+
+        List<Entity> entities = new ArrayList<Entity>();
+        IChunkProvider provider = world.getChunkProvider();
+        long chunkCount = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+        if (chunkCount > provider.getLoadedChunkCount()) {
+            for (Entity entity : (List<Entity>) world.loadedEntityList) {
+                addIfContained(entities, entity, region);
+            }
+            return entities;
+        }
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!provider.chunkExists(chunkX, chunkZ)) {
+                    continue;
+                }
+
+                Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+                for (int section = minSection; section <= maxSection; section++) {
+                    for (Entity entity : (List<Entity>) chunk.entityLists[section]) {
+                        addIfContained(entities, entity, region);
+                    }
+                }
+            }
+        }
+
+        return entities;
+    }
+
+    private static void addIfContained(List<Entity> entities, Entity entity, Region region) {
+        if (region.contains(new Vector(entity.posX, entity.posY, entity.posZ))) {
+            entities.add(entity);
+        }
+    }
+
+    private static int clampSection(int section) {
+        return Math.max(0, Math.min(MAX_SECTION, section));
+    }
+
+}
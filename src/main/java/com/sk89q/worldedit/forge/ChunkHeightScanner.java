@@ -0,0 +1,137 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BlockType;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Finds the highest terrain block of the columns of a region by reading chunk
+ * sections directly.
+ *
+ * <p>
+ * Each chunk is fetched once, and every column of it is scanned downwards
+ * through its sections. Missing or empty sections
+ * contain only air and are skipped without looking at their blocks.
+ * </p>
+ */
+final class ChunkHeightScanner {
+
+    private static final int MAX_Y = 255;
+
+    private ChunkHeightScanner() {}
+
+    /**
+     * Find the highest terrain block of every column of the given region.
+     *
+     * <p>
+     * This method must be called from the thread that owns the world.
+     * </p>
+     *
+     * @param world       the world
+     * @param region      the region
+     * @param naturalOnly look at natural blocks or all blocks
+     * @return the heights, as described by
+     *         {@link com.sk89q.worldedit.world.World#getHighestTerrainBlocks(Region, boolean)}
+     */
+    static int[] scan(World world, Region region, boolean naturalOnly) {
+        checkNotNull(world);
+        checkNotNull(region);
+
+        Vector min = region.getMinimumPoint();
+        Vector max = region.getMaximumPoint();
+        int minX = min.getBlockX();
+        int minY = min.getBlockY();
+        int minZ = min.getBlockZ();
+        int maxX = max.getBlockX();
+        int maxY = max.getBlockY();
+        int maxZ = max.getBlockZ();
+        int width = region.getWidth();
+
+        int[] heights = new int[width * region.getLength()];
+        Arrays.fill(heights, minY);
+
+        int scanMinY = Math.max(0, minY);
+        int scanMaxY = Math.min(MAX_Y, maxY);
+        if (scanMinY > scanMaxY) {
+            return heights;
+        }
+
+        for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                ExtendedBlockStorage[] storage = world.getChunkFromChunkCoords(chunkX, chunkZ)
+                    .getBlockStorageArray();
+                int fromX = Math.max(minX, chunkX << 4);
+                int toX = Math.min(maxX, (chunkX << 4) + 15);
+                int fromZ = Math.max(minZ, chunkZ << 4);
+                int toZ = Math.min(maxZ, (chunkZ << 4) + 15);
+
+                for (int z = fromZ; z <= toZ; z++) {
+                    for (int x = fromX; x <= toX; x++) {
+                        int height = scanColumn(storage, x & 15, z & 15, scanMinY, scanMaxY, naturalOnly);
+                        if (height >= 0) {
+                            heights[(z - minZ) * width + (x - minX)] = height;
+                        }
+                    }
+                }
+            }
+        }
+
+        return heights;
+    }
+
+    /**
+     * Scan one column of a chunk downwards.
+     *
+     * @param storage     the sections of the chunk
+     * @param x           the X coordinate within the chunk
+     * @param z           the Z coordinate within the chunk
+     * @param minY        the lowest Y to look at, at least 0
+     * @param maxY        the highest Y to look at, at most 255
+     * @param naturalOnly look at natural blocks or all blocks
+     * @return the Y of the highest terrain block, or -1 if there is none
+     */
+    private static int scanColumn(ExtendedBlockStorage[] storage, int x, int z, int minY, int maxY,
+        boolean naturalOnly) {
+        int y = maxY;
+        while (y >= minY) {
+            ExtendedBlockStorage section = storage[y >> 4];
+            int sectionMinY = Math.max(minY, y & ~15);
+            if (section != null && !section.isEmpty()) {
+                for (int i = y; i >= sectionMinY; i--) {
+                    int id = ChunkSectionBlocks.getId(section, x, i, z);
+                    int data = ChunkSectionBlocks.getData(section, x, i, z);
+                    if (naturalOnly ? BlockType.isNaturalTerrainBlock(id, data) : !BlockType.canPassThrough(id, data)) {
+                        return i;
+                    }
+                }
+            }
+            y = sectionMinY - 1;
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge;
+
+import net.minecraft.block.Block;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Reads the block IDs and data values of a chunk section.
+ *
+ * <p>
+ * Blocks are read with {@link ExtendedBlockStorage#getBlockByExtId(int, int, int)}
+ * and {@link ExtendedBlockStorage#getExtBlockMetadata(int, int, int)} rather
+ * than from the arrays of the section, because mods that extend the range
+ * of block IDs patch these methods and may store the IDs elsewhere.
+ * </p>
+ */
+final class ChunkSectionBlocks {
+
+    /**
+     * The number of blocks in a section.
+     */
+    static final int VOLUME = 4096;
+
+    private ChunkSectionBlocks() {}
+
+    /**
+     * Get the ID of a block.
+     *
+     * @param section the section
+     * @param x       the X coordinate within the chunk
+     * @param y       the Y coordinate, of which only the position within the section is used
+     * @param z       the Z coordinate within the chunk
+     * @return the block ID
+     */
+    static int getId(ExtendedBlockStorage section, int x, int y, int z) {
+        return Block.getIdFromBlock(section.getBlockByExtId(x, y & 15, z));
+    }
+
+    /**
+     * Get the data value of a block.
+     *
+     * @param section the section
+     * @param x       the X coordinate within the chunk
+     * @param y       the Y coordinate, of which only the position within the section is used
+     * @param z       the Z coordinate within the chunk
+     * @return the data value
+     */
+    static int getData(ExtendedBlockStorage section, int x, int y, int z) {
+        return section.getExtBlockMetadata(x, y & 15, z);
+    }
+
+    /**
+     * Get the index of a block in a copy made with {@link #copy(ExtendedBlockStorage)}.
+     *
+     * @param x the X coordinate within the chunk
+     * @param y the Y coordinate, of which only the position within the section is used
+     * @param z the Z coordinate within the chunk
+     * @return the index
+     */
+    static int getIndex(int x, int y, int z) {
+        return (y & 15) << 8 | z << 4 | x;
+    }
+
+    /**
+     * Copy the blocks of a section, each packed as the block ID shifted left
+     * by four bits and combined with the data value.
+     *
+     * @param section the section
+     * @return the packed blocks, by {@link #getIndex(int, int, int)}
+     */
+    static int[] copy(ExtendedBlockStorage section) {
+        int[] blocks = new int[VOLUME];
+        int index = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    blocks[index++] = getId(section, x, y, z) << 4 | getData(section, x, y, z);
+                }
+            }
+        }
+        return blocks;
+    }
+
+}
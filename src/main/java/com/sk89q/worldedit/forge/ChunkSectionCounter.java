@@ -0,0 +1,384 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.regions.ConvexPolyhedralRegion;
+import com.sk89q.worldedit.regions.EllipsoidRegion;
+import com.sk89q.worldedit.regions.FlatRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.BlockHistogram;
+
+/**
+ * Counts the blocks in a region by reading chunk sections directly.
+ *
+ * <p>
+ * The sections of each chunk column are copied on the calling (server)
+ * thread into read-only snapshots, which are then counted by a pool of
+ * worker threads into one histogram per thread. The histograms are combined
+ * once every chunk has been counted. The number of snapshots waiting to be
+ * counted is bounded, so memory use does not grow with the region size.
+ * </p>
+ *
+ * <p>
+ * A worker that fails keeps draining the queue so that the server thread
+ * is never left waiting for space, and the server thread also stops
+ * waiting as soon as a worker has ended early.
+ * </p>
+ */
+final class ChunkSectionCounter {
+
+    private static final int SECTIONS = 16;
+    private static final int PARALLEL_THRESHOLD = 8;
+    private static final int QUEUE_SIZE = 256;
+    private static final ChunkSnapshot END = new ChunkSnapshot(0, 0, new Section[0]);
+
+    private static final int THREADS = Math.max(
+        1,
+        Runtime.getRuntime()
+            .availableProcessors() - 1);
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        THREADS,
+        THREADS,
+        60L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("WorldEdit Block Counter %d")
+            .build());
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private ChunkSectionCounter() {}
+
+    /**
+     * Count the blocks in the given region.
+     *
+     * <p>
+     * This method must be called from the thread that owns the world.
+     * </p>
+     *
+     * @param world  the world
+     * @param region the region
+     * @return a histogram of the blocks in the region
+     */
+    static BlockHistogram count(World world, Region region) {
+        checkNotNull(world);
+        checkNotNull(region);
+
+        final RegionSpans spans = new RegionSpans(region.clone());
+        Set<Vector2D> chunks = region.getChunks();
+
+        if (chunks.size() < PARALLEL_THRESHOLD) {
+            BlockHistogram histogram = new BlockHistogram();
+            for (Vector2D chunk : chunks) {
+                snapshot(world, chunk.getBlockX(), chunk.getBlockZ(), spans).countInto(histogram, spans);
+            }
+            return histogram;
+        }
+
+        final BlockingQueue<ChunkSnapshot> queue = new ArrayBlockingQueue<ChunkSnapshot>(QUEUE_SIZE);
+        List<Future<BlockHistogram>> futures = new ArrayList<Future<BlockHistogram>>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(new Callable<BlockHistogram>() {
+
+                @Override
+                public BlockHistogram call() throws Exception {
+                    BlockHistogram histogram = new BlockHistogram();
+                    Throwable failure = null;
+                    while (true) {
+                        ChunkSnapshot snapshot = queue.take();
+                        if (snapshot == END) {
+                            break;
+                        }
+                        // Keep draining after a failure so that the producer never blocks
+                        if (failure == null) {
+                            try {
+                                snapshot.countInto(histogram, spans);
+                            } catch (Throwable t) {
+                                failure = t;
+                            }
+                        }
+                    }
+                    if (failure != null) {
+                        Throwables.propagateIfPossible(failure, Exception.class);
+                        throw new RuntimeException(failure);
+                    }
+                    return histogram;
+                }
+            }));
+        }
+
+        boolean done = false;
+        try {
+            for (Vector2D chunk : chunks) {
+                put(queue, snapshot(world, chunk.getBlockX(), chunk.getBlockZ(), spans), futures);
+            }
+            for (int i = 0; i < THREADS; i++) {
+                put(queue, END, futures);
+            }
+
+            BlockHistogram histogram = new BlockHistogram();
+            for (Future<BlockHistogram> future : futures) {
+                histogram.addAll(future.get());
+            }
+            done = true;
+            return histogram;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+            throw new RuntimeException("Interrupted while counting blocks", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to count blocks", e.getCause());
+        } finally {
+            if (!done) {
+                // Stop the workers that are still waiting for snapshots
+                for (Future<BlockHistogram> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a snapshot to the queue, waiting for space for as long as all
+     * workers are still running.
+     *
+     * @param queue    the queue
+     * @param snapshot the snapshot
+     * @param futures  the futures of the workers
+     * @throws InterruptedException thrown if the thread is interrupted
+     * @throws ExecutionException   thrown if a worker has failed
+     */
+    private static void put(BlockingQueue<ChunkSnapshot> queue, ChunkSnapshot snapshot,
+        List<Future<BlockHistogram>> futures) throws InterruptedException, ExecutionException {
+        while (!queue.offer(snapshot, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<BlockHistogram> future : futures) {
+                if (future.isDone()) {
+                    // Throws if the worker has failed; otherwise it has taken its end marker
+                    future.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the sections of a chunk that intersect the Y range of the region.
+     *
+     * @param world  the world
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @param spans  the spans of the region
+     * @return a snapshot
+     */
+    private static ChunkSnapshot snapshot(World world, int chunkX, int chunkZ, RegionSpans spans) {
+        Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+        ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+        Section[] sections = new Section[SECTIONS];
+        for (int i = spans.minY >> 4; i <= spans.maxY >> 4; i++) {
+            ExtendedBlockStorage section = storage[i];
+            if (section != null && !section.isEmpty()) {
+                sections[i] = new Section(section);
+            }
+        }
+        return new ChunkSnapshot(chunkX, chunkZ, sections);
+    }
+
+    /**
+     * The Y spans of a region for each column.
+     */
+    private static final class RegionSpans {
+
+        private final Region region;
+        private final boolean flat;
+        private final boolean convex;
+        private final int minY;
+        private final int maxY;
+        private final boolean ellipsoid;
+        private final double centerX;
+        private final double centerY;
+        private final double centerZ;
+        private final double radiusX;
+        private final double radiusY;
+        private final double radiusZ;
+
+        private RegionSpans(Region region) {
+            this.region = region;
+            this.flat = region instanceof FlatRegion;
+            this.ellipsoid = region instanceof EllipsoidRegion;
+            this.convex = ellipsoid || region instanceof ConvexPolyhedralRegion;
+            if (ellipsoid) {
+                EllipsoidRegion ellipsoidRegion = (EllipsoidRegion) region;
+                Vector center = ellipsoidRegion.getCenter();
+                Vector radius = ellipsoidRegion.getRadius()
+                    .add(0.5, 0.5, 0.5);
+                this.centerX = center.getX();
+                this.centerY = center.getY();
+                this.centerZ = center.getZ();
+                this.radiusX = radius.getX();
+                this.radiusY = radius.getY();
+                this.radiusZ = radius.getZ();
+            } else {
+                this.centerX = this.centerY = this.centerZ = 0;
+                this.radiusX = this.radiusY = this.radiusZ = 1;
+            }
+            this.minY = Math.max(
+                0,
+                region.getMinimumPoint()
+                    .getBlockY());
+            this.maxY = Math.min(
+                SECTIONS * 16 - 1,
+                region.getMaximumPoint()
+                    .getBlockY());
+        }
+
+        /**
+         * Return whether the region contains a block. Ellipsoids are tested
+         * without creating a vector, with the same arithmetic as
+         * {@link EllipsoidRegion#contains(Vector)}.
+         *
+         * @param x the X coordinate
+         * @param y the Y coordinate
+         * @param z the Z coordinate
+         * @return true if the block is in the region
+         */
+        private boolean contains(int x, int y, int z) {
+            if (ellipsoid) {
+                double dx = (x - centerX) / radiusX;
+                double dy = (y - centerY) / radiusY;
+                double dz = (z - centerZ) / radiusZ;
+                return dx * dx + dy * dy + dz * dz <= 1;
+            } else {
+                return region.contains(new Vector(x, y, z));
+            }
+        }
+    }
+
+    /**
+     * A read-only copy of the block data of one chunk section.
+     */
+    private static final class Section {
+
+        private final int[] blocks;
+
+        private Section(ExtendedBlockStorage storage) {
+            this.blocks = ChunkSectionBlocks.copy(storage);
+        }
+
+        private void countInto(BlockHistogram histogram, int index) {
+            int block = blocks[index];
+            histogram.add(block >>> 4, block & 0xF);
+        }
+    }
+
+    /**
+     * A read-only copy of the sections of one chunk column.
+     */
+    private static final class ChunkSnapshot {
+
+        private final int chunkX;
+        private final int chunkZ;
+        private final Section[] sections;
+
+        private ChunkSnapshot(int chunkX, int chunkZ, Section[] sections) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.sections = sections;
+        }
+
+        private void countInto(BlockHistogram histogram, RegionSpans spans) {
+            Region region = spans.region;
+            int baseX = chunkX << 4;
+            int baseZ = chunkZ << 4;
+
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (spans.flat) {
+                        // Columns of flat regions are either wholly inside or outside
+                        if (region.contains(new Vector(baseX + x, spans.minY, baseZ + z))) {
+                            countSpan(histogram, x, z, spans.minY, spans.maxY);
+                        }
+                    } else if (spans.convex) {
+                        // Columns of convex regions are cut by the region in one span
+                        int spanMinY = -1;
+                        int spanMaxY = -1;
+                        for (int y = spans.minY; y <= spans.maxY; y++) {
+                            if (spans.contains(baseX + x, y, baseZ + z)) {
+                                if (spanMinY < 0) {
+                                    spanMinY = y;
+                                }
+                                spanMaxY = y;
+                            } else if (spanMinY >= 0) {
+                                break;
+                            }
+                        }
+                        if (spanMinY >= 0) {
+                            countSpan(histogram, x, z, spanMinY, spanMaxY);
+                        }
+                    } else {
+                        for (int y = spans.minY; y <= spans.maxY; y++) {
+                            if (spans.contains(baseX + x, y, baseZ + z)) {
+                                countSpan(histogram, x, z, y, y);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void countSpan(BlockHistogram histogram, int x, int z, int minY, int maxY) {
+            int y = minY;
+            while (y <= maxY) {
+                Section section = sections[y >> 4];
+                int sectionMaxY = Math.min(maxY, y | 15);
+                if (section == null) {
+                    histogram.add(0, 0, sectionMaxY - y + 1);
+                } else {
+                    for (int i = y; i <= sectionMaxY; i++) {
+                        section.countInto(histogram, ChunkSectionBlocks.getIndex(x, i, z));
+                    }
+                }
+                y = sectionMaxY + 1;
+            }
+        }
+    }
+
+}
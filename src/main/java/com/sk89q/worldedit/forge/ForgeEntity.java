@@ -23,6 +23,7 @@ import java.lang.ref.WeakReference;
 import javax.annotation.Nullable;
 
 import net.minecraft.entity.EntityList;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
 
 import com.sk89q.worldedit.Vector;
@@ -87,7 +88,13 @@ class ForgeEntity implements Entity {
     public boolean remove() {
         net.minecraft.entity.Entity entity = entityRef.get();
         if (entity != null) {
-            entity.setDead();
+            if (entity instanceof EntityPlayer) {
+                entity.setDead();
+            } else {
+                // Also dismounts riders; the world drops the entity from its
+                // chunk and entity list in one pass on its next tick
+                entity.worldObj.removeEntity(entity);
+            }
         }
         return true;
     }
@@ -21,7 +21,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.logging.Level;
@@ -43,6 +45,7 @@ import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.gen.ChunkProviderServer;
 import net.minecraft.world.gen.feature.WorldGenBigMushroom;
 import net.minecraft.world.gen.feature.WorldGenBigTree;
@@ -59,6 +62,7 @@ import net.minecraft.world.gen.feature.WorldGenTrees;
 import net.minecraft.world.gen.feature.WorldGenerator;
 
 import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.Vector;
@@ -67,15 +71,19 @@ import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BaseItem;
 import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.blocks.Blocks;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
 import com.sk89q.worldedit.blocks.LazyBlock;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.forge.compat.GregTechTileTemplates;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.util.TreeGenerator.TreeType;
 import com.sk89q.worldedit.world.AbstractWorld;
+import com.sk89q.worldedit.world.BlockHistogram;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.registry.WorldData;
 
@@ -86,6 +94,7 @@ public class ForgeWorld extends AbstractWorld {
 
     private static final Logger logger = Logger.getLogger(ForgeWorld.class.getCanonicalName());
     private static final Random random = new Random();
+    private static final Runnable NO_CALLBACK = () -> {};
     private final WeakReference<World> worldRef;
 
     /**
@@ -174,10 +183,8 @@ public class ForgeWorld extends AbstractWorld {
 
         // Create the TileEntity
         if (successful) {
-            CompoundTag tag = block.getNbtData();
-            if (tag != null) {
-                NBTTagCompound nativeTag = NBTConverter.toNative(tag);
-                nativeTag.setString("id", block.getNbtId());
+            NBTTagCompound nativeTag = toNativeTileEntityTag(block);
+            if (nativeTag != null) {
                 TileEntityUtils.setTileEntity(getWorld(), position, nativeTag);
             }
         }
@@ -196,6 +203,61 @@ public class ForgeWorld extends AbstractWorld {
         return successful;
     }
 
+    @Override
+    public int setTileEntities(Map<BlockVector, BaseBlock> blocks) throws WorldEditException {
+        checkNotNull(blocks);
+
+        World world = getWorldChecked();
+        Map<BlockVector, NBTTagCompound> tags = new LinkedHashMap<BlockVector, NBTTagCompound>();
+        for (Map.Entry<BlockVector, BaseBlock> entry : blocks.entrySet()) {
+            BlockVector position = entry.getKey();
+            BaseBlock block = entry.getValue();
+            int x = position.getBlockX();
+            int y = position.getBlockY();
+            int z = position.getBlockZ();
+
+            // Skip blocks that were replaced in the meantime or cannot have a tile entity
+            Block placed = world.getBlock(x, y, z);
+            int data = world.getBlockMetadata(x, y, z);
+            if (Block.getIdFromBlock(placed) != block.getId() || !placed.hasTileEntity(data)) {
+                continue;
+            }
+
+            NBTTagCompound nativeTag = toNativeTileEntityTag(block);
+            if (nativeTag != null) {
+                tags.put(position, nativeTag);
+            }
+        }
+
+        return TileEntityUtils.setTileEntities(world, tags);
+    }
+
+    /**
+     * Get the native tile entity tag to create for the given block.
+     *
+     * <p>
+     * Blocks read from a Forge world are copied natively, without a round
+     * trip through JNBT.
+     * </p>
+     *
+     * @param block the block
+     * @return a new tag compound, or null if the block has no NBT data
+     */
+    @Nullable
+    private static NBTTagCompound toNativeTileEntityTag(BaseBlock block) {
+        if (block instanceof TileEntityBaseBlock) {
+            return ((TileEntityBaseBlock) block).getNativeNbtData();
+        }
+
+        CompoundTag tag = block.getNbtData();
+        if (tag == null) {
+            return null;
+        }
+        NBTTagCompound nativeTag = GregTechTileTemplates.toNative(tag);
+        nativeTag.setString("id", block.getNbtId());
+        return nativeTag;
+    }
+
     @Override
     public int getBlockLightLevel(Vector position) {
         checkNotNull(position);
@@ -238,6 +300,32 @@ public class ForgeWorld extends AbstractWorld {
         return false;
     }
 
+    @Override
+    public boolean isChunkLoaded(Vector2D position) {
+        return getWorld().getChunkProvider()
+            .chunkExists(position.getBlockX(), position.getBlockZ());
+    }
+
+    @Override
+    public void prefetchChunk(Vector2D position) {
+        IChunkProvider provider = getWorld().getChunkProvider();
+        if (!(provider instanceof ChunkProviderServer)) {
+            return;
+        }
+
+        ChunkProviderServer chunkServer = (ChunkProviderServer) provider;
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+
+        // Given a callback, Forge reads saved chunks on its chunk I/O thread
+        // and adds them to the world on the main thread; chunks that would
+        // have to be generated are left until they are accessed
+        if (!chunkServer.chunkExists(x, z) && chunkServer.currentChunkLoader instanceof AnvilChunkLoader
+            && ((AnvilChunkLoader) chunkServer.currentChunkLoader).chunkExists(getWorld(), x, z)) {
+            chunkServer.loadChunk(x, z, NO_CALLBACK);
+        }
+    }
+
     @Override
     public void dropItem(Vector position, BaseItemStack item) {
         checkNotNull(position);
@@ -269,7 +357,7 @@ public class ForgeWorld extends AbstractWorld {
                     for (int z = 0; z < 16; z++) {
                         Vector pt = min.add(x, y, z);
                         int index = y * 16 * 16 + z * 16 + x;
-                        history[index] = editSession.getBlock(pt);
+                        history[index] = Blocks.snapshot(editSession.getBlock(pt));
                     }
                 }
             }
@@ -354,6 +442,21 @@ public class ForgeWorld extends AbstractWorld {
         return false;
     }
 
+    @Override
+    public BlockHistogram getBlockHistogram(Region region) {
+        return ChunkSectionCounter.count(getWorld(), region);
+    }
+
+    @Override
+    public int[] getHighestTerrainBlocks(Region region, boolean naturalOnly) {
+        return ChunkHeightScanner.scan(getWorld(), region, naturalOnly);
+    }
+
+    @Override
+    public long getChunkContentHash(Vector2D position) {
+        return ChunkContentHasher.hash(getWorld(), position.getBlockX(), position.getBlockZ());
+    }
+
     @Nullable
     private static WorldGenerator createWorldGenerator(TreeType type) {
         switch (type) {
@@ -433,9 +536,16 @@ public class ForgeWorld extends AbstractWorld {
     @Override
     public BaseBlock getLazyBlock(Vector position) {
         World world = getWorld();
-        int id = Block.getIdFromBlock(world.getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ()));
+        Block block = world.getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        int id = Block.getIdFromBlock(block);
         int data = world.getBlockMetadata(position.getBlockX(), position.getBlockY(), position.getBlockZ());
-        return new LazyBlock(id, data, this, position);
+
+        // Only blocks that may have a tile entity need to load NBT data later
+        if (block.hasTileEntity(data)) {
+            return new LazyBlock(id, data, this, position);
+        } else {
+            return ImmutableBlock.of(id, data);
+        }
     }
 
     @Override
@@ -461,15 +571,10 @@ public class ForgeWorld extends AbstractWorld {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public List<? extends Entity> getEntities(Region region) {
         List<Entity> entities = new ArrayList<Entity>();
-        World world = getWorld();
-        List<net.minecraft.entity.Entity> ents = world.loadedEntityList;
-        for (net.minecraft.entity.Entity entity : ents) {
-            if (region.contains(new Vector(entity.posX, entity.posY, entity.posZ))) {
-                entities.add(new ForgeEntity(entity));
-            }
+        for (net.minecraft.entity.Entity entity : ChunkEntityQuery.find(getWorld(), region)) {
+            entities.add(new ForgeEntity(entity));
         }
         return entities;
     }
@@ -43,6 +43,7 @@ import com.sk89q.worldedit.forge.compat.ArchitectureCraftBlockTransformHook;
 import com.sk89q.worldedit.forge.compat.CarpentersBlocksBlockTransformHook;
 import com.sk89q.worldedit.forge.compat.ForgeMultipartCompat;
 import com.sk89q.worldedit.forge.compat.ForgeMultipartExistsCompat;
+import com.sk89q.worldedit.forge.compat.GregTechTileTemplates;
 import com.sk89q.worldedit.forge.compat.NoForgeMultipartCompat;
 import com.sk89q.worldedit.internal.LocalWorldAdapter;
 
@@ -118,6 +119,9 @@ public class ForgeWorldEdit {
         FMLCommonHandler.instance()
             .bus()
             .register(ThreadSafeCache.getInstance());
+        FMLCommonHandler.instance()
+            .bus()
+            .register(new EditJobTickHandler());
     }
 
     @EventHandler
@@ -141,6 +145,7 @@ public class ForgeWorldEdit {
         }
 
         ForgeBiomeRegistry.populate();
+        GregTechTileTemplates.invalidate();
 
         this.platform = new ForgePlatform(this);
 
@@ -14,19 +14,97 @@
  * along with this program. If not, see <http://www.gnu.org/licenses/>.
  */
 
+
 package com.sk89q.worldedit.forge;
 
+import javax.annotation.Nullable;
+
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 
+import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.TileEntityBlock;
+import com.sk89q.worldedit.forge.compat.GregTechTileTemplates;
 
+/**
+ * A block read from a Forge world that has a tile entity.
+ *
+ * <p>
+ * The tile entity is not serialized when this block is created. Its NBT
+ * data is only captured (and converted to JNBT) once {@link #getNbtData()}
+ * is called, so callers that only need the type and data value do not pay
+ * for large tile entities. Extents that store blocks for later use (history,
+ * buffers, clipboards) take a snapshot with
+ * {@link com.sk89q.worldedit.blocks.Blocks#snapshot(BaseBlock)} first.
+ * </p>
+ */
 public class TileEntityBaseBlock extends BaseBlock implements TileEntityBlock {
 
+    @Nullable
+    private TileEntity tile;
+
     public TileEntityBaseBlock(int type, int data, TileEntity tile) {
         super(type, data);
-        setNbtData(NBTConverter.fromNative(copyNbtData(tile)));
+        this.tile = tile;
+    }
+
+    /**
+     * Return whether the NBT data has not been read from the tile entity yet.
+     *
+     * @return true if the NBT data is still to be read
+     */
+    public boolean isLazy() {
+        return tile != null;
+    }
+
+    /**
+     * Get a native copy of the NBT data, including the tile entity ID.
+     *
+     * <p>
+     * If the data has not been read yet, it is written straight from the
+     * tile entity without a round trip through JNBT, which is the path
+     * used when copying from one place in a world to another.
+     * </p>
+     *
+     * @return a new tag compound, or null if there is no NBT data
+     */
+    @Nullable
+    public NBTTagCompound getNativeNbtData() {
+        TileEntity tile = this.tile;
+        if (tile != null) {
+            return copyNbtData(tile);
+        }
+
+        CompoundTag tag = super.getNbtData();
+        if (tag == null) {
+            return null;
+        }
+        NBTTagCompound nativeTag = GregTechTileTemplates.toNative(tag);
+        nativeTag.setString("id", getNbtId());
+        return nativeTag;
+    }
+
+    @Override
+    public boolean hasNbtData() {
+        return tile != null || super.hasNbtData();
+    }
+
+    @Nullable
+    @Override
+    public CompoundTag getNbtData() {
+        TileEntity tile = this.tile;
+        if (tile != null) {
+            this.tile = null;
+            super.setNbtData(NBTConverter.fromNative(copyNbtData(tile)));
+        }
+        return super.getNbtData();
+    }
+
+    @Override
+    public void setNbtData(@Nullable CompoundTag nbtData) {
+        this.tile = null;
+        super.setNbtData(nbtData);
     }
 
     private static NBTTagCompound copyNbtData(TileEntity tile) {
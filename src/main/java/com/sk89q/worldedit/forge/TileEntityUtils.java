@@ -16,6 +16,8 @@
 
 package com.sk89q.worldedit.forge;
 
+import java.util.Map;
+
 import javax.annotation.Nullable;
 
 import net.minecraft.nbt.NBTTagCompound;
@@ -65,6 +67,34 @@ final class TileEntityUtils {
         }
     }
 
+    /**
+     * Set the tile entities of blocks that have already been placed.
+     *
+     * <p>
+     * No packets are sent here besides those of multiparts. Each block is
+     * marked for an update again, which the player manager merges with the
+     * update of the block itself if both fall in the same tick, and sends
+     * together with the new tile entity at the end of the tick.
+     * </p>
+     *
+     * @param world the world
+     * @param tags  the tags for the tile entities, by position
+     * @return the number of tile entities that were set
+     */
+    static int setTileEntities(World world, Map<? extends Vector, NBTTagCompound> tags) {
+        int count = 0;
+        for (Map.Entry<? extends Vector, NBTTagCompound> entry : tags.entrySet()) {
+            Vector position = entry.getKey();
+            TileEntity tileEntity = makeTileEntity(world, position, updateForSet(entry.getValue(), position));
+            if (tileEntity != null) {
+                setTileEntity(world, position, tileEntity);
+                world.markBlockForUpdate(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+                ++count;
+            }
+        }
+        return count;
+    }
+
     private static TileEntity makeTileEntity(World world, Vector position, NBTTagCompound tag) {
         TileEntity normal = TileEntity.createAndLoadEntity(tag);
         return ForgeWorldEdit.inst.getFMPCompat()
@@ -0,0 +1,140 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.forge.compat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.forge.NBTConverter;
+
+import gregtech.api.GregTech_API;
+
+/**
+ * Caches the NBT data of GregTech meta tile entities by meta tile ID.
+ *
+ * <p>
+ * A block with a data value above 15 stands for a GregTech machine whose
+ * meta tile ID is the data value. Its NBT data is that of an empty meta
+ * tile entity with the {@code mID} set, which used to be built by creating
+ * a tile entity for every block. The data is now built once per ID, and
+ * every block shares the same {@link CompoundTag}, which is immutable.
+ * A native copy of the data is kept as well, so that placing such a block
+ * only copies the native tag instead of converting it from JNBT.
+ * </p>
+ *
+ * <p>
+ * The cache must be cleared with {@link #invalidate()} whenever the
+ * GregTech registries may have changed, such as when a server starts.
+ * </p>
+ */
+public final class GregTechTileTemplates {
+
+    private static final String META_TILE_ID = "mID";
+
+    private static final ConcurrentMap<Integer, Template> templates = new ConcurrentHashMap<Integer, Template>();
+    @Nullable
+    private static volatile NBTTagCompound base;
+
+    private GregTechTileTemplates() {}
+
+    /**
+     * Get the NBT data of a meta tile entity with the given ID.
+     *
+     * @param metaTileId the meta tile ID
+     * @return the shared NBT data
+     */
+    public static CompoundTag get(int metaTileId) {
+        return getTemplate(metaTileId).tag;
+    }
+
+    /**
+     * Convert NBT data to a new native tag, copying the cached native tag if
+     * the data was returned by {@link #get(int)}.
+     *
+     * @param tag the NBT data
+     * @return a new native tag
+     */
+    public static NBTTagCompound toNative(CompoundTag tag) {
+        Tag id = tag.getValue()
+            .get(META_TILE_ID);
+        if (id instanceof IntTag) {
+            Template template = templates.get(((IntTag) id).getValue());
+            if (template != null && template.tag == tag) {
+                return (NBTTagCompound) template.nativeTag.copy();
+            }
+        }
+        return NBTConverter.toNative(tag);
+    }
+
+    /**
+     * Clear the cache, so that the NBT data is built again from the
+     * GregTech registries.
+     */
+    public static void invalidate() {
+        base = null;
+        templates.clear();
+    }
+
+    private static Template getTemplate(int metaTileId) {
+        Template template = templates.get(metaTileId);
+        if (template == null) {
+            NBTTagCompound nativeTag = (NBTTagCompound) getBase().copy();
+            nativeTag.setInteger(META_TILE_ID, metaTileId);
+            template = new Template(NBTConverter.fromNative(nativeTag), nativeTag);
+            Template existing = templates.putIfAbsent(metaTileId, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+        return template;
+    }
+
+    private static NBTTagCompound getBase() {
+        NBTTagCompound tag = base;
+        if (tag == null) {
+            tag = new NBTTagCompound();
+            GregTech_API.createTileEntity(0)
+                .writeToNBT(tag);
+            base = tag;
+        }
+        return tag;
+    }
+
+    /**
+     * The NBT data of one meta tile ID, in JNBT and native form.
+     */
+    private static final class Template {
+
+        private final CompoundTag tag;
+        private final NBTTagCompound nativeTag;
+
+        private Template(CompoundTag tag, NBTTagCompound nativeTag) {
+            this.tag = tag;
+            this.nativeTag = nativeTag;
+        }
+
+    }
+
+}
@@ -18,12 +18,17 @@ package com.sk89q.worldedit.function.block;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.RegionFunction;
+import com.sk89q.worldedit.math.transform.CompiledTransform;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
 
 /**
  * Copies blocks from one extent to another.
@@ -35,6 +40,8 @@ public class ExtentBlockCopy implements RegionFunction {
     private final Vector from;
     private final Vector to;
     private final Transform transform;
+    @Nullable
+    private final CompiledTransform integralTransform;
 
     /**
      * Make a new copy.
@@ -55,12 +62,42 @@ public class ExtentBlockCopy implements RegionFunction {
         this.from = from;
         this.destination = destination;
         this.to = to;
-        this.transform = transform;
+        this.transform = Transforms.compile(transform);
+        this.integralTransform = isIntegral(this.transform, from, to) ? (CompiledTransform) this.transform : null;
+    }
+
+    /**
+     * Return whether positions can be mapped with integer arithmetic.
+     *
+     * @param transform the compiled transform
+     * @param from      the source offset
+     * @param to        the destination offset
+     * @return true if integral
+     */
+    private static boolean isIntegral(Transform transform, Vector from, Vector to) {
+        return transform instanceof CompiledTransform && ((CompiledTransform) transform).isIntegral()
+            && isBlockPoint(from)
+            && isBlockPoint(to);
+    }
+
+    private static boolean isBlockPoint(Vector vector) {
+        return vector.getX() == vector.getBlockX() && vector.getY() == vector.getBlockY()
+            && vector.getZ() == vector.getBlockZ();
     }
 
     @Override
     public boolean apply(Vector position) throws WorldEditException {
         BaseBlock block = source.getBlock(position);
+        if (integralTransform != null) {
+            int x = position.getBlockX() - from.getBlockX();
+            int y = position.getBlockY() - from.getBlockY();
+            int z = position.getBlockZ() - from.getBlockZ();
+            BlockVector target = new BlockVector(
+                integralTransform.applyX(x, y, z) + to.getBlockX(),
+                integralTransform.applyY(x, y, z) + to.getBlockY(),
+                integralTransform.applyZ(x, y, z) + to.getBlockZ());
+            return destination.setBlock(target, block);
+        }
         Vector orig = position.subtract(from);
         Vector transformed = transform.apply(orig);
         return destination.setBlock(transformed.add(to), block);
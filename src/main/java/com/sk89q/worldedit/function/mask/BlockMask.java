@@ -19,7 +19,9 @@ package com.sk89q.worldedit.function.mask;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -37,10 +39,20 @@ import com.sk89q.worldedit.extent.Extent;
  * This mask checks for both an exact block ID and data value match, as well
  * for a block with the same ID but a data value of -1.
  * </p>
+ *
+ * <p>
+ * The list of blocks is compiled into a bit set indexed by
+ * {@code (id << 4) | data}, so a test only needs the type and data value
+ * of the block (as returned by {@link Extent#getLazyBlock(Vector)}) and a
+ * single bit lookup.
+ * </p>
  */
 public class BlockMask extends AbstractExtentMask {
 
+    private static final int DATA_VALUES = BaseBlock.MAX_DATA + 1;
+
     private final Set<BaseBlock> blocks = new HashSet<BaseBlock>();
+    private final BitSet matches = new BitSet((BaseBlock.MAX_ID + 1) * DATA_VALUES);
 
     /**
      * Create a new block mask.
@@ -50,8 +62,7 @@ public class BlockMask extends AbstractExtentMask {
      */
     public BlockMask(Extent extent, Collection<BaseBlock> blocks) {
         super(extent);
-        checkNotNull(blocks);
-        this.blocks.addAll(blocks);
+        add(blocks);
     }
 
     /**
@@ -71,7 +82,15 @@ public class BlockMask extends AbstractExtentMask {
      */
     public void add(Collection<BaseBlock> blocks) {
         checkNotNull(blocks);
-        this.blocks.addAll(blocks);
+        for (BaseBlock block : blocks) {
+            this.blocks.add(block.toImmutable());
+            if (block.hasWildcardData()) {
+                int offset = block.getType() * DATA_VALUES;
+                matches.set(offset, offset + DATA_VALUES);
+            } else {
+                matches.set(getKey(block.getType(), block.getData()));
+            }
+        }
     }
 
     /**
@@ -86,16 +105,58 @@ public class BlockMask extends AbstractExtentMask {
     /**
      * Get the list of blocks that are tested with.
      *
+     * <p>
+     * The returned collection cannot be modified. Use {@link #add(Collection)}
+     * to add further criteria.
+     * </p>
+     *
      * @return a list of blocks
      */
     public Collection<BaseBlock> getBlocks() {
-        return blocks;
+        return Collections.unmodifiableSet(blocks);
+    }
+
+    /**
+     * Test whether a block with the given type and data value is matched.
+     *
+     * @param type the type ID
+     * @param data the data value (between 0 and {@link BaseBlock#MAX_DATA})
+     * @return true if matched
+     */
+    public boolean matches(int type, int data) {
+        return matches.get(getKey(type, data));
+    }
+
+    /**
+     * Get the compiled bit set of matched blocks, which is indexed by
+     * {@link #getKey(int, int)}.
+     *
+     * <p>
+     * The bit set is live and is updated when criteria are added, so it
+     * must not be modified by the caller.
+     * </p>
+     *
+     * @return the bit set
+     */
+    BitSet getMatches() {
+        return matches;
     }
 
     @Override
     public boolean test(Vector vector) {
-        BaseBlock block = getExtent().getBlock(vector);
-        return blocks.contains(block) || blocks.contains(new BaseBlock(block.getType(), -1));
+        BaseBlock block = getExtent().getLazyBlock(vector);
+        return matches.get(getKey(block.getType(), block.getData()));
+    }
+
+    /**
+     * Get the index of the given type and data value in the compiled bit set.
+     *
+     * @param type the type ID
+     * @param data the data value
+     * @return the index
+     */
+    static int getKey(int type, int data) {
+        return type << 4 | (data & BaseBlock.MAX_DATA);
     }
 
     @Nullable
@@ -0,0 +1,131 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.mask;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.extent.Extent;
+
+/**
+ * Tests several {@link BlockMask}s that share the same extent with a single
+ * block read, combining their compiled bit sets as either an intersection or
+ * a union.
+ *
+ * <p>
+ * The bit sets of the original masks are referenced rather than copied, so
+ * criteria added to those masks later are still seen.
+ * </p>
+ */
+final class FusedBlockMask extends AbstractMask {
+
+    private final BlockMask first;
+    private final BitSet[] sets;
+    private final boolean union;
+
+    private FusedBlockMask(List<BlockMask> masks, boolean union) {
+        this.first = masks.get(0);
+        this.sets = new BitSet[masks.size()];
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = masks.get(i)
+                .getMatches();
+        }
+        this.union = union;
+    }
+
+    @Override
+    public boolean test(Vector vector) {
+        BaseBlock block = first.getExtent()
+            .getLazyBlock(vector);
+        int key = BlockMask.getKey(block.getType(), block.getData());
+
+        if (union) {
+            for (BitSet set : sets) {
+                if (set.get(key)) {
+                    return true;
+                }
+            }
+            return false;
+        } else {
+            for (BitSet set : sets) {
+                if (!set.get(key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Nullable
+    @Override
+    public Mask2D toMask2D() {
+        return null;
+    }
+
+    /**
+     * Compile a list of masks into an array where all {@link BlockMask}s
+     * sharing an extent have been replaced by one fused mask.
+     *
+     * <p>
+     * Fused masks are placed first as they are the cheapest to test.
+     * </p>
+     *
+     * @param masks the masks
+     * @param union true to fuse as a union, false to fuse as an intersection
+     * @return an array of masks
+     */
+    static Mask[] compile(Collection<Mask> masks, boolean union) {
+        Map<Extent, List<BlockMask>> groups = new IdentityHashMap<Extent, List<BlockMask>>();
+        List<Mask> others = new ArrayList<Mask>();
+
+        for (Mask mask : masks) {
+            if (mask instanceof BlockMask) {
+                BlockMask blockMask = (BlockMask) mask;
+                List<BlockMask> group = groups.get(blockMask.getExtent());
+                if (group == null) {
+                    group = new ArrayList<BlockMask>();
+                    groups.put(blockMask.getExtent(), group);
+                }
+                group.add(blockMask);
+            } else {
+                others.add(mask);
+            }
+        }
+
+        List<Mask> compiled = new ArrayList<Mask>(groups.size() + others.size());
+        for (List<BlockMask> group : groups.values()) {
+            if (group.size() == 1) {
+                compiled.add(group.get(0));
+            } else {
+                compiled.add(new FusedBlockMask(group, union));
+            }
+        }
+        compiled.addAll(others);
+
+        return compiled.toArray(new Mask[compiled.size()]);
+    }
+
+}
@@ -18,11 +18,18 @@ package com.sk89q.worldedit.function.mask;
 
 import java.util.Collection;
 
-import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.blocks.BaseBlock;
-import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.extent.Extent;
 
+/**
+ * A {@link BlockMask} that matches blocks with the same type regardless of
+ * data value if either side has a data value of -1.
+ *
+ * <p>
+ * Since blocks read from an extent never have wildcard data, this is the
+ * same test as the compiled lookup in {@link BlockMask}.
+ * </p>
+ */
 public class FuzzyBlockMask extends BlockMask {
 
     public FuzzyBlockMask(Extent extent, Collection<BaseBlock> blocks) {
@@ -33,12 +40,4 @@ public class FuzzyBlockMask extends BlockMask {
         super(extent, block);
     }
 
-    @Override
-    public boolean test(Vector vector) {
-        Extent extent = getExtent();
-        Collection<BaseBlock> blocks = getBlocks();
-        BaseBlock lazyBlock = extent.getLazyBlock(vector);
-        BaseBlock compare = new BaseBlock(lazyBlock.getType(), lazyBlock.getData());
-        return Blocks.containsFuzzy(blocks, compare);
-    }
 }
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,10 +34,17 @@ import com.sk89q.worldedit.Vector;
  * Combines several masks and requires that all masks return true
  * when a certain position is tested. It serves as a logical AND operation
  * on a list of masks.
+ *
+ * <p>
+ * Before the first test, the list is compiled so that {@link BlockMask}s
+ * on the same extent are fused and tested with a single block read.
+ * </p>
  */
 public class MaskIntersection extends AbstractMask {
 
     private final Set<Mask> masks = new HashSet<Mask>();
+    @Nullable
+    private Mask[] compiled;
 
     /**
      * Create a new intersection.
@@ -65,6 +73,7 @@ public class MaskIntersection extends AbstractMask {
     public void add(Collection<Mask> masks) {
         checkNotNull(masks);
         this.masks.addAll(masks);
+        this.compiled = null;
     }
 
     /**
@@ -79,19 +88,48 @@ public class MaskIntersection extends AbstractMask {
     /**
      * Get the masks that are tested with.
      *
+     * <p>
+     * The returned collection cannot be modified. Use {@link #add(Collection)}
+     * to add further masks.
+     * </p>
+     *
      * @return the masks
      */
     public Collection<Mask> getMasks() {
-        return masks;
+        return Collections.unmodifiableSet(masks);
+    }
+
+    /**
+     * Get the compiled list of masks that is actually tested.
+     *
+     * @return an array of masks
+     */
+    Mask[] getCompiledMasks() {
+        Mask[] compiled = this.compiled;
+        if (compiled == null) {
+            this.compiled = compiled = compile(masks);
+        }
+        return compiled;
+    }
+
+    /**
+     * Compile the given masks into the array returned by {@link #getCompiledMasks()}.
+     *
+     * @param masks the masks
+     * @return an array of masks
+     */
+    Mask[] compile(Collection<Mask> masks) {
+        return FusedBlockMask.compile(masks, false);
     }
 
     @Override
     public boolean test(Vector vector) {
-        if (masks.isEmpty()) {
+        Mask[] compiled = getCompiledMasks();
+        if (compiled.length == 0) {
             return false;
         }
 
-        for (Mask mask : masks) {
+        for (Mask mask : compiled) {
             if (!mask.test(vector)) {
                 return false;
             }
@@ -50,10 +50,13 @@ public class MaskUnion extends MaskIntersection {
     }
 
     @Override
-    public boolean test(Vector vector) {
-        Collection<Mask> masks = getMasks();
+    Mask[] compile(Collection<Mask> masks) {
+        return FusedBlockMask.compile(masks, true);
+    }
 
-        for (Mask mask : masks) {
+    @Override
+    public boolean test(Vector vector) {
+        for (Mask mask : getCompiledMasks()) {
             if (mask.test(vector)) {
                 return true;
             }
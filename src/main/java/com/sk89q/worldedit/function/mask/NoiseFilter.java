@@ -30,8 +30,15 @@ import com.sk89q.worldedit.math.noise.NoiseGenerator;
  */
 public class NoiseFilter extends AbstractMask {
 
+    private static final int ROW_SIZE = 16;
+
     private NoiseGenerator noiseGenerator;
     private double density;
+    private final double[] row = new double[ROW_SIZE];
+    private boolean rowValid;
+    private int rowX;
+    private int rowY;
+    private int rowZ;
 
     /**
      * Create a new noise filter.
@@ -61,6 +68,7 @@ public class NoiseFilter extends AbstractMask {
     public void setNoiseGenerator(NoiseGenerator noiseGenerator) {
         checkNotNull(noiseGenerator);
         this.noiseGenerator = noiseGenerator;
+        this.rowValid = false;
     }
 
     /**
@@ -83,7 +91,24 @@ public class NoiseFilter extends AbstractMask {
 
     @Override
     public boolean test(Vector vector) {
-        return noiseGenerator.noise(vector) <= density;
+        int x = vector.getBlockX();
+        int y = vector.getBlockY();
+        int z = vector.getBlockZ();
+        if (!noiseGenerator.isDeterministic() || x != vector.getX() || y != vector.getY() || z != vector.getZ()) {
+            return noiseGenerator.noise(vector) <= density;
+        }
+
+        // Regions are iterated along X first, so compute the noise of the
+        // next few blocks along X in one go
+        int rowStart = x & ~(ROW_SIZE - 1);
+        if (!rowValid || rowStart != rowX || y != rowY || z != rowZ) {
+            noiseGenerator.noiseSlab(rowStart, y, z, ROW_SIZE, 1, row);
+            rowValid = true;
+            rowX = rowStart;
+            rowY = y;
+            rowZ = z;
+        }
+        return row[x - rowStart] <= density;
     }
 
     @Nullable
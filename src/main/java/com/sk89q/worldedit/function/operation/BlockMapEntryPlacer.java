@@ -52,6 +52,10 @@ public class BlockMapEntryPlacer implements Operation {
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
         while (iterator.hasNext()) {
+            if (!run.shouldContinue()) {
+                return this;
+            }
+
             Map.Entry<BlockVector, BaseBlock> entry = iterator.next();
             extent.setBlock(entry.getKey(), entry.getValue());
         }
@@ -48,23 +48,37 @@ public class ChangeSetExecutor implements Operation {
      * @param context   the undo context
      */
     private ChangeSetExecutor(ChangeSet changeSet, Type type, UndoContext context) {
-        checkNotNull(changeSet);
+        this(
+            type == Type.UNDO ? checkNotNull(changeSet).backwardIterator()
+                : checkNotNull(changeSet).forwardIterator(),
+            type,
+            context);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param iterator the changes, in the order in which they are to be applied
+     * @param type     type of change
+     * @param context  the undo context
+     */
+    private ChangeSetExecutor(Iterator<Change> iterator, Type type, UndoContext context) {
+        checkNotNull(iterator);
         checkNotNull(type);
         checkNotNull(context);
 
+        this.iterator = iterator;
         this.type = type;
         this.context = context;
-
-        if (type == Type.UNDO) {
-            iterator = changeSet.backwardIterator();
-        } else {
-            iterator = changeSet.forwardIterator();
-        }
     }
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
         while (iterator.hasNext()) {
+            if (!run.shouldContinue()) {
+                return this;
+            }
+
             Change change = iterator.next();
             if (type == Type.UNDO) {
                 change.undo(context);
@@ -93,6 +107,17 @@ public class ChangeSetExecutor implements Operation {
         return new ChangeSetExecutor(changeSet, Type.UNDO, context);
     }
 
+    /**
+     * Create a new undo operation for the given changes.
+     *
+     * @param changes the changes, newest first
+     * @param context an undo context
+     * @return an operation
+     */
+    public static ChangeSetExecutor createUndo(Iterator<Change> changes, UndoContext context) {
+        return new ChangeSetExecutor(changes, Type.UNDO, context);
+    }
+
     /**
      * Create a new redo operation.
      *
@@ -0,0 +1,320 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.BitSet;
+import java.util.List;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.transform.BlockTransformExtent;
+import com.sk89q.worldedit.extent.transform.BlockTransformHook;
+import com.sk89q.worldedit.function.entity.ExtentEntityCopy;
+import com.sk89q.worldedit.math.transform.CompiledTransform;
+import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+
+/**
+ * Pastes the contents of a clipboard into an extent through a right angle
+ * rotation or flip, one destination chunk at a time.
+ *
+ * <p>
+ * Unlike a {@link ForwardExtentCopy} over a {@link BlockTransformExtent},
+ * the blocks of the clipboard are not copied before they are pasted. The
+ * positions to paste are first recorded in a bit set, leaving out air when
+ * air is ignored, and then sorted by the chunk that they are pasted into.
+ * The pasted blocks are then written chunk by chunk, each one transformed
+ * through a table of the transformed state of every type and data value,
+ * so only blocks with NBT data are transformed individually.
+ * </p>
+ *
+ * <p>
+ * The blocks are written to the destination extent, so the changes are
+ * still recorded in the history of an edit session.
+ * </p>
+ */
+public class ClipboardPaste implements Operation {
+
+    private static final int DATA_VALUES = BaseBlock.MAX_DATA + 1;
+
+    private final Clipboard clipboard;
+    private final CompiledTransform transform;
+    private final BlockRegistry blockRegistry;
+    private final BlockTransformHook transformHook;
+    private final Extent destination;
+    private final Vector to;
+    private boolean ignoreAirBlocks;
+
+    private final ImmutableBlock[] remap = new ImmutableBlock[(BaseBlock.MAX_ID + 1) * DATA_VALUES];
+    private Region region;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int width;
+    private int length;
+    private int offsetX;
+    private int offsetY;
+    private int offsetZ;
+    private int[] order;
+    private int index = 0;
+    private int affected = 0;
+
+    /**
+     * Create a new paste.
+     *
+     * @param clipboard     the clipboard
+     * @param transform     the transform, which must be {@link #isSupported(Transform, Vector, Vector) supported}
+     * @param blockRegistry the block registry used for block direction data
+     * @param transformHook the hook to transform blocks with NBT data
+     * @param destination   the destination extent
+     * @param to            the destination position that the origin of the clipboard is pasted at
+     */
+    public ClipboardPaste(Clipboard clipboard, Transform transform, BlockRegistry blockRegistry,
+        BlockTransformHook transformHook, Extent destination, Vector to) {
+        checkNotNull(clipboard);
+        checkNotNull(transform);
+        checkNotNull(blockRegistry);
+        checkNotNull(transformHook);
+        checkNotNull(destination);
+        checkNotNull(to);
+        checkArgument(isSupported(transform, clipboard.getOrigin(), to), "transform is not a right angle transform");
+        this.clipboard = clipboard;
+        this.transform = (CompiledTransform) Transforms.compile(transform);
+        this.blockRegistry = blockRegistry;
+        this.transformHook = transformHook;
+        this.destination = destination;
+        this.to = to;
+    }
+
+    /**
+     * Return whether a paste with the given transform can be made by this
+     * operation.
+     *
+     * <p>
+     * This is the case for transforms that only rotate by right angles,
+     * flip and translate by whole blocks, with the origin of the clipboard
+     * and the destination position on block positions.
+     * </p>
+     *
+     * @param transform the transform
+     * @param origin    the origin of the clipboard
+     * @param to        the destination position
+     * @return true if supported
+     */
+    public static boolean isSupported(Transform transform, Vector origin, Vector to) {
+        Transform compiled = Transforms.compile(transform);
+        return compiled instanceof CompiledTransform && ((CompiledTransform) compiled).isIntegral()
+            && isBlockPoint(origin)
+            && isBlockPoint(to);
+    }
+
+    private static boolean isBlockPoint(Vector vector) {
+        return vector.getX() == vector.getBlockX() && vector.getY() == vector.getBlockY()
+            && vector.getZ() == vector.getBlockZ();
+    }
+
+    /**
+     * Return whether air blocks in the clipboard are skipped over.
+     *
+     * @return true if air blocks are skipped
+     */
+    public boolean isIgnoringAirBlocks() {
+        return ignoreAirBlocks;
+    }
+
+    /**
+     * Set whether air blocks in the clipboard are skipped over.
+     *
+     * @param ignoreAirBlocks true to skip air blocks
+     */
+    public void setIgnoringAirBlocks(boolean ignoreAirBlocks) {
+        this.ignoreAirBlocks = ignoreAirBlocks;
+    }
+
+    /**
+     * Get the number of affected blocks.
+     *
+     * @return the number of affected blocks
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        if (order == null) {
+            prepare();
+        }
+
+        for (; index < order.length; index++) {
+            if (!run.shouldContinue()) {
+                return this;
+            }
+
+            int position = order[index];
+            int x = position % width;
+            int z = position / width % length;
+            int y = position / width / length;
+            BaseBlock block = clipboard.getLazyBlock(new BlockVector(minX + x, minY + y, minZ + z));
+            x += offsetX;
+            y += offsetY;
+            z += offsetZ;
+            BlockVector target = new BlockVector(
+                transform.applyX(x, y, z) + to.getBlockX(),
+                transform.applyY(x, y, z) + to.getBlockY(),
+                transform.applyZ(x, y, z) + to.getBlockZ());
+            if (destination.setBlock(target, transformBlock(block))) {
+                affected++;
+            }
+        }
+
+        ExtentEntityCopy entityCopy = new ExtentEntityCopy(clipboard.getOrigin(), destination, to, transform);
+        List<? extends Entity> entities = clipboard.getEntities(region);
+        for (Entity entity : entities) {
+            entityCopy.apply(entity);
+        }
+
+        return null;
+    }
+
+    /**
+     * Record the positions of the clipboard to paste, sorted by the chunk
+     * that they are pasted into.
+     */
+    private void prepare() {
+        region = clipboard.getRegion();
+        Vector min = region.getMinimumPoint()
+            .toBlockPoint();
+        Vector max = region.getMaximumPoint()
+            .toBlockPoint();
+        Vector origin = clipboard.getOrigin();
+        minX = min.getBlockX();
+        minY = min.getBlockY();
+        minZ = min.getBlockZ();
+        width = max.getBlockX() - minX + 1;
+        length = max.getBlockZ() - minZ + 1;
+        int height = max.getBlockY() - minY + 1;
+        checkArgument((long) width * height * length <= Integer.MAX_VALUE, "clipboard is too large");
+        offsetX = minX - origin.getBlockX();
+        offsetY = minY - origin.getBlockY();
+        offsetZ = minZ - origin.getBlockZ();
+
+        // The positions to paste, without air if it is ignored
+        BitSet present = new BitSet(width * height * length);
+        for (BlockVector position : region) {
+            if (ignoreAirBlocks && clipboard.getLazyBlock(position)
+                .getType() == BlockID.AIR) {
+                continue;
+            }
+            present.set(
+                ((position.getBlockY() - minY) * length + position.getBlockZ() - minZ) * width + position.getBlockX()
+                    - minX);
+        }
+
+        // The destination chunks of the clipboard, from two opposite corners
+        int fromChunkX = getChunkX(0, 0, 0);
+        int fromChunkZ = getChunkZ(0, 0, 0);
+        int toChunkX = getChunkX(width - 1, height - 1, length - 1);
+        int toChunkZ = getChunkZ(width - 1, height - 1, length - 1);
+        int minChunkX = Math.min(fromChunkX, toChunkX);
+        int minChunkZ = Math.min(fromChunkZ, toChunkZ);
+        int chunksX = Math.abs(toChunkX - fromChunkX) + 1;
+        int chunksZ = Math.abs(toChunkZ - fromChunkZ) + 1;
+
+        // Count the positions of every chunk, then place them in chunk order
+        int[] starts = new int[chunksX * chunksZ + 1];
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            starts[getChunk(i, minChunkX, minChunkZ, chunksX) + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        order = new int[present.cardinality()];
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            order[starts[getChunk(i, minChunkX, minChunkZ, chunksX)]++] = i;
+        }
+    }
+
+    /**
+     * Get the index of the destination chunk of a position.
+     *
+     * @param position  the index of the position in the clipboard
+     * @param minChunkX the lowest chunk X coordinate
+     * @param minChunkZ the lowest chunk Z coordinate
+     * @param chunksX   the number of chunks along the X axis
+     * @return the index of the chunk
+     */
+    private int getChunk(int position, int minChunkX, int minChunkZ, int chunksX) {
+        int x = position % width;
+        int z = position / width % length;
+        int y = position / width / length;
+        return (getChunkZ(x, y, z) - minChunkZ) * chunksX + getChunkX(x, y, z) - minChunkX;
+    }
+
+    private int getChunkX(int x, int y, int z) {
+        return (transform.applyX(x + offsetX, y + offsetY, z + offsetZ) + to.getBlockX()) >> 4;
+    }
+
+    private int getChunkZ(int x, int y, int z) {
+        return (transform.applyZ(x + offsetX, y + offsetY, z + offsetZ) + to.getBlockZ()) >> 4;
+    }
+
+    /**
+     * Transform a block of the clipboard.
+     *
+     * @param block the block
+     * @return the transformed block
+     */
+    private BaseBlock transformBlock(BaseBlock block) {
+        int data = block.getData();
+        if (block.hasNbtData() || data < 0 || data > BaseBlock.MAX_DATA) {
+            BaseBlock copy = BlockTransformExtent.transform(new BaseBlock(block), transform, blockRegistry);
+            return transformHook.transformBlock(copy, transform);
+        }
+
+        int key = block.getType() * DATA_VALUES + data;
+        ImmutableBlock remapped = remap[key];
+        if (remapped == null) {
+            BaseBlock transformed = BlockTransformExtent
+                .transform(ImmutableBlock.of(block.getType(), data), transform, blockRegistry);
+            remapped = transformHook.transformBlock(transformed, transform)
+                .toImmutable();
+            remap[key] = remapped;
+        }
+        return remapped;
+    }
+
+    @Override
+    public void cancel() {}
+
+    @Override
+    public void addStatusMessages(List<String> messages) {}
+
+}
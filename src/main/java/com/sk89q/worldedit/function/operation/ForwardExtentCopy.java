@@ -36,6 +36,7 @@ import com.sk89q.worldedit.function.visitor.EntityVisitor;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
 import com.sk89q.worldedit.math.transform.Identity;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
 import com.sk89q.worldedit.regions.Region;
 
 /**
@@ -61,6 +62,7 @@ public class ForwardExtentCopy implements Operation {
     private Transform transform = new Identity();
     private Transform currentTransform = null;
     private RegionVisitor lastVisitor;
+    private List<? extends Entity> entities;
     private int affected;
 
     /**
@@ -224,7 +226,8 @@ public class ForwardExtentCopy implements Operation {
             repetitions--;
 
             if (currentTransform == null) {
-                currentTransform = transform;
+                // Fold the transform so that stacking it does not build up a chain
+                currentTransform = Transforms.compile(transform);
             }
 
             ExtentBlockCopy blockCopy = new ExtentBlockCopy(source, from, destination, to, currentTransform);
@@ -235,7 +238,10 @@ public class ForwardExtentCopy implements Operation {
 
             ExtentEntityCopy entityCopy = new ExtentEntityCopy(from, destination, to, currentTransform);
             entityCopy.setRemoving(removingEntities);
-            List<? extends Entity> entities = source.getEntities(region);
+            if (entities == null) {
+                // Every repetition copies the same entities of the source
+                entities = source.getEntities(region);
+            }
             EntityVisitor entityVisitor = new EntityVisitor(entities.iterator(), entityCopy);
 
             lastVisitor = blockVisitor;
@@ -0,0 +1,195 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.Blocks;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.entity.ExtentEntityCopy;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+/**
+ * Moves the blocks of a cuboid region by an offset within the same extent,
+ * filling the vacated blocks from a pattern.
+ *
+ * <p>
+ * The region is traversed in the order of a {@code memmove}: along every
+ * axis on which the offset is positive, the blocks are visited from the
+ * far end of the region, so that the destination of a block has always
+ * been read (and moved itself) before it is overwritten. No buffer of the
+ * region is therefore needed, and every block is read and written once.
+ * </p>
+ *
+ * <p>
+ * As each block is read before anything writes to its position, this also
+ * holds for extents that defer their changes until they are committed.
+ * Entities in the region are moved once all blocks have been moved.
+ * </p>
+ */
+public class InPlaceMove implements Operation {
+
+    private final Extent extent;
+    private final Vector min;
+    private final Vector offset;
+    private final Pattern replacement;
+    private final int width;
+    private final int height;
+    private final int length;
+    private final long total;
+    private Mask sourceMask = Masks.alwaysTrue();
+
+    private List<? extends Entity> entities;
+    private long index = 0;
+    private int affected = 0;
+
+    /**
+     * Create a new operation.
+     *
+     * @param extent      the extent
+     * @param region      the region to move
+     * @param offset      the offset to move the region by
+     * @param replacement the pattern to fill the vacated blocks with
+     */
+    public InPlaceMove(Extent extent, CuboidRegion region, Vector offset, Pattern replacement) {
+        checkNotNull(extent);
+        checkNotNull(region);
+        checkNotNull(offset);
+        checkNotNull(replacement);
+        this.extent = extent;
+        this.min = region.getMinimumPoint()
+            .toBlockPoint();
+        this.offset = offset.toBlockPoint();
+        this.replacement = replacement;
+        this.width = region.getWidth();
+        this.height = region.getHeight();
+        this.length = region.getLength();
+        this.total = (long) width * height * length;
+        this.entities = extent.getEntities(region);
+    }
+
+    /**
+     * Get the mask that gets applied to the source blocks.
+     *
+     * @return a source mask
+     */
+    public Mask getSourceMask() {
+        return sourceMask;
+    }
+
+    /**
+     * Set a mask that gets applied to the source blocks.
+     *
+     * <p>
+     * Blocks that do not pass the mask are neither moved nor replaced.
+     * </p>
+     *
+     * @param sourceMask a source mask
+     */
+    public void setSourceMask(Mask sourceMask) {
+        checkNotNull(sourceMask);
+        this.sourceMask = sourceMask;
+    }
+
+    /**
+     * Get the number of affected blocks.
+     *
+     * @return the number of affected blocks
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        for (; index < total; index++) {
+            if (!run.shouldContinue()) {
+                return this;
+            }
+
+            BlockVector position = getPosition(index);
+            boolean changed = false;
+            if (sourceMask.test(position)) {
+                BaseBlock block = Blocks.snapshot(extent.getLazyBlock(position));
+                changed = extent.setBlock(position.add(offset), block);
+                if (extent.setBlock(position, replacement.apply(position))) {
+                    changed = true;
+                }
+            }
+            if (changed) {
+                affected++;
+            }
+        }
+
+        if (entities != null) {
+            ExtentEntityCopy entityCopy = new ExtentEntityCopy(
+                min,
+                extent,
+                min,
+                new AffineTransform().translate(offset));
+            entityCopy.setRemoving(true);
+            for (Entity entity : entities) {
+                entityCopy.apply(entity);
+            }
+            entities = null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the position of the block that is visited at the given step of
+     * the traversal.
+     *
+     * @param index the step
+     * @return the position
+     */
+    private BlockVector getPosition(long index) {
+        int x = (int) (index % width);
+        int z = (int) (index / width % length);
+        int y = (int) (index / width / length);
+        if (offset.getBlockX() > 0) {
+            x = width - 1 - x;
+        }
+        if (offset.getBlockY() > 0) {
+            y = height - 1 - y;
+        }
+        if (offset.getBlockZ() > 0) {
+            z = length - 1 - z;
+        }
+        return new BlockVector(min.getBlockX() + x, min.getBlockY() + y, min.getBlockZ() + z);
+    }
+
+    @Override
+    public void cancel() {}
+
+    @Override
+    public void addStatusMessages(List<String> messages) {}
+
+}
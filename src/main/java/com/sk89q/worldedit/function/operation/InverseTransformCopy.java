@@ -0,0 +1,385 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.entity.ExtentEntityCopy;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Copies the blocks of a region to another extent through a transform by
+ * mapping every block of the destination back into the source.
+ *
+ * <p>
+ * A {@link ForwardExtentCopy} maps each source block to a destination
+ * block, which leaves holes and writes some blocks twice when the transform
+ * is not a right angle rotation or flip. This operation instead visits the
+ * bounding box of the transformed region, looks up the source block of each
+ * destination block through the inverse transform, and writes every
+ * destination block at most once.
+ * </p>
+ *
+ * <p>
+ * The destination is resolved a batch of horizontal slabs at a time, and
+ * when enabled with {@link #setParallel(boolean)}, the slabs of a batch are
+ * resolved concurrently. The source extent and source mask must then be
+ * safe to read from several threads, as is the case for clipboards. The
+ * blocks are always written to the destination from the calling thread.
+ * </p>
+ */
+public class InverseTransformCopy implements Operation {
+
+    private static final double EPSILON = 1e-9;
+    private static final int SLAB_BATCH = 16;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final Extent source;
+    private final Extent destination;
+    private final Region region;
+    private final Vector from;
+    private final Vector to;
+    private final Transform transform;
+    private Mask sourceMask = Masks.alwaysTrue();
+    private boolean parallel;
+
+    @Nullable
+    private Transform inverse;
+    @Nullable
+    private double[] inverseCoefficients;
+    private int sourceMinX;
+    private int sourceMinY;
+    private int sourceMinZ;
+    private int sourceWidth;
+    private int sourceHeight;
+    private int sourceLength;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int width;
+    private int height;
+    private int length;
+
+    private int[] batch;
+    private int batchSlab = 0;
+    private int batchSize = 0;
+    private int cursor = 0;
+    private int nextSlab = 0;
+    private int affected = 0;
+
+    /**
+     * Create a new copy.
+     *
+     * @param source      the source extent
+     * @param region      the region to copy
+     * @param from        the source position that the transform is applied around
+     * @param destination the destination extent
+     * @param to          the destination position that the source position is moved to
+     * @param transform   the transform, which must be invertible
+     */
+    public InverseTransformCopy(Extent source, Region region, Vector from, Extent destination, Vector to,
+        Transform transform) {
+        checkNotNull(source);
+        checkNotNull(region);
+        checkNotNull(from);
+        checkNotNull(destination);
+        checkNotNull(to);
+        checkNotNull(transform);
+        Vector size = region.getMaximumPoint()
+            .subtract(region.getMinimumPoint())
+            .add(1, 1, 1);
+        checkArgument(size.getX() * size.getY() * size.getZ() <= Integer.MAX_VALUE, "region is too large");
+        this.source = source;
+        this.region = region;
+        this.from = from;
+        this.destination = destination;
+        this.to = to;
+        this.transform = transform;
+    }
+
+    /**
+     * Return whether a transform maps blocks to positions that are not on
+     * the block grid, so that a {@link ForwardExtentCopy} would leave holes.
+     *
+     * <p>
+     * This is the case for a chain of {@link AffineTransform}s that rotates
+     * by an angle that is not a right angle, or scales by a factor that is
+     * not a whole number. Other transforms are assumed to be on the grid.
+     * </p>
+     *
+     * @param transform the transform
+     * @return true if the transform needs resampling
+     */
+    public static boolean isResampled(Transform transform) {
+        Transform compiled = Transforms.compile(transform);
+        if (!(compiled instanceof AffineTransform)) {
+            return false;
+        }
+        double[] coefficients = ((AffineTransform) compiled).coefficients();
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                double coefficient = coefficients[row * 4 + column];
+                if (Math.abs(coefficient - Math.rint(coefficient)) > EPSILON) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the mask that gets applied to the source extent.
+     *
+     * @return a source mask
+     */
+    public Mask getSourceMask() {
+        return sourceMask;
+    }
+
+    /**
+     * Set a mask that gets applied to the source extent.
+     *
+     * <p>
+     * Source blocks that do not pass the mask are treated as if they were
+     * outside the region, so the destination block is left unchanged.
+     * </p>
+     *
+     * @param sourceMask a source mask
+     */
+    public void setSourceMask(Mask sourceMask) {
+        checkNotNull(sourceMask);
+        this.sourceMask = sourceMask;
+    }
+
+    /**
+     * Return whether the slabs of the destination are resolved in parallel.
+     *
+     * @return true if parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Set whether the slabs of the destination are resolved in parallel.
+     *
+     * <p>
+     * The source extent and the source mask must be safe to read from
+     * several threads at once.
+     * </p>
+     *
+     * @param parallel true to resolve in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Get the number of affected blocks.
+     *
+     * @return the number of affected blocks
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        if (inverse == null) {
+            prepare();
+        }
+
+        while (true) {
+            if (cursor == batchSize) {
+                if (nextSlab >= height) {
+                    break;
+                }
+                resolveBatch();
+            }
+
+            int area = width * length;
+            for (; cursor < batchSize; cursor++) {
+                int index = batch[cursor];
+                if (index < 0) {
+                    continue;
+                }
+                if (!run.shouldContinue()) {
+                    return this;
+                }
+
+                int x = index % sourceWidth;
+                int z = index / sourceWidth % sourceLength;
+                int y = index / sourceWidth / sourceLength;
+                BaseBlock block = source.getBlock(new BlockVector(sourceMinX + x, sourceMinY + y, sourceMinZ + z));
+                BlockVector position = new BlockVector(
+                    minX + cursor % width,
+                    minY + batchSlab + cursor / area,
+                    minZ + cursor / width % length);
+                if (destination.setBlock(position, block)) {
+                    affected++;
+                }
+            }
+        }
+
+        ExtentEntityCopy entityCopy = new ExtentEntityCopy(from, destination, to, transform);
+        List<? extends Entity> entities = source.getEntities(region);
+        for (Entity entity : entities) {
+            entityCopy.apply(entity);
+        }
+
+        return null;
+    }
+
+    /**
+     * Compute the inverse transform and the bounding box of the destination.
+     */
+    private void prepare() {
+        inverse = Transforms.compile(transform)
+            .inverse();
+        if (inverse instanceof AffineTransform) {
+            inverseCoefficients = ((AffineTransform) inverse).coefficients();
+        }
+
+        Vector minimum = region.getMinimumPoint()
+            .toBlockPoint();
+        Vector maximum = region.getMaximumPoint()
+            .toBlockPoint();
+        sourceMinX = minimum.getBlockX();
+        sourceMinY = minimum.getBlockY();
+        sourceMinZ = minimum.getBlockZ();
+        sourceWidth = maximum.getBlockX() - sourceMinX + 1;
+        sourceHeight = maximum.getBlockY() - sourceMinY + 1;
+        sourceLength = maximum.getBlockZ() - sourceMinZ + 1;
+
+        Vector newMinimum = null;
+        Vector newMaximum = null;
+        for (int corner = 0; corner < 8; corner++) {
+            Vector point = new Vector(
+                (corner & 1) == 0 ? minimum.getX() : maximum.getX(),
+                (corner & 2) == 0 ? minimum.getY() : maximum.getY(),
+                (corner & 4) == 0 ? minimum.getZ() : maximum.getZ());
+            Vector transformed = transform.apply(point.subtract(from))
+                .add(to);
+            newMinimum = newMinimum == null ? transformed : Vector.getMinimum(newMinimum, transformed);
+            newMaximum = newMaximum == null ? transformed : Vector.getMaximum(newMaximum, transformed);
+        }
+
+        minX = (int) Math.floor(newMinimum.getX());
+        minY = (int) Math.floor(newMinimum.getY());
+        minZ = (int) Math.floor(newMinimum.getZ());
+        width = (int) Math.ceil(newMaximum.getX()) - minX + 1;
+        height = (int) Math.ceil(newMaximum.getY()) - minY + 1;
+        length = (int) Math.ceil(newMaximum.getZ()) - minZ + 1;
+        checkArgument((long) width * length * SLAB_BATCH <= Integer.MAX_VALUE, "transformed region is too large");
+    }
+
+    /**
+     * Resolve the source blocks of the next batch of slabs of the
+     * destination.
+     */
+    private void resolveBatch() {
+        int slabs = Math.min(SLAB_BATCH, height - nextSlab);
+        int area = width * length;
+        if (batch == null) {
+            batch = new int[Math.min(SLAB_BATCH, height) * area];
+        }
+
+        int first = nextSlab;
+        IntStream range = IntStream.range(0, slabs);
+        if (parallel && slabs * area >= PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(slab -> {
+            int offset = slab * area;
+            int y = minY + first + slab;
+            for (int z = 0; z < length; z++) {
+                for (int x = 0; x < width; x++) {
+                    batch[offset + z * width + x] = sample(minX + x, y, minZ + z);
+                }
+            }
+        });
+
+        batchSlab = first;
+        batchSize = slabs * area;
+        cursor = 0;
+        nextSlab += slabs;
+    }
+
+    /**
+     * Find the source block at a point of the destination.
+     *
+     * @param x the X coordinate of the point
+     * @param y the Y coordinate of the point
+     * @param z the Z coordinate of the point
+     * @return the index of the source block, or -1 if there is none
+     */
+    private int sample(double x, double y, double z) {
+        double dx = x - to.getX();
+        double dy = y - to.getY();
+        double dz = z - to.getZ();
+        double sx, sy, sz;
+        if (inverseCoefficients != null) {
+            double[] m = inverseCoefficients;
+            sx = dx * m[0] + dy * m[1] + dz * m[2] + m[3];
+            sy = dx * m[4] + dy * m[5] + dz * m[6] + m[7];
+            sz = dx * m[8] + dy * m[9] + dz * m[10] + m[11];
+        } else {
+            Vector mapped = inverse.apply(new Vector(dx, dy, dz));
+            sx = mapped.getX();
+            sy = mapped.getY();
+            sz = mapped.getZ();
+        }
+
+        int bx = (int) Math.round(sx + from.getX()) - sourceMinX;
+        int by = (int) Math.round(sy + from.getY()) - sourceMinY;
+        int bz = (int) Math.round(sz + from.getZ()) - sourceMinZ;
+        if (bx < 0 || by < 0 || bz < 0 || bx >= sourceWidth || by >= sourceHeight || bz >= sourceLength) {
+            return -1;
+        }
+
+        BlockVector position = new BlockVector(sourceMinX + bx, sourceMinY + by, sourceMinZ + bz);
+        if (!region.contains(position) || !sourceMask.test(position)) {
+            return -1;
+        }
+        return (by * sourceLength + bz) * sourceWidth + bx;
+    }
+
+    @Override
+    public void cancel() {}
+
+    @Override
+    public void addStatusMessages(List<String> messages) {}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A run context that lets operations continue for a limited number of
+ * steps, such as a number of blocks per server tick.
+ *
+ * <p>
+ * Every call to {@link #shouldContinue()} that returns true uses up one
+ * step, so operations that honour the context should call it once before
+ * each block that they change.
+ * </p>
+ */
+public class LimitedRunContext extends RunContext {
+
+    private int remaining;
+
+    /**
+     * Create a new run context.
+     *
+     * @param limit the number of steps that may be taken
+     */
+    public LimitedRunContext(int limit) {
+        checkArgument(limit >= 0, "limit >= 0 required");
+        this.remaining = limit;
+    }
+
+    @Override
+    public boolean shouldContinue() {
+        if (remaining > 0) {
+            remaining--;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Get the number of steps that have not been used.
+     *
+     * @return the number of remaining steps
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.Blocks;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.function.entity.ExtentEntityCopy;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Stacks copies of a region next to each other, each one a fixed offset
+ * further away than the previous one.
+ *
+ * <p>
+ * Unlike a {@link ForwardExtentCopy} with repetitions, the source is read
+ * only once: the blocks that pass the source mask are snapshotted into
+ * primitive arrays of positions and packed type and data values, and every
+ * copy is then written from those arrays with shared immutable blocks.
+ * Only blocks with NBT data are kept as objects. The entities of the region
+ * are likewise looked up once and copied along with each copy.
+ * </p>
+ *
+ * <p>
+ * The copies must not overlap the source region, which holds for offsets
+ * that are at least as large as the region along one axis.
+ * </p>
+ */
+public class StackOperation implements Operation {
+
+    /**
+     * The largest bounding box volume of a region that can be snapshotted.
+     */
+    public static final long MAX_VOLUME = 1 << 24;
+
+    private final Extent source;
+    private final Extent destination;
+    private final Region region;
+    private final Vector offset;
+    private final int count;
+    private Mask sourceMask = Masks.alwaysTrue();
+
+    private int[] positions;
+    private int[] states;
+    private Map<Integer, BaseBlock> nbtBlocks;
+    private int size;
+    private List<? extends Entity> entities;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int width;
+    private int length;
+
+    private int copy = 1;
+    private int index = 0;
+    private int affected = 0;
+
+    /**
+     * Create a new operation.
+     *
+     * @param source      the source extent
+     * @param region      the region to stack
+     * @param destination the destination extent
+     * @param offset      the offset of each copy from the previous one
+     * @param count       the number of copies
+     */
+    public StackOperation(Extent source, Region region, Extent destination, Vector offset, int count) {
+        checkNotNull(source);
+        checkNotNull(region);
+        checkNotNull(destination);
+        checkNotNull(offset);
+        checkArgument(count >= 0, "count >= 0 required");
+        checkArgument(isSupported(region), "region is too large to snapshot");
+        this.source = source;
+        this.region = region;
+        this.destination = destination;
+        this.offset = offset.toBlockPoint();
+        this.count = count;
+    }
+
+    /**
+     * Return whether the given region is small enough to be stacked by this
+     * operation.
+     *
+     * @param region the region
+     * @return true if supported
+     */
+    public static boolean isSupported(Region region) {
+        return (long) region.getWidth() * region.getHeight() * region.getLength() <= MAX_VOLUME;
+    }
+
+    /**
+     * Get the mask that gets applied to the source extent.
+     *
+     * @return a source mask
+     */
+    public Mask getSourceMask() {
+        return sourceMask;
+    }
+
+    /**
+     * Set a mask that gets applied to the source extent.
+     *
+     * <p>
+     * The mask is only tested once for each block of the source.
+     * </p>
+     *
+     * @param sourceMask a source mask
+     */
+    public void setSourceMask(Mask sourceMask) {
+        checkNotNull(sourceMask);
+        this.sourceMask = sourceMask;
+    }
+
+    /**
+     * Get the number of affected blocks.
+     *
+     * @return the number of affected blocks
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        if (positions == null) {
+            snapshot();
+        }
+
+        while (copy <= count) {
+            int dx = offset.getBlockX() * copy + minX;
+            int dy = offset.getBlockY() * copy + minY;
+            int dz = offset.getBlockZ() * copy + minZ;
+
+            for (; index < size; index++) {
+                if (!run.shouldContinue()) {
+                    return this;
+                }
+
+                int position = positions[index];
+                int x = position % width;
+                int z = position / width % length;
+                int y = position / width / length;
+                int state = states[index];
+                BaseBlock block = state < 0 ? nbtBlocks.get(index) : ImmutableBlock.of(state >> 4, state & 15);
+                if (destination.setBlock(new BlockVector(dx + x, dy + y, dz + z), block)) {
+                    affected++;
+                }
+            }
+
+            ExtentEntityCopy entityCopy = new ExtentEntityCopy(
+                region.getMinimumPoint(),
+                destination,
+                region.getMinimumPoint(),
+                new AffineTransform().translate(offset.multiply(copy)));
+            for (Entity entity : entities) {
+                entityCopy.apply(entity);
+            }
+
+            index = 0;
+            copy++;
+        }
+
+        return null;
+    }
+
+    /**
+     * Read the blocks of the source that pass the source mask.
+     */
+    private void snapshot() {
+        Vector min = region.getMinimumPoint();
+        minX = min.getBlockX();
+        minY = min.getBlockY();
+        minZ = min.getBlockZ();
+        width = region.getWidth();
+        length = region.getLength();
+
+        int capacity = (int) Math.min(region.getArea(), MAX_VOLUME);
+        positions = new int[capacity];
+        states = new int[capacity];
+        nbtBlocks = new HashMap<Integer, BaseBlock>();
+        size = 0;
+
+        for (BlockVector pt : region) {
+            if (!sourceMask.test(pt)) {
+                continue;
+            }
+
+            BaseBlock block = source.getLazyBlock(pt);
+            if (size == positions.length) {
+                grow();
+            }
+            positions[size] = ((pt.getBlockY() - minY) * length + pt.getBlockZ() - minZ) * width + pt.getBlockX()
+                - minX;
+            if (block.hasNbtData()) {
+                states[size] = -1;
+                nbtBlocks.put(size, Blocks.snapshot(block));
+            } else {
+                states[size] = block.getType() << 4 | block.getData() & 15;
+            }
+            size++;
+        }
+
+        entities = source.getEntities(region);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, positions.length * 2);
+        positions = Arrays.copyOf(positions, capacity);
+        states = Arrays.copyOf(states, capacity);
+    }
+
+    @Override
+    public void cancel() {}
+
+    @Override
+    public void addStatusMessages(List<String> messages) {}
+
+}
@@ -16,23 +16,34 @@
 
 package com.sk89q.worldedit.function.pattern;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import javax.annotation.Nullable;
+
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.blocks.BaseBlock;
 
 /**
  * Uses a random pattern of a weighted list of patterns.
+ *
+ * <p>
+ * The weights are compiled into an alias table (Vose's alias method) on
+ * first use, so picking a pattern takes constant time regardless of the
+ * number of patterns in the list.
+ * </p>
  */
 public class RandomPattern extends AbstractPattern {
 
     private final Random random = new Random();
     private List<Chance> patterns = new ArrayList<Chance>();
     private double max = 0;
+    @Nullable
+    private AliasTable table;
 
     /**
      * Add a pattern to the weight list of patterns.
@@ -47,24 +58,25 @@ public class RandomPattern extends AbstractPattern {
      */
     public void add(Pattern pattern, double chance) {
         checkNotNull(pattern);
+        checkArgument(chance >= 0, "chance >= 0 required");
         patterns.add(new Chance(pattern, chance));
         max += chance;
+        table = null;
     }
 
     @Override
     public BaseBlock apply(Vector position) {
-        double r = random.nextDouble();
-        double offset = 0;
-
-        for (Chance chance : patterns) {
-            if (r <= (offset + chance.getChance()) / max) {
-                return chance.getPattern()
-                    .apply(position);
+        AliasTable table = this.table;
+        if (table == null) {
+            if (patterns.isEmpty() || max <= 0) {
+                throw new RuntimeException("ProportionalFillPattern");
             }
-            offset += chance.getChance();
+            this.table = table = new AliasTable(patterns, max);
         }
 
-        throw new RuntimeException("ProportionalFillPattern");
+        int column = random.nextInt(table.probability.length);
+        int index = random.nextDouble() < table.probability[column] ? column : table.alias[column];
+        return table.patterns[index].apply(position);
     }
 
     private static class Chance {
@@ -86,4 +98,59 @@ public class RandomPattern extends AbstractPattern {
         }
     }
 
+    /**
+     * A compiled alias table over the list of chances.
+     */
+    private static class AliasTable {
+
+        private final Pattern[] patterns;
+        private final double[] probability;
+        private final int[] alias;
+
+        private AliasTable(List<Chance> chances, double max) {
+            int n = chances.size();
+            patterns = new Pattern[n];
+            probability = new double[n];
+            alias = new int[n];
+
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+
+            for (int i = 0; i < n; i++) {
+                Chance chance = chances.get(i);
+                patterns[i] = chance.getPattern();
+                scaled[i] = chance.getChance() * n / max;
+                if (scaled[i] < 1) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1;
+                if (scaled[more] < 1) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+
+            // Whatever remains is (up to rounding error) exactly 1
+            while (largeCount > 0) {
+                probability[large[--largeCount]] = 1;
+            }
+            while (smallCount > 0) {
+                probability[small[--smallCount]] = 1;
+            }
+        }
+    }
+
 }
@@ -18,13 +18,10 @@ package com.sk89q.worldedit.function.visitor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
+import java.util.stream.IntStream;
 
 import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.Vector;
@@ -32,6 +29,8 @@ import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.function.RegionFunction;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.util.collection.LongArrayQueue;
+import com.sk89q.worldedit.util.collection.LongHashSet;
 
 /**
  * Performs a breadth-first search starting from points added with
@@ -45,13 +44,27 @@ import com.sk89q.worldedit.function.operation.RunContext;
  * functionality that starts at certain points and extends outward from
  * those points.
  * </p>
+ *
+ * <p>
+ * Positions are kept packed into {@code long}s in primitive collections,
+ * so the search costs about 16 bytes per visited block rather than the
+ * hundred or so bytes of a {@code HashSet<BlockVector>} entry. Positions
+ * outside of the packable range (X and Z beyond 2<sup>25</sup>, Y beyond
+ * 2<sup>11</sup>) are never visited.
+ * </p>
  */
 public abstract class BreadthFirstSearch implements Operation {
 
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final int XZ_LIMIT = 1 << (XZ_BITS - 1);
+    private static final int Y_LIMIT = 1 << (Y_BITS - 1);
+
     private final RegionFunction function;
-    private final Queue<BlockVector> queue = new ArrayDeque<BlockVector>();
-    private final Set<BlockVector> visited = new HashSet<BlockVector>();
+    private final LongArrayQueue queue = new LongArrayQueue();
+    private final LongHashSet visited = new LongHashSet();
     private final List<Vector> directions = new ArrayList<Vector>();
+    private boolean parallel = false;
     private int affected = 0;
 
     /**
@@ -85,6 +98,24 @@ public abstract class BreadthFirstSearch implements Operation {
         return directions;
     }
 
+    /**
+     * Set whether {@link #isVisitable(Vector, Vector)} may be evaluated for a
+     * whole layer of the search in parallel.
+     *
+     * <p>
+     * This may only be enabled for read-only searches: neither the function
+     * nor {@link #isVisitable(Vector, Vector)} may change the extent being
+     * searched, and the latter must be safe to call from multiple threads.
+     * Blocks are still passed to the function one at a time, in the same
+     * breadth-first order.
+     * </p>
+     *
+     * @param parallel true to test positions in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     /**
      * Add the directions along the axes as directions to visit.
      */
@@ -124,25 +155,13 @@ public abstract class BreadthFirstSearch implements Operation {
      * @param position the position
      */
     public void visit(Vector position) {
-        BlockVector blockVector = position.toBlockVector();
-        if (!visited.contains(blockVector)) {
-            queue.add(blockVector);
-            visited.add(blockVector);
-        }
-    }
-
-    /**
-     * Try to visit the given 'to' location.
-     *
-     * @param from the origin block
-     * @param to   the block under question
-     */
-    private void visit(Vector from, Vector to) {
-        BlockVector blockVector = to.toBlockVector();
-        if (!visited.contains(blockVector)) {
-            visited.add(blockVector);
-            if (isVisitable(from, to)) {
-                queue.add(blockVector);
+        int x = position.getBlockX();
+        int y = position.getBlockY();
+        int z = position.getBlockZ();
+        if (isPackable(x, y, z)) {
+            long packed = pack(x, y, z);
+            if (visited.add(packed)) {
+                queue.add(packed);
             }
         }
     }
@@ -168,27 +187,135 @@ public abstract class BreadthFirstSearch implements Operation {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        Vector position;
+        int[] offsets = getOffsets();
+
+        if (parallel) {
+            resumeLayered(offsets);
+            return null;
+        }
 
-        while ((position = queue.poll()) != null) {
+        while (!queue.isEmpty()) {
+            BlockVector position = unpack(queue.remove());
             if (function.apply(position)) {
                 affected++;
             }
 
-            for (Vector dir : directions) {
-                visit(position, position.add(dir));
+            int x = position.getBlockX();
+            int y = position.getBlockY();
+            int z = position.getBlockZ();
+            for (int i = 0; i < offsets.length; i += 3) {
+                int toX = x + offsets[i];
+                int toY = y + offsets[i + 1];
+                int toZ = z + offsets[i + 2];
+                if (isPackable(toX, toY, toZ)) {
+                    long packed = pack(toX, toY, toZ);
+                    if (visited.add(packed) && isVisitable(position, new BlockVector(toX, toY, toZ))) {
+                        queue.add(packed);
+                    }
+                }
             }
         }
 
         return null;
     }
 
+    /**
+     * Run the search one layer at a time, testing all candidates of a
+     * layer in parallel.
+     *
+     * @param offsets the direction offsets
+     * @throws WorldEditException thrown by the function
+     */
+    private void resumeLayered(int[] offsets) throws WorldEditException {
+        long[] layer = queue.drain();
+
+        while (layer.length != 0) {
+            int directionCount = offsets.length / 3;
+            long[] candidates = new long[layer.length * directionCount];
+            final int[] origins = new int[candidates.length];
+            int count = 0;
+
+            for (int i = 0; i < layer.length; i++) {
+                BlockVector position = unpack(layer[i]);
+                if (function.apply(position)) {
+                    affected++;
+                }
+
+                int x = position.getBlockX();
+                int y = position.getBlockY();
+                int z = position.getBlockZ();
+                for (int j = 0; j < offsets.length; j += 3) {
+                    int toX = x + offsets[j];
+                    int toY = y + offsets[j + 1];
+                    int toZ = z + offsets[j + 2];
+                    if (isPackable(toX, toY, toZ)) {
+                        long packed = pack(toX, toY, toZ);
+                        if (visited.add(packed)) {
+                            candidates[count] = packed;
+                            origins[count] = i;
+                            count++;
+                        }
+                    }
+                }
+            }
+
+            final long[] from = layer;
+            final long[] to = candidates;
+            final boolean[] accepted = new boolean[count];
+            IntStream.range(0, count)
+                .parallel()
+                .forEach(i -> accepted[i] = isVisitable(unpack(from[origins[i]]), unpack(to[i])));
+
+            for (int i = 0; i < count; i++) {
+                if (accepted[i]) {
+                    queue.add(candidates[i]);
+                }
+            }
+
+            layer = queue.drain();
+        }
+    }
+
+    /**
+     * Get the directions to visit as a flat array of X, Y, Z offsets.
+     *
+     * @return the offsets
+     */
+    private int[] getOffsets() {
+        int[] offsets = new int[directions.size() * 3];
+        int i = 0;
+        for (Vector direction : directions) {
+            offsets[i++] = direction.getBlockX();
+            offsets[i++] = direction.getBlockY();
+            offsets[i++] = direction.getBlockZ();
+        }
+        return offsets;
+    }
+
+    private static boolean isPackable(int x, int y, int z) {
+        return x >= -XZ_LIMIT && x < XZ_LIMIT && z >= -XZ_LIMIT && z < XZ_LIMIT && y >= -Y_LIMIT && y < Y_LIMIT;
+    }
+
+    private static long pack(int x, int y, int z) {
+        long mask = (1L << XZ_BITS) - 1;
+        return (x & mask) << (XZ_BITS + Y_BITS) | (z & mask) << Y_BITS | (y & ((1L << Y_BITS) - 1));
+    }
+
+    private static BlockVector unpack(long packed) {
+        int x = (int) (packed >> (XZ_BITS + Y_BITS));
+        int z = (int) (packed << XZ_BITS >> (XZ_BITS + Y_BITS));
+        int y = (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+        return new BlockVector(x, y, z);
+    }
+
     @Override
     public void cancel() {}
 
     @Override
     public void addStatusMessages(List<String> messages) {
         messages.add(getAffected() + " blocks affected");
+        long memory = visited.getMemoryUsage() + queue.getMemoryUsage();
+        messages.add(visited.size() + " blocks searched using " + (memory >> 10) + " KB");
     }
 
 }
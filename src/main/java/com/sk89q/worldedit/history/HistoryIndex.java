@@ -0,0 +1,286 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.history;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.NoCapablePlatformException;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.World;
+
+/**
+ * An index of the recent edits of all sessions by the chunks they changed.
+ *
+ * <p>
+ * Every world has a map of spatial buckets, one per chunk, which hold the
+ * {@link HistoryRecord}s of the edits that changed a block in the chunk.
+ * Records are added by the {@link com.sk89q.worldedit.extent.ChangeSetExtent}
+ * of the edit session as it makes changes, and they keep the change set of
+ * their edit alive, so edits can be found and rolled back by area even
+ * after the session that made them is gone.
+ * </p>
+ *
+ * <p>
+ * The index is disabled unless {@link LocalConfiguration#historyIndexRetention}
+ * is positive. Records are evicted once they are older than that many
+ * minutes, when there are more than
+ * {@link LocalConfiguration#historyIndexLimit} of them, or when their
+ * change sets together hold more than
+ * {@link LocalConfiguration#historyIndexMaxChanges} changes. A record is
+ * also released when its edit leaves the undo history of its session, such
+ * as with {@code //clearhistory}.
+ * </p>
+ */
+public class HistoryIndex {
+
+    private static final Comparator<HistoryRecord> NEWEST_FIRST = new Comparator<HistoryRecord>() {
+
+        @Override
+        public int compare(HistoryRecord o1, HistoryRecord o2) {
+            return Long.compare(o2.getId(), o1.getId());
+        }
+    };
+
+    private final WorldEdit worldEdit;
+    private final Map<String, Map<Long, List<HistoryRecord>>> worlds = new HashMap<>();
+    private final ArrayDeque<HistoryRecord> records = new ArrayDeque<HistoryRecord>();
+    private long nextId = 1;
+
+    /**
+     * Create a new index.
+     *
+     * @param worldEdit the WorldEdit instance
+     */
+    public HistoryIndex(WorldEdit worldEdit) {
+        checkNotNull(worldEdit);
+        this.worldEdit = worldEdit;
+    }
+
+    /**
+     * Create a record for an edit.
+     *
+     * <p>
+     * The record is added to the index once the edit changes its first
+     * block.
+     * </p>
+     *
+     * @param world     the edited world
+     * @param actor     the actor that makes the edit, or null if unknown
+     * @param changeSet the change set of the edit
+     * @return the record, or null if the index is disabled
+     */
+    @Nullable
+    public HistoryRecord createRecord(World world, @Nullable Actor actor, ChangeSet changeSet) {
+        checkNotNull(world);
+        checkNotNull(changeSet);
+
+        try {
+            if (worldEdit.getConfiguration().historyIndexRetention <= 0) {
+                return null;
+            }
+        } catch (NoCapablePlatformException e) {
+            // Edits made without a platform, such as in benchmarks
+            return null;
+        }
+
+        return new HistoryRecord(
+            this,
+            world.getName(),
+            actor != null ? actor.getName() : null,
+            System.currentTimeMillis(),
+            changeSet);
+    }
+
+    /**
+     * Add a chunk to the buckets of the given record, adding the record to
+     * the index first if this is its first chunk.
+     *
+     * @param record the record
+     * @param chunk  the chunk key
+     */
+    synchronized void addChunk(HistoryRecord record, long chunk) {
+        if (record.isEvicted()) {
+            return;
+        }
+
+        if (record.getId() == 0) {
+            record.setId(nextId++);
+            records.addLast(record);
+            expire();
+            if (record.isEvicted()) {
+                return;
+            }
+        }
+
+        if (record.getChunks()
+            .add(chunk)) {
+            Map<Long, List<HistoryRecord>> buckets = worlds.get(record.getWorldName());
+            if (buckets == null) {
+                buckets = new HashMap<Long, List<HistoryRecord>>();
+                worlds.put(record.getWorldName(), buckets);
+            }
+            List<HistoryRecord> bucket = buckets.get(chunk);
+            if (bucket == null) {
+                bucket = new ArrayList<HistoryRecord>(2);
+                buckets.put(chunk, bucket);
+            }
+            bucket.add(record);
+        }
+    }
+
+    /**
+     * Remove a record from the index so that its change set can be freed.
+     *
+     * @param record the record
+     */
+    synchronized void release(HistoryRecord record) {
+        if (!record.isEvicted() && record.getId() != 0) {
+            records.remove(record);
+            evict(record);
+        }
+        record.setEvicted();
+    }
+
+    /**
+     * Find the edits that changed blocks in the chunks of a region.
+     *
+     * <p>
+     * As the index only knows the chunks of an edit, an edit that is
+     * returned may not have changed a block within the region itself.
+     * </p>
+     *
+     * @param world     the world
+     * @param region    the region
+     * @param since     the earliest time of the edits, in milliseconds since
+     *                  the epoch
+     * @param actorName the name of the actor that made the edits, or null
+     *                  for edits by anyone
+     * @return the records, newest first
+     */
+    public synchronized List<HistoryRecord> query(World world, Region region, long since,
+        @Nullable String actorName) {
+        checkNotNull(world);
+        checkNotNull(region);
+        expire();
+
+        Map<Long, List<HistoryRecord>> buckets = worlds.get(world.getName());
+        if (buckets == null) {
+            return Collections.emptyList();
+        }
+
+        Set<HistoryRecord> found = new LinkedHashSet<HistoryRecord>();
+        for (Vector2D chunk : region.getChunks()) {
+            List<HistoryRecord> bucket = buckets.get(getChunkKey(chunk.getBlockX(), chunk.getBlockZ()));
+            if (bucket != null) {
+                for (HistoryRecord record : bucket) {
+                    if (record.getTime() >= since
+                        && (actorName == null || actorName.equalsIgnoreCase(record.getActorName()))) {
+                        found.add(record);
+                    }
+                }
+            }
+        }
+
+        List<HistoryRecord> result = new ArrayList<HistoryRecord>(found);
+        Collections.sort(result, NEWEST_FIRST);
+        return result;
+    }
+
+    /**
+     * Get the number of indexed edits.
+     *
+     * @return the number of records
+     */
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Evict the records that are too old or exceed the limit.
+     */
+    private void expire() {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        LocalConfiguration config = worldEdit.getConfiguration();
+        long cutoff = System.currentTimeMillis() - config.historyIndexRetention * 60L * 1000L;
+        int limit = Math.max(0, config.historyIndexLimit);
+        long maxChanges = Math.max(0, config.historyIndexMaxChanges);
+
+        long changes = 0;
+        for (HistoryRecord record : records) {
+            changes += record.size();
+        }
+
+        while (!records.isEmpty() && (records.size() > limit || changes > maxChanges || records.peekFirst()
+            .getTime() < cutoff)) {
+            HistoryRecord record = records.pollFirst();
+            changes -= record.size();
+            evict(record);
+        }
+    }
+
+    private void evict(HistoryRecord record) {
+        Map<Long, List<HistoryRecord>> buckets = worlds.get(record.getWorldName());
+        if (buckets != null) {
+            for (Long chunk : record.getChunks()) {
+                List<HistoryRecord> bucket = buckets.get(chunk);
+                if (bucket != null) {
+                    bucket.remove(record);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(chunk);
+                    }
+                }
+            }
+            if (buckets.isEmpty()) {
+                worlds.remove(record.getWorldName());
+            }
+        }
+        record.setEvicted();
+    }
+
+    /**
+     * Get the key of a chunk in the buckets of a world.
+     *
+     * @param chunkX the X coordinate of the chunk
+     * @param chunkZ the Z coordinate of the chunk
+     * @return the key
+     */
+    static long getChunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.history;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * The metadata of one edit in the {@link HistoryIndex}.
+ *
+ * <p>
+ * A record is created with its edit session but only becomes part of the
+ * index once the edit changes its first block. From then on, every chunk
+ * that the edit changes a block in is added to the index, so the edit can
+ * be found by area.
+ * </p>
+ */
+public final class HistoryRecord {
+
+    private final HistoryIndex index;
+    private final String worldName;
+    @Nullable
+    private final String actorName;
+    private final long time;
+    private final ChangeSet changeSet;
+    private final Set<Long> chunks = new HashSet<Long>();
+    private long id;
+    private boolean evicted;
+    private volatile String description = "";
+    private volatile boolean undone;
+    private long lastChunk;
+    private boolean touched;
+
+    /**
+     * Create a new record.
+     *
+     * @param index     the index
+     * @param worldName the name of the edited world
+     * @param actorName the name of the actor, or null if unknown
+     * @param time      the time of the edit, in milliseconds since the epoch
+     * @param changeSet the changes of the edit
+     */
+    HistoryRecord(HistoryIndex index, String worldName, @Nullable String actorName, long time, ChangeSet changeSet) {
+        checkNotNull(index);
+        checkNotNull(worldName);
+        checkNotNull(changeSet);
+        this.index = index;
+        this.worldName = worldName;
+        this.actorName = actorName;
+        this.time = time;
+        this.changeSet = changeSet;
+    }
+
+    /**
+     * Note that the edit has changed a block at the given position.
+     *
+     * <p>
+     * Consecutive changes in the same chunk are only added to the index once.
+     * </p>
+     *
+     * @param x the X coordinate of the block
+     * @param z the Z coordinate of the block
+     */
+    public void touch(int x, int z) {
+        long chunk = HistoryIndex.getChunkKey(x >> 4, z >> 4);
+        if (!touched || chunk != lastChunk) {
+            touched = true;
+            lastChunk = chunk;
+            index.addChunk(this, chunk);
+        }
+    }
+
+    /**
+     * Get the ID of the record, which increases with every indexed edit.
+     *
+     * @return the ID, or 0 if the edit has not changed any block yet
+     */
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the name of the edited world.
+     *
+     * @return the world name
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Get the name of the actor that made the edit.
+     *
+     * @return the name, or null if unknown
+     */
+    @Nullable
+    public String getActorName() {
+        return actorName;
+    }
+
+    /**
+     * Get the time of the edit.
+     *
+     * @return the time, in milliseconds since the epoch
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get the description of the edit, which is usually the command that
+     * made it.
+     *
+     * @return the description, which may be empty
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Set the description of the edit.
+     *
+     * @param description the description
+     */
+    public void setDescription(String description) {
+        checkNotNull(description);
+        this.description = description;
+    }
+
+    /**
+     * Get whether the edit has been undone, in which case it is skipped by
+     * {@link #rollback(Region, EditSession)}.
+     *
+     * @return true if undone
+     */
+    public boolean isUndone() {
+        return undone;
+    }
+
+    /**
+     * Set whether the edit has been undone.
+     *
+     * @param undone true if undone
+     */
+    public void setUndone(boolean undone) {
+        this.undone = undone;
+    }
+
+    /**
+     * Get the number of changes of the edit.
+     *
+     * @return the change count
+     */
+    public int size() {
+        return changeSet.size();
+    }
+
+    /**
+     * Get the indexed chunks, which must only be used while holding the
+     * lock of the index.
+     *
+     * @return the chunk keys
+     */
+    Set<Long> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Remove this record from the index, such as when its edit is dropped
+     * from the undo history of its session.
+     */
+    public void release() {
+        index.release(this);
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void setEvicted() {
+        evicted = true;
+        chunks.clear();
+    }
+
+    /**
+     * Restore the blocks that the edit changed within the given region to
+     * their state before the edit.
+     *
+     * <p>
+     * Changes are applied in reverse order, so a block that the edit
+     * changed several times gets its state from before the first change.
+     * Changes outside of the region and changes to entities are skipped.
+     * </p>
+     *
+     * @param region      the region
+     * @param editSession the edit session to make the changes with
+     * @return the number of restored blocks
+     * @throws MaxChangedBlocksException thrown if too many blocks are changed
+     */
+    public int rollback(Region region, EditSession editSession) throws MaxChangedBlocksException {
+        checkNotNull(region);
+        checkNotNull(editSession);
+
+        int affected = 0;
+        Iterator<Change> it = changeSet.backwardIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change instanceof BlockChange) {
+                BlockChange blockChange = (BlockChange) change;
+                BlockVector position = blockChange.getPosition();
+                if (region.contains(position)) {
+                    editSession.setBlock(position, blockChange.getPrevious());
+                    affected++;
+                }
+            }
+        }
+        return affected;
+    }
+
+}
@@ -19,9 +19,11 @@ package com.sk89q.worldedit.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
+import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.BlockVector2D;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalWorld;
@@ -38,6 +40,7 @@ import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.TreeGenerator.TreeType;
+import com.sk89q.worldedit.world.BlockHistogram;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.registry.WorldData;
@@ -137,6 +140,21 @@ public class LocalWorldAdapter extends LocalWorld {
         return world.regenerate(region, editSession);
     }
 
+    @Override
+    public BlockHistogram getBlockHistogram(Region region) {
+        return world.getBlockHistogram(region);
+    }
+
+    @Override
+    public int[] getHighestTerrainBlocks(Region region, boolean naturalOnly) {
+        return world.getHighestTerrainBlocks(region, naturalOnly);
+    }
+
+    @Override
+    public long getChunkContentHash(Vector2D position) {
+        return world.getChunkContentHash(position);
+    }
+
     @Override
     public boolean generateTree(TreeType type, EditSession editSession, Vector position)
         throws MaxChangedBlocksException {
@@ -178,11 +196,26 @@ public class LocalWorldAdapter extends LocalWorld {
         world.checkLoadedChunk(position);
     }
 
+    @Override
+    public boolean isChunkLoaded(Vector2D position) {
+        return world.isChunkLoaded(position);
+    }
+
+    @Override
+    public void prefetchChunk(Vector2D position) {
+        world.prefetchChunk(position);
+    }
+
     @Override
     public void fixAfterFastMode(Iterable<BlockVector2D> chunks) {
         world.fixAfterFastMode(chunks);
     }
 
+    @Override
+    public int setTileEntities(Map<BlockVector, BaseBlock> blocks) throws WorldEditException {
+        return world.setTileEntities(blocks);
+    }
+
     @Override
     public void fixLighting(Iterable<BlockVector2D> chunks) {
         world.fixLighting(chunks);
@@ -18,11 +18,15 @@ package com.sk89q.worldedit.math.convolution;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import javax.annotation.Nullable;
+
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.blocks.Blocks;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
 import com.sk89q.worldedit.regions.Region;
 
 /**
@@ -69,22 +73,9 @@ public class HeightMap {
         this.width = region.getWidth();
         this.height = region.getLength();
 
-        int minX = region.getMinimumPoint()
-            .getBlockX();
-        int minY = region.getMinimumPoint()
-            .getBlockY();
-        int minZ = region.getMinimumPoint()
-            .getBlockZ();
-        int maxY = region.getMaximumPoint()
-            .getBlockY();
-
         // Store current heightmap data
-        data = new int[width * height];
-        for (int z = 0; z < height; ++z) {
-            for (int x = 0; x < width; ++x) {
-                data[z * width + x] = session.getHighestTerrainBlock(x + minX, z + minZ, minY, maxY, naturalOnly);
-            }
-        }
+        data = session.getWorld()
+            .getHighestTerrainBlocks(region, naturalOnly);
     }
 
     /**
@@ -127,7 +118,6 @@ public class HeightMap {
 
         int maxY = region.getMaximumPoint()
             .getBlockY();
-        BaseBlock fillerAir = new BaseBlock(BlockID.AIR);
 
         int blocksChanged = 0;
 
@@ -139,53 +129,25 @@ public class HeightMap {
 
                 // Clamp newHeight within the selection area
                 int newHeight = Math.min(maxY, data[index]);
+                if (newHeight == curHeight) {
+                    continue;
+                }
 
                 // Offset x,z to be 'real' coordinates
                 int xr = x + originX;
                 int zr = z + originZ;
 
-                // We are keeping the topmost blocks so take that in account for the scale
-                double scale = (double) (curHeight - originY) / (double) (newHeight - originY);
-
-                // Depending on growing or shrinking we need to start at the bottom or top
-                if (newHeight > curHeight) {
-                    // Set the top block of the column to be the same type (this might go wrong with rounding)
-                    BaseBlock existing = session.getBlock(new Vector(xr, curHeight, zr));
-
-                    // Skip water/lava
-                    if (existing.getType() != BlockID.WATER && existing.getType() != BlockID.STATIONARY_WATER
-                        && existing.getType() != BlockID.LAVA
-                        && existing.getType() != BlockID.STATIONARY_LAVA) {
-                        session.setBlock(new Vector(xr, newHeight, zr), existing);
-                        ++blocksChanged;
-
-                        // Grow -- start from 1 below top replacing airblocks
-                        for (int y = newHeight - 1 - originY; y >= 0; --y) {
-                            int copyFrom = (int) (y * scale);
-                            session.setBlock(
-                                new Vector(xr, originY + y, zr),
-                                session.getBlock(new Vector(xr, originY + copyFrom, zr)));
-                            ++blocksChanged;
-                        }
-                    }
-                } else if (curHeight > newHeight) {
-                    // Shrink -- start from bottom
-                    for (int y = 0; y < newHeight - originY; ++y) {
-                        int copyFrom = (int) (y * scale);
-                        session.setBlock(
-                            new Vector(xr, originY + y, zr),
-                            session.getBlock(new Vector(xr, originY + copyFrom, zr)));
-                        ++blocksChanged;
-                    }
-
-                    // Set the top block of the column to be the same type
-                    // (this could otherwise go wrong with rounding)
-                    session.setBlock(new Vector(xr, newHeight, zr), session.getBlock(new Vector(xr, curHeight, zr)));
-                    ++blocksChanged;
+                // Only the part of the column up to the higher of both heights can change
+                int baseY = Math.min(originY, newHeight);
+                BaseBlock[] column = readColumn(xr, zr, baseY, Math.max(curHeight, newHeight));
+                BaseBlock[] target = reshapeColumn(column, baseY, originY, curHeight, newHeight);
+                if (target == null) {
+                    continue;
+                }
 
-                    // Fill rest with air
-                    for (int y = newHeight + 1; y <= curHeight; ++y) {
-                        session.setBlock(new Vector(xr, y, zr), fillerAir);
+                for (int i = 0; i < target.length; ++i) {
+                    if (target[i] != null && !isSame(column[i], target[i])) {
+                        session.setBlock(new Vector(xr, baseY + i, zr), target[i]);
                         ++blocksChanged;
                     }
                 }
@@ -197,4 +159,94 @@ public class HeightMap {
         return blocksChanged;
     }
 
+    /**
+     * Read a column of blocks in one go.
+     *
+     * <p>
+     * Blocks are snapshotted as they are read, so that the column can be
+     * rewritten in any order without a later copy seeing a changed block.
+     * </p>
+     *
+     * @param x    the X coordinate
+     * @param z    the Z coordinate
+     * @param minY the lowest Y
+     * @param maxY the highest Y
+     * @return the blocks, indexed by {@code y - minY}
+     */
+    private BaseBlock[] readColumn(int x, int z, int minY, int maxY) {
+        BaseBlock[] column = new BaseBlock[maxY - minY + 1];
+        for (int i = 0; i < column.length; ++i) {
+            column[i] = Blocks.snapshot(session.getLazyBlock(new Vector(x, minY + i, z)));
+        }
+        return column;
+    }
+
+    /**
+     * Work out the blocks of a column after scaling it to a new height.
+     *
+     * @param column    the current blocks, indexed by {@code y - baseY}
+     * @param baseY     the Y of the first block of the column
+     * @param originY   the bottom of the region
+     * @param curHeight the current height of the column
+     * @param newHeight the new height of the column
+     * @return the new blocks, where null leaves a block as it is, or null if the column is skipped
+     */
+    @Nullable
+    private static BaseBlock[] reshapeColumn(BaseBlock[] column, int baseY, int originY, int curHeight,
+        int newHeight) {
+        BaseBlock[] target = new BaseBlock[column.length];
+        int offset = originY - baseY;
+
+        // We are keeping the topmost blocks so take that in account for the scale
+        double scale = (double) (curHeight - originY) / (double) (newHeight - originY);
+
+        // Depending on growing or shrinking we need to start at the bottom or top
+        if (newHeight > curHeight) {
+            // Set the top block of the column to be the same type (this might go wrong with rounding)
+            BaseBlock existing = column[curHeight - baseY];
+
+            // Skip water/lava
+            int type = existing.getType();
+            if (type == BlockID.WATER || type == BlockID.STATIONARY_WATER
+                || type == BlockID.LAVA
+                || type == BlockID.STATIONARY_LAVA) {
+                return null;
+            }
+            target[newHeight - baseY] = existing;
+
+            // Grow -- start from 1 below top replacing airblocks
+            for (int y = newHeight - 1 - originY; y >= 0; --y) {
+                target[offset + y] = column[offset + (int) (y * scale)];
+            }
+        } else {
+            // Shrink -- start from bottom
+            for (int y = 0; y < newHeight - originY; ++y) {
+                target[offset + y] = column[offset + (int) (y * scale)];
+            }
+
+            // Set the top block of the column to be the same type
+            // (this could otherwise go wrong with rounding)
+            target[newHeight - baseY] = column[curHeight - baseY];
+
+            // Fill rest with air
+            for (int y = newHeight + 1; y <= curHeight; ++y) {
+                target[y - baseY] = ImmutableBlock.AIR;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Test whether writing a block over another would change nothing.
+     *
+     * @param current the block in place
+     * @param block   the block to write
+     * @return true if the write can be skipped
+     */
+    private static boolean isSame(BaseBlock current, BaseBlock block) {
+        return current == block || current.getType() == block.getType() && current.getData() == block.getData()
+            && !current.hasNbtData()
+            && !block.hasNbtData();
+    }
+
 }
@@ -19,6 +19,9 @@ package com.sk89q.worldedit.math.convolution;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.awt.image.Kernel;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
 
 /**
  * Allows applications of Kernels onto the region's height map.
@@ -26,10 +29,24 @@ import java.awt.image.Kernel;
  * <p>
  * Only used for smoothing (with a GaussianKernel).
  * </p>
+ *
+ * <p>
+ * Kernels that are the outer product of a column and a row vector, such as
+ * {@link GaussianKernel} and {@link LinearKernel}, are applied as two 1D
+ * passes over a float buffer instead of one 2D pass, and large height maps
+ * are filtered a row at a time in parallel.
+ * </p>
  */
 public class HeightMapFilter {
 
+    private static final float SEPARABLE_TOLERANCE = 1e-6f;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
     private Kernel kernel;
+    @Nullable
+    private float[] rowWeights;
+    @Nullable
+    private float[] columnWeights;
 
     /**
      * Construct the HeightMapFilter object.
@@ -39,6 +56,7 @@ public class HeightMapFilter {
     public HeightMapFilter(Kernel kernel) {
         checkNotNull(kernel);
         this.kernel = kernel;
+        decompose();
     }
 
     /**
@@ -51,6 +69,7 @@ public class HeightMapFilter {
     public HeightMapFilter(int kernelWidth, int kernelHeight, float[] kernelData) {
         checkNotNull(kernelData);
         this.kernel = new Kernel(kernelWidth, kernelHeight, kernelData);
+        decompose();
     }
 
     /**
@@ -69,6 +88,51 @@ public class HeightMapFilter {
         checkNotNull(kernel);
 
         this.kernel = kernel;
+        decompose();
+    }
+
+    /**
+     * Split the kernel into a column and a row vector whose outer product is
+     * the kernel, if there are such vectors.
+     */
+    private void decompose() {
+        float[] matrix = kernel.getKernelData(null);
+        int kw = kernel.getWidth();
+        int kh = kernel.getHeight();
+
+        int pivot = 0;
+        for (int i = 1; i < matrix.length; ++i) {
+            if (Math.abs(matrix[i]) > Math.abs(matrix[pivot])) {
+                pivot = i;
+            }
+        }
+
+        rowWeights = null;
+        columnWeights = null;
+        float max = Math.abs(matrix[pivot]);
+        if (max == 0) {
+            return;
+        }
+
+        int pivotX = pivot % kw;
+        int pivotY = pivot / kw;
+        float[] row = new float[kw];
+        float[] column = new float[kh];
+        System.arraycopy(matrix, pivotY * kw, row, 0, kw);
+        for (int ky = 0; ky < kh; ++ky) {
+            column[ky] = matrix[ky * kw + pivotX] / matrix[pivot];
+        }
+
+        for (int ky = 0; ky < kh; ++ky) {
+            for (int kx = 0; kx < kw; ++kx) {
+                if (Math.abs(matrix[ky * kw + kx] - column[ky] * row[kx]) > SEPARABLE_TOLERANCE * max) {
+                    return;
+                }
+            }
+        }
+
+        rowWeights = row;
+        columnWeights = column;
     }
 
     /**
@@ -83,6 +147,10 @@ public class HeightMapFilter {
     public int[] filter(int[] inData, int width, int height) {
         checkNotNull(inData);
 
+        if (rowWeights != null && columnWeights != null) {
+            return filterSeparable(inData, width, height, rowWeights, columnWeights);
+        }
+
         int index = 0;
         float[] matrix = kernel.getKernelData(null);
         int[] outData = new int[inData.length];
@@ -125,4 +193,65 @@ public class HeightMapFilter {
         return outData;
     }
 
+    /**
+     * Filter with a kernel that was split into a row and a column vector.
+     *
+     * <p>
+     * Coordinates outside the data are clamped the same way as the 2D
+     * filter does, so the result only differs from it by float rounding.
+     * </p>
+     *
+     * @param inData the data
+     * @param width  the width
+     * @param height the height
+     * @param row    the row vector
+     * @param column the column vector
+     * @return the modified height map
+     */
+    private int[] filterSeparable(final int[] inData, final int width, final int height, final float[] row,
+        final float[] column) {
+        final int kox = kernel.getXOrigin();
+        final int koy = kernel.getYOrigin();
+        final float[] rows = new float[inData.length];
+        final int[] outData = new int[inData.length];
+
+        boolean parallel = inData.length >= PARALLEL_THRESHOLD;
+        rowRange(height, parallel).forEach(y -> {
+            int offset = y * width;
+            for (int x = 0; x < width; ++x) {
+                float sum = 0;
+                for (int kx = 0; kx < row.length; ++kx) {
+                    int offsetX = x + kx - kox;
+                    // Clamp coordinates inside data
+                    if (offsetX < 0 || offsetX >= width) {
+                        offsetX = x;
+                    }
+                    sum += row[kx] * inData[offset + offsetX];
+                }
+                rows[offset + x] = sum;
+            }
+        });
+        rowRange(height, parallel).forEach(y -> {
+            int offset = y * width;
+            for (int x = 0; x < width; ++x) {
+                float sum = 0;
+                for (int ky = 0; ky < column.length; ++ky) {
+                    int offsetY = y + ky - koy;
+                    // Clamp coordinates inside data
+                    if (offsetY < 0 || offsetY >= height) {
+                        offsetY = y;
+                    }
+                    sum += column[ky] * rows[offsetY * width + x];
+                }
+                outData[offset + x] = (int) (sum + 0.5);
+            }
+        });
+        return outData;
+    }
+
+    private static IntStream rowRange(int height, boolean parallel) {
+        IntStream range = IntStream.range(0, height);
+        return parallel ? range.parallel() : range;
+    }
+
 }
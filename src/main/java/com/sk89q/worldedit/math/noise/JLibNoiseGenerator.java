@@ -53,6 +53,42 @@ abstract class JLibNoiseGenerator<V extends Module> implements NoiseGenerator {
         return forceRange(module.GetValue(position.getX(), position.getY(), position.getZ()));
     }
 
+    /**
+     * Get the noise value for the given position without creating a vector.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return a noise value between 0 (inclusive) and 1 (inclusive)
+     */
+    public float noise(double x, double y, double z) {
+        return forceRange(module.GetValue(x, y, z));
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    @Override
+    public void noiseColumn(double x, double minY, double z, double[] values) {
+        V module = this.module;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = forceRange(module.GetValue(x, minY + i, z));
+        }
+    }
+
+    @Override
+    public void noiseSlab(double minX, double y, double minZ, int sizeX, int sizeZ, double[] values) {
+        V module = this.module;
+        int index = 0;
+        for (int dz = 0; dz < sizeZ; dz++) {
+            for (int dx = 0; dx < sizeX; dx++) {
+                values[index++] = forceRange(module.GetValue(minX + dx, y, minZ + dz));
+            }
+        }
+    }
+
     private float forceRange(double value) {
         return (float) Math.max(0, Math.min(1, value / 2.0 + 0.5));
     }
@@ -42,4 +42,49 @@ public interface NoiseGenerator {
      */
     float noise(Vector position);
 
+    /**
+     * Test whether this generator always returns the same value for the same
+     * position, for as long as it is not reconfigured.
+     *
+     * @return true if the generator is deterministic
+     */
+    default boolean isDeterministic() {
+        return false;
+    }
+
+    /**
+     * Fill an array with the noise values of a column of positions, starting
+     * at (x, minY, z) and going up by one block per element.
+     *
+     * @param x      the X coordinate of the column
+     * @param minY   the Y coordinate of the first position
+     * @param z      the Z coordinate of the column
+     * @param values the array to fill, whose length is the height of the column
+     */
+    default void noiseColumn(double x, double minY, double z, double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = noise(new Vector(x, minY + i, z));
+        }
+    }
+
+    /**
+     * Fill an array with the noise values of a horizontal slab of positions
+     * at height y, starting at (minX, y, minZ). The value of (minX + dx, y,
+     * minZ + dz) is stored at index {@code dz * sizeX + dx}.
+     *
+     * @param minX   the smallest X coordinate
+     * @param y      the Y coordinate of the slab
+     * @param minZ   the smallest Z coordinate
+     * @param sizeX  the number of positions along X
+     * @param sizeZ  the number of positions along Z
+     * @param values the array to fill, of at least {@code sizeX * sizeZ} elements
+     */
+    default void noiseSlab(double minX, double y, double minZ, int sizeX, int sizeZ, double[] values) {
+        for (int dz = 0; dz < sizeZ; dz++) {
+            for (int dx = 0; dx < sizeX; dx++) {
+                values[dz * sizeX + dx] = noise(new Vector(minX + dx, y, minZ + dz));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.math.noise;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out noise generators that are already configured for a given set
+ * of parameters.
+ *
+ * <p>
+ * Configuring a generator is not free (ridged multi-fractal noise, for
+ * example, recomputes its spectral weights whenever its frequency or
+ * octave count changes), so generators are kept by parameter tuple
+ * instead of being reconfigured for every value that is requested. Looking
+ * up a generator does not allocate unless it has to be created.
+ * </p>
+ *
+ * <p>
+ * The returned generators are shared between callers and threads and
+ * must not be reconfigured.
+ * </p>
+ */
+public final class NoiseGeneratorCache {
+
+    private static final int MAX_SIZE = 256;
+    private static final int PERLIN = 0;
+    private static final int VORONOI = 1;
+    private static final int RIDGED_MULTI = 2;
+
+    private static final Map<Key, JLibNoiseGenerator<?>> generators = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Key> probes = new ThreadLocal<Key>() {
+
+        @Override
+        protected Key initialValue() {
+            return new Key();
+        }
+    };
+
+    private NoiseGeneratorCache() {}
+
+    /**
+     * Get a Perlin noise generator.
+     *
+     * @param seed        the seed
+     * @param frequency   the frequency
+     * @param octaves     the number of octaves
+     * @param persistence the persistence
+     * @return a configured generator
+     * @throws IllegalArgumentException thrown if a parameter is out of range
+     */
+    public static PerlinNoise perlin(int seed, double frequency, int octaves, double persistence) {
+        Key key = probe(PERLIN, seed, frequency, octaves, persistence);
+        PerlinNoise generator = (PerlinNoise) generators.get(key);
+        if (generator == null) {
+            generator = new PerlinNoise();
+            generator.setSeed(seed);
+            generator.setFrequency(frequency);
+            generator.setOctaveCount(octaves);
+            generator.setPersistence(persistence);
+            store(key, generator);
+        }
+        return generator;
+    }
+
+    /**
+     * Get a Voronoi noise generator.
+     *
+     * @param seed      the seed
+     * @param frequency the frequency
+     * @return a configured generator
+     * @throws IllegalArgumentException thrown if a parameter is out of range
+     */
+    public static VoronoiNoise voronoi(int seed, double frequency) {
+        Key key = probe(VORONOI, seed, frequency, 0, 0);
+        VoronoiNoise generator = (VoronoiNoise) generators.get(key);
+        if (generator == null) {
+            generator = new VoronoiNoise();
+            generator.setSeed(seed);
+            generator.setFrequency(frequency);
+            store(key, generator);
+        }
+        return generator;
+    }
+
+    /**
+     * Get a ridged multi-fractal noise generator.
+     *
+     * @param seed      the seed
+     * @param frequency the frequency
+     * @param octaves   the number of octaves
+     * @return a configured generator
+     * @throws IllegalArgumentException thrown if a parameter is out of range
+     */
+    public static RidgedMultiFractalNoise ridgedMulti(int seed, double frequency, int octaves) {
+        Key key = probe(RIDGED_MULTI, seed, frequency, octaves, 0);
+        RidgedMultiFractalNoise generator = (RidgedMultiFractalNoise) generators.get(key);
+        if (generator == null) {
+            generator = new RidgedMultiFractalNoise();
+            generator.setSeed(seed);
+            generator.setFrequency(frequency);
+            generator.setOctaveCount(octaves);
+            store(key, generator);
+        }
+        return generator;
+    }
+
+    private static Key probe(int type, int seed, double frequency, int octaves, double persistence) {
+        Key key = probes.get();
+        key.type = type;
+        key.seed = seed;
+        key.frequency = frequency;
+        key.octaves = octaves;
+        key.persistence = persistence;
+        return key;
+    }
+
+    private static void store(Key probe, JLibNoiseGenerator<?> generator) {
+        if (generators.size() >= MAX_SIZE) {
+            generators.clear();
+        }
+        generators.put(probe.copy(), generator);
+    }
+
+    private static final class Key {
+
+        private int type;
+        private int seed;
+        private double frequency;
+        private int octaves;
+        private double persistence;
+
+        private Key copy() {
+            Key key = new Key();
+            key.type = type;
+            key.seed = seed;
+            key.frequency = frequency;
+            key.octaves = octaves;
+            key.persistence = persistence;
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && seed == other.seed
+                && octaves == other.octaves
+                && Double.compare(frequency, other.frequency) == 0
+                && Double.compare(persistence, other.persistence) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type;
+            result = 31 * result + seed;
+            result = 31 * result + octaves;
+            long bits = Double.doubleToLongBits(frequency);
+            result = 31 * result + (int) (bits ^ bits >>> 32);
+            bits = Double.doubleToLongBits(persistence);
+            result = 31 * result + (int) (bits ^ bits >>> 32);
+            return result;
+        }
+    }
+
+}
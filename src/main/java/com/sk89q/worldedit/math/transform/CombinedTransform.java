@@ -51,6 +51,16 @@ public class CombinedTransform implements Transform {
         this(transforms.toArray(new Transform[checkNotNull(transforms).size()]));
     }
 
+    /**
+     * Get the transforms that are combined, in the order that they are
+     * applied.
+     *
+     * @return the transforms, which must not be modified
+     */
+    Transform[] getTransforms() {
+        return transforms;
+    }
+
     @Override
     public boolean isIdentity() {
         for (Transform transform : transforms) {
@@ -0,0 +1,219 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.math.transform;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.Nullable;
+
+/**
+ * An affine transform that was folded from a chain of transforms by
+ * {@link Transforms#compile(Transform)}.
+ *
+ * <p>
+ * Coefficients that are within rounding error of a whole number are
+ * snapped to it, so that right angle rotations map block positions
+ * exactly. When the transform only permutes and flips the axes and
+ * translates by whole numbers, it is {@link #isIntegral() integral} and
+ * block positions can be mapped with {@link #applyX(int, int, int)} and
+ * its siblings, which use integer arithmetic and do not allocate.
+ * </p>
+ *
+ * <p>
+ * The inverse is computed once and cached.
+ * </p>
+ */
+public final class CompiledTransform extends AffineTransform {
+
+    private static final double EPSILON = 1e-9;
+
+    private final boolean integral;
+    private final int[] axes = new int[3];
+    private final int[] signs = new int[3];
+    private final int[] offsets = new int[3];
+    @Nullable
+    private CompiledTransform inverse;
+
+    /**
+     * Create a new instance.
+     *
+     * @param coefficients the 12 affine coefficients
+     */
+    private CompiledTransform(double[] coefficients) {
+        super(snap(coefficients));
+        this.integral = analyze(coefficients());
+    }
+
+    /**
+     * Compile an affine transform.
+     *
+     * @param transform the transform
+     * @return the compiled transform, which may be the same instance
+     */
+    static CompiledTransform of(AffineTransform transform) {
+        checkNotNull(transform);
+        if (transform instanceof CompiledTransform) {
+            return (CompiledTransform) transform;
+        }
+        return new CompiledTransform(transform.coefficients());
+    }
+
+    /**
+     * Snap coefficients that are close to a whole number to it.
+     *
+     * @param coefficients the coefficients
+     * @return the same array
+     */
+    private static double[] snap(double[] coefficients) {
+        for (int i = 0; i < coefficients.length; i++) {
+            double rounded = Math.rint(coefficients[i]);
+            if (Math.abs(coefficients[i] - rounded) < EPSILON) {
+                coefficients[i] = rounded;
+            }
+        }
+        return coefficients;
+    }
+
+    /**
+     * Work out whether the coefficients describe an integral transform, and
+     * fill in the axis, sign and offset of every output coordinate if so.
+     *
+     * @param coefficients the snapped coefficients
+     * @return true if integral
+     */
+    private boolean analyze(double[] coefficients) {
+        int usedAxes = 0;
+        for (int row = 0; row < 3; row++) {
+            int axis = -1;
+            for (int column = 0; column < 3; column++) {
+                double coefficient = coefficients[row * 4 + column];
+                if (coefficient == 0) {
+                    continue;
+                }
+                if (axis != -1 || Math.abs(coefficient) != 1) {
+                    return false;
+                }
+                axis = column;
+                signs[row] = (int) coefficient;
+            }
+            double offset = coefficients[row * 4 + 3];
+            if (axis == -1 || (usedAxes & 1 << axis) != 0 || offset != Math.rint(offset)
+                || Math.abs(offset) > Integer.MAX_VALUE) {
+                return false;
+            }
+            usedAxes |= 1 << axis;
+            axes[row] = axis;
+            offsets[row] = (int) offset;
+        }
+        return true;
+    }
+
+    /**
+     * Return whether this transform only permutes and flips the axes and
+     * translates by whole numbers.
+     *
+     * @return true if integral
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Get the transformed X coordinate of a block position.
+     *
+     * <p>
+     * This must only be called if the transform {@link #isIntegral() is
+     * integral}.
+     * </p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the transformed X coordinate
+     */
+    public int applyX(int x, int y, int z) {
+        return map(0, x, y, z);
+    }
+
+    /**
+     * Get the transformed Y coordinate of a block position.
+     *
+     * <p>
+     * This must only be called if the transform {@link #isIntegral() is
+     * integral}.
+     * </p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the transformed Y coordinate
+     */
+    public int applyY(int x, int y, int z) {
+        return map(1, x, y, z);
+    }
+
+    /**
+     * Get the transformed Z coordinate of a block position.
+     *
+     * <p>
+     * This must only be called if the transform {@link #isIntegral() is
+     * integral}.
+     * </p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the transformed Z coordinate
+     */
+    public int applyZ(int x, int y, int z) {
+        return map(2, x, y, z);
+    }
+
+    private int map(int row, int x, int y, int z) {
+        int value;
+        switch (axes[row]) {
+            case 0:
+                value = x;
+                break;
+            case 1:
+                value = y;
+                break;
+            default:
+                value = z;
+                break;
+        }
+        return signs[row] * value + offsets[row];
+    }
+
+    @Override
+    public CompiledTransform inverse() {
+        CompiledTransform inverse = this.inverse;
+        if (inverse == null) {
+            inverse = new CompiledTransform(super.inverse().coefficients());
+            inverse.inverse = this;
+            this.inverse = inverse;
+        }
+        return inverse;
+    }
+
+    @Override
+    public Transform combine(Transform other) {
+        return Transforms.compile(super.combine(other));
+    }
+
+}
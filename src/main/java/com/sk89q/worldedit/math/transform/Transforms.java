@@ -18,6 +18,8 @@ package com.sk89q.worldedit.math.transform;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import javax.annotation.Nullable;
+
 import com.sk89q.worldedit.util.Location;
 
 /**
@@ -44,4 +46,52 @@ public final class Transforms {
         return new Location(location.getExtent(), transform.apply(location.toVector()), location.getDirection());
     }
 
+    /**
+     * Fold a transform into a single {@link CompiledTransform}, if it is
+     * made up only of {@link AffineTransform}s, {@link Identity}s and
+     * {@link CombinedTransform}s of those.
+     *
+     * <p>
+     * A compiled transform applies a chain of transforms with a single
+     * matrix, caches its inverse, and maps block positions without
+     * allocating when it only permutes, flips and translates.
+     * </p>
+     *
+     * @param transform the transform
+     * @return the compiled transform, or the given transform if it cannot be folded
+     */
+    public static Transform compile(Transform transform) {
+        checkNotNull(transform);
+        AffineTransform folded = fold(transform);
+        return folded != null ? CompiledTransform.of(folded) : transform;
+    }
+
+    /**
+     * Fold a transform into a single affine transform.
+     *
+     * @param transform the transform
+     * @return the affine transform, or null if the transform cannot be folded
+     */
+    @Nullable
+    private static AffineTransform fold(Transform transform) {
+        if (transform instanceof AffineTransform) {
+            return (AffineTransform) transform;
+        } else if (transform instanceof Identity) {
+            return new AffineTransform();
+        } else if (transform instanceof CombinedTransform) {
+            AffineTransform result = new AffineTransform();
+            for (Transform part : ((CombinedTransform) transform).getTransforms()) {
+                AffineTransform folded = fold(part);
+                if (folded == null) {
+                    return null;
+                }
+                // Combined transforms apply each part after the previous ones
+                result = folded.concatenate(result);
+            }
+            return result;
+        } else {
+            return null;
+        }
+    }
+
 }
@@ -27,8 +27,10 @@ import javax.annotation.Nullable;
 import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.BlockVector2D;
 import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.math.transform.CompiledTransform;
 import com.sk89q.worldedit.math.transform.Identity;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.math.transform.Transforms;
 import com.sk89q.worldedit.world.World;
 
 /**
@@ -40,6 +42,8 @@ public class TransformRegion extends AbstractRegion {
 
     private final Region region;
     private Transform transform = new Identity();
+    @Nullable
+    private Transform inverse;
 
     /**
      * Create a new instance.
@@ -63,7 +67,7 @@ public class TransformRegion extends AbstractRegion {
         checkNotNull(region);
         checkNotNull(transform);
         this.region = region;
-        this.transform = transform;
+        this.transform = Transforms.compile(transform);
     }
 
     /**
@@ -91,7 +95,23 @@ public class TransformRegion extends AbstractRegion {
      */
     public void setTransform(Transform transform) {
         checkNotNull(transform);
-        this.transform = transform;
+        this.transform = Transforms.compile(transform);
+        this.inverse = null;
+    }
+
+    /**
+     * Get the inverse of the transform, which is computed once for every
+     * transform that is set.
+     *
+     * @return the inverse transform
+     */
+    private Transform getInverse() {
+        Transform inverse = this.inverse;
+        if (inverse == null) {
+            inverse = transform.inverse();
+            this.inverse = inverse;
+        }
+        return inverse;
     }
 
     @Override
@@ -149,9 +169,7 @@ public class TransformRegion extends AbstractRegion {
 
     @Override
     public boolean contains(Vector position) {
-        return region.contains(
-            transform.inverse()
-                .apply(position));
+        return region.contains(getInverse().apply(position));
     }
 
     @Override
@@ -170,6 +188,8 @@ public class TransformRegion extends AbstractRegion {
     @Override
     public Iterator<BlockVector> iterator() {
         final Iterator<BlockVector> it = region.iterator();
+        final CompiledTransform integral = transform instanceof CompiledTransform
+            && ((CompiledTransform) transform).isIntegral() ? (CompiledTransform) transform : null;
 
         return new Iterator<BlockVector>() {
 
@@ -181,7 +201,15 @@ public class TransformRegion extends AbstractRegion {
             @Override
             public BlockVector next() {
                 BlockVector next = it.next();
-                if (next != null) {
+                if (next != null && integral != null) {
+                    int x = next.getBlockX();
+                    int y = next.getBlockY();
+                    int z = next.getBlockZ();
+                    return new BlockVector(
+                        integral.applyX(x, y, z),
+                        integral.applyY(x, y, z),
+                        integral.applyZ(x, y, z));
+                } else if (next != null) {
                     return transform.apply(next)
                         .toBlockVector();
                 } else {
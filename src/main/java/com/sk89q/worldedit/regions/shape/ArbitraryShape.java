@@ -21,6 +21,7 @@ import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.ImmutableBlock;
 import com.sk89q.worldedit.patterns.Pattern;
 import com.sk89q.worldedit.regions.Region;
 
@@ -110,10 +111,10 @@ public abstract class ArbitraryShape {
 
             case -2:
                 // type and data 0
-                return new BaseBlock(0, 0);
+                return ImmutableBlock.AIR;
         }
 
-        return new BaseBlock(cacheEntry & 255, ((cacheEntry >> 8) - 1) & 15);
+        return ImmutableBlock.of(cacheEntry & 255, ((cacheEntry >> 8) - 1) & 15);
     }
 
     private boolean isInsideCached(int x, int y, int z, Pattern pattern) {
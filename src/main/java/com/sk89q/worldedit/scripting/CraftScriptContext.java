@@ -16,6 +16,8 @@
 
 package com.sk89q.worldedit.scripting;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -26,7 +28,9 @@ import com.sk89q.worldedit.DisallowedItemException;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.UnknownItemException;
+import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
@@ -192,6 +196,85 @@ public class CraftScriptContext extends CraftScriptEnvironment {
         return controller.getBlockIDs(player, list, allBlocksAllowed);
     }
 
+    /**
+     * Read every block in the cuboid between two corners in one call.
+     *
+     * <p>
+     * Each block is packed as {@code type << 4 | data}. The block at
+     * (x, y, z) is found at index
+     * {@code ((y - minY) * length + (z - minZ)) * width + (x - minX)}, where
+     * width and length are the sizes of the cuboid along X and Z.
+     * Reading in bulk avoids a call from the script into Java for every
+     * block, which is what makes large scripts slow.
+     * </p>
+     *
+     * @param editSession the edit session to read from
+     * @param pos1        a corner of the cuboid
+     * @param pos2        the opposite corner of the cuboid
+     * @return the packed blocks
+     */
+    public int[] getBlocks(EditSession editSession, Vector pos1, Vector pos2) {
+        Vector min = Vector.getMinimum(pos1, pos2);
+        Vector max = Vector.getMaximum(pos1, pos2);
+        int[] blocks = new int[getVolume(min, max)];
+
+        int index = 0;
+        for (int y = min.getBlockY(); y <= max.getBlockY(); ++y) {
+            for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z) {
+                for (int x = min.getBlockX(); x <= max.getBlockX(); ++x) {
+                    BaseBlock block = editSession.getLazyBlock(new Vector(x, y, z));
+                    blocks[index++] = block.getType() << 4 | block.getData();
+                }
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Set every block in the cuboid between two corners in one call.
+     *
+     * <p>
+     * The blocks are packed and ordered as returned by
+     * {@link #getBlocks(EditSession, Vector, Vector)}. A negative entry
+     * leaves the block at that position untouched.
+     * </p>
+     *
+     * @param editSession the edit session to write to
+     * @param pos1        a corner of the cuboid
+     * @param pos2        the opposite corner of the cuboid
+     * @param blocks      the packed blocks
+     * @return the number of blocks that were changed
+     * @throws MaxChangedBlocksException thrown if too many blocks are changed
+     */
+    public int setBlocks(EditSession editSession, Vector pos1, Vector pos2, int[] blocks)
+        throws MaxChangedBlocksException {
+        Vector min = Vector.getMinimum(pos1, pos2);
+        Vector max = Vector.getMaximum(pos1, pos2);
+        checkArgument(blocks.length == getVolume(min, max), "blocks.length != volume of the cuboid");
+
+        int affected = 0;
+        int index = 0;
+        for (int y = min.getBlockY(); y <= max.getBlockY(); ++y) {
+            for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z) {
+                for (int x = min.getBlockX(); x <= max.getBlockX(); ++x) {
+                    int block = blocks[index++];
+                    if (block >= 0
+                        && editSession.setBlock(new Vector(x, y, z), new BaseBlock(block >> 4, block & 0xF))) {
+                        ++affected;
+                    }
+                }
+            }
+        }
+
+        return affected;
+    }
+
+    private static int getVolume(Vector min, Vector max) {
+        return (max.getBlockX() - min.getBlockX() + 1) * (max.getBlockY() - min.getBlockY() + 1)
+            * (max.getBlockZ() - min.getBlockZ() + 1);
+    }
+
     /**
      * Gets the path to a file. This method will check to see if the filename
      * has valid characters and has an extension. It also prevents directory
@@ -26,5 +26,24 @@ public interface CraftScriptEngine {
 
     public int getTimeLimit();
 
+    public void setOptimizationLevel(int level);
+
+    public int getOptimizationLevel();
+
     public Object evaluate(String script, String filename, Map<String, Object> args) throws ScriptException, Throwable;
+
+    /**
+     * Evaluate a script loaded from a file, reusing the compiled form of an
+     * earlier evaluation for as long as the file has not been modified.
+     *
+     * @param script       the source of the script
+     * @param filename     the filename of the script
+     * @param lastModified the modification time of the file, or -1 to not reuse the compiled script
+     * @param args         variables to define for the script
+     * @return the result of the script
+     * @throws ScriptException on a script error
+     * @throws Throwable       on any other error thrown by the script
+     */
+    public Object evaluate(String script, String filename, long lastModified, Map<String, Object> args)
+        throws ScriptException, Throwable;
 }
@@ -16,6 +16,8 @@
 
 package com.sk89q.worldedit.scripting;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.script.ScriptException;
@@ -24,38 +26,84 @@ import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ImporterTopLevel;
 import org.mozilla.javascript.JavaScriptException;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.WrappedException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.sk89q.worldedit.WorldEditException;
 
+/**
+ * Runs CraftScripts with Rhino.
+ *
+ * <p>
+ * Scripts are compiled once and the compiled form is kept for as long as
+ * the script file is not modified. The standard JavaScript objects are
+ * created once in a sealed scope that is shared by every run, and each run
+ * gets its own cheap top-level scope on top of it, so that variables and
+ * imports of one run are not visible to the next.
+ * </p>
+ */
 public class RhinoCraftScriptEngine implements CraftScriptEngine {
 
-    private int timeLimit;
+    private static final int MAX_CACHED_SCRIPTS = 64;
+
+    private final RhinoContextFactory factory = new RhinoContextFactory(0);
+    private final Cache<String, CompiledScript> scripts = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_SCRIPTS)
+        .build();
+    private int optimizationLevel = 0;
+    private ScriptableObject sharedScope;
+    private String[] sharedNames;
 
     @Override
     public void setTimeLimit(int milliseconds) {
-        timeLimit = milliseconds;
+        factory.timeLimit = milliseconds;
     }
 
     @Override
     public int getTimeLimit() {
-        return timeLimit;
+        return factory.timeLimit;
+    }
+
+    @Override
+    public void setOptimizationLevel(int level) {
+        if (!Context.isValidOptimizationLevel(level)) {
+            throw new IllegalArgumentException("Invalid optimization level: " + level);
+        }
+        if (level != optimizationLevel) {
+            optimizationLevel = level;
+            scripts.invalidateAll();
+        }
+    }
+
+    @Override
+    public int getOptimizationLevel() {
+        return optimizationLevel;
     }
 
     @Override
     public Object evaluate(String script, String filename, Map<String, Object> args) throws ScriptException, Throwable {
-        RhinoContextFactory factory = new RhinoContextFactory(timeLimit);
+        return evaluate(script, filename, -1, args);
+    }
+
+    @Override
+    public synchronized Object evaluate(String script, String filename, long lastModified, Map<String, Object> args)
+        throws ScriptException, Throwable {
         Context cx = factory.enterContext();
-        ScriptableObject scriptable = new ImporterTopLevel(cx);
-        Scriptable scope = cx.initStandardObjects(scriptable);
+        cx.setOptimizationLevel(optimizationLevel);
 
-        for (Map.Entry<String, Object> entry : args.entrySet()) {
-            ScriptableObject.putProperty(scope, entry.getKey(), Context.javaToJS(entry.getValue(), scope));
-        }
         try {
-            return cx.evaluateString(scope, script, filename, 1, null);
+            Script compiled = compile(cx, script, filename, lastModified);
+            Scriptable scope = createScope(cx);
+
+            for (Map.Entry<String, Object> entry : args.entrySet()) {
+                ScriptableObject.putProperty(scope, entry.getKey(), Context.javaToJS(entry.getValue(), scope));
+            }
+
+            return compiled.exec(cx, scope);
         } catch (Error e) {
             throw new ScriptException(e.getMessage());
         } catch (RhinoException e) {
@@ -84,4 +132,89 @@ public class RhinoCraftScriptEngine implements CraftScriptEngine {
         }
     }
 
+    /**
+     * Get the compiled form of a script, compiling it if it has not been
+     * compiled before or if it has changed since.
+     *
+     * @param cx           the context
+     * @param script       the source of the script
+     * @param filename     the filename of the script
+     * @param lastModified the modification time of the file, or -1 to not cache the script
+     * @return the compiled script
+     */
+    private Script compile(Context cx, String script, String filename, long lastModified) {
+        if (lastModified < 0) {
+            return cx.compileString(script, filename, 1, null);
+        }
+
+        int hash = script.hashCode();
+        CompiledScript cached = scripts.getIfPresent(filename);
+        if (cached != null && cached.lastModified == lastModified && cached.hash == hash) {
+            return cached.script;
+        }
+
+        Script compiled = cx.compileString(script, filename, 1, null);
+        scripts.put(filename, new CompiledScript(compiled, lastModified, hash));
+        return compiled;
+    }
+
+    /**
+     * Create the top-level scope for one run of a script.
+     *
+     * <p>
+     * The standard objects are copied by reference from the shared scope
+     * rather than found through the prototype chain so that they keep
+     * taking precedence over packages imported with {@code importPackage},
+     * just as they do in a freshly initialized {@link ImporterTopLevel}.
+     * </p>
+     *
+     * @param cx the context
+     * @return a new scope
+     */
+    private Scriptable createScope(Context cx) {
+        if (sharedScope == null) {
+            ScriptableObject shared = cx.initStandardObjects(null, true);
+
+            // importClass() and importPackage() act on the scope they are
+            // called from as long as their owner is not a top-level scope
+            Scriptable importer = ScriptableObject.getClassPrototype(shared, "JavaImporter");
+            for (String name : new String[] { "importClass", "importPackage" }) {
+                shared.defineProperty(name, importer.get(name, importer), ScriptableObject.DONTENUM);
+            }
+
+            List<String> names = new ArrayList<String>();
+            for (Object id : shared.getAllIds()) {
+                if (id instanceof String) {
+                    names.add((String) id);
+                    shared.get((String) id, shared); // Resolve lazily loaded constructors before sealing
+                }
+            }
+
+            shared.sealObject();
+            sharedNames = names.toArray(new String[names.size()]);
+            sharedScope = shared;
+        }
+
+        ImporterTopLevel scope = new ImporterTopLevel();
+        scope.setPrototype(sharedScope);
+        scope.setParentScope(null);
+        for (String name : sharedNames) {
+            scope.defineProperty(name, sharedScope.get(name, sharedScope), sharedScope.getAttributes(name));
+        }
+        return scope;
+    }
+
+    private static class CompiledScript {
+
+        private final Script script;
+        private final long lastModified;
+        private final int hash;
+
+        private CompiledScript(Script script, long lastModified, int hash) {
+            this.script = script;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
 }
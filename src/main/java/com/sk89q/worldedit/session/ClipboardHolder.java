@@ -86,6 +86,19 @@ public class ClipboardHolder {
         return transform;
     }
 
+    /**
+     * Release the clipboard data if it is shared with other sessions.
+     *
+     * <p>
+     * The holder must not be used afterwards.
+     * </p>
+     */
+    public void release() {
+        if (clipboard instanceof SharedClipboard) {
+            ((SharedClipboard) clipboard).release();
+        }
+    }
+
     /**
      * Create a builder for an operation to paste this clipboard.
      *
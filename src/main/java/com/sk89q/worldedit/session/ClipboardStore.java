@@ -0,0 +1,218 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.session;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Supplier;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Holds clipboard data that is shared between sessions.
+ *
+ * <p>
+ * Clipboards are kept under a key that identifies where they were read
+ * from, such as a schematic file with its size and modification time, so
+ * when several players load the same schematic, it is read once and only
+ * one copy of the blocks is kept in memory. Each session gets a
+ * {@link SharedClipboard} view with its own origin, and the data is
+ * reference counted by the views that have not been released.
+ * </p>
+ *
+ * <p>
+ * Data that is no longer referenced is kept so that it can be shared again
+ * (for example, when a schematic is loaded a second time), until the
+ * estimated size of all data exceeds
+ * {@link LocalConfiguration#sharedClipboardBudget}, at which point the
+ * least recently used unreferenced data is evicted.
+ * </p>
+ */
+public class ClipboardStore {
+
+    private static final long BYTES_PER_BLOCK = 8;
+
+    private final Supplier<Long> budget;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * Create a new store.
+     *
+     * @param worldEdit the WorldEdit instance
+     */
+    public ClipboardStore(final WorldEdit worldEdit) {
+        this(new Supplier<Long>() {
+
+            @Override
+            public Long get() {
+                return (long) worldEdit.getConfiguration().sharedClipboardBudget * 1024 * 1024;
+            }
+        });
+        checkNotNull(worldEdit);
+    }
+
+    /**
+     * Create a new store.
+     *
+     * @param budget supplies the estimated size, in bytes, up to which unreferenced data is kept
+     */
+    ClipboardStore(Supplier<Long> budget) {
+        checkNotNull(budget);
+        this.budget = budget;
+    }
+
+    /**
+     * Share the given clipboard, which must not be modified afterwards,
+     * under the given key.
+     *
+     * <p>
+     * If data is held under the key already, such as when another session
+     * has read the same file in the meantime, the given clipboard is
+     * discarded and a view of the held data is returned instead.
+     * </p>
+     *
+     * @param clipboard the clipboard
+     * @param key       a key for where the clipboard was read from
+     * @return a view of the shared data
+     */
+    public synchronized SharedClipboard share(Clipboard clipboard, String key) {
+        checkNotNull(clipboard);
+        checkNotNull(key);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, clipboard, estimateSize(clipboard));
+            entries.put(key, entry);
+            size += entry.size;
+        }
+        entry.references++;
+        evict();
+        return new SharedClipboard(this, entry, entry.origin);
+    }
+
+    /**
+     * Get a new view of the data that was shared under the given key.
+     *
+     * @param key the key
+     * @return a view of the shared data, or null if there is none
+     */
+    @Nullable
+    public synchronized SharedClipboard acquire(String key) {
+        checkNotNull(key);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.references++;
+        return new SharedClipboard(this, entry, entry.origin);
+    }
+
+    /**
+     * Release a reference to shared data.
+     *
+     * @param entry the entry
+     */
+    synchronized void release(Entry entry) {
+        entry.references--;
+        evict();
+    }
+
+    /**
+     * Get the estimated size of all held data.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of held clipboards.
+     *
+     * @return the number of clipboards
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Evict the least recently used unreferenced data until the held data
+     * fits in the budget.
+     */
+    private void evict() {
+        long budget = this.budget.get();
+        Iterator<Entry> it = entries.values()
+            .iterator();
+        while (size > budget && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.references <= 0) {
+                it.remove();
+                size -= entry.size;
+            }
+        }
+    }
+
+    /**
+     * Estimate the size of a clipboard in memory from the volume of its
+     * region, without reading its blocks.
+     *
+     * @param clipboard the clipboard
+     * @return the size in bytes
+     */
+    private static long estimateSize(Clipboard clipboard) {
+        Region region = clipboard.getRegion();
+        return (long) region.getWidth() * region.getHeight() * region.getLength() * BYTES_PER_BLOCK;
+    }
+
+    /**
+     * The shared data of one clipboard.
+     */
+    static final class Entry {
+
+        private final String key;
+        private final Clipboard clipboard;
+        private final Vector origin;
+        private final long size;
+        private int references;
+
+        private Entry(String key, Clipboard clipboard, long size) {
+            this.key = key;
+            this.clipboard = clipboard;
+            this.origin = clipboard.getOrigin();
+            this.size = size;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        Clipboard getClipboard() {
+            return clipboard;
+        }
+    }
+
+}
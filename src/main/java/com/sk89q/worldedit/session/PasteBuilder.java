@@ -23,7 +23,9 @@ import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.transform.BlockTransformExtent;
 import com.sk89q.worldedit.function.mask.ExistingBlockMask;
+import com.sk89q.worldedit.function.operation.ClipboardPaste;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.InverseTransformCopy;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.math.transform.Transform;
 import com.sk89q.worldedit.world.registry.WorldData;
@@ -87,11 +89,37 @@ public class PasteBuilder {
      * @return the operation
      */
     public Operation build() {
+        if (ClipboardPaste.isSupported(transform, clipboard.getOrigin(), to)) {
+            ClipboardPaste paste = new ClipboardPaste(
+                clipboard,
+                transform,
+                targetWorldData.getBlockRegistry(),
+                targetWorldData.getBlockTransformHook(),
+                targetExtent,
+                to);
+            paste.setIgnoringAirBlocks(ignoreAirBlocks);
+            return paste;
+        }
+
         BlockTransformExtent extent = new BlockTransformExtent(
             clipboard,
             transform,
             targetWorldData.getBlockRegistry(),
             targetWorldData.getBlockTransformHook());
+        if (InverseTransformCopy.isResampled(transform)) {
+            InverseTransformCopy copy = new InverseTransformCopy(
+                extent,
+                clipboard.getRegion(),
+                clipboard.getOrigin(),
+                targetExtent,
+                to,
+                transform);
+            copy.setParallel(true);
+            if (ignoreAirBlocks) {
+                copy.setSourceMask(new ExistingBlockMask(clipboard));
+            }
+            return copy;
+        }
         ForwardExtentCopy copy = new ForwardExtentCopy(
             extent,
             clipboard.getRegion(),
@@ -268,13 +268,19 @@ public class SessionManager {
      */
     public synchronized void remove(SessionOwner owner) {
         checkNotNull(owner);
-        sessions.remove(getKey(owner));
+        SessionHolder holder = sessions.remove(getKey(owner));
+        if (holder != null) {
+            holder.session.setClipboard(null);
+        }
     }
 
     /**
      * Remove all sessions.
      */
     public synchronized void clear() {
+        for (SessionHolder holder : sessions.values()) {
+            holder.session.setClipboard(null);
+        }
         sessions.clear();
     }
 
@@ -328,6 +334,8 @@ public class SessionManager {
                                 saveQueue.put(stored.key, stored.session);
                             }
 
+                            // Let go of shared clipboard data
+                            stored.session.setClipboard(null);
                             it.remove();
                         }
                     }
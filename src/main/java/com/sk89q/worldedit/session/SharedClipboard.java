@@ -0,0 +1,175 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.session;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BaseBiome;
+
+/**
+ * A read-only view of clipboard data that is held by a
+ * {@link ClipboardStore} and may be shared with other sessions.
+ *
+ * <p>
+ * Each view has its own origin, but reads its blocks, biomes and entities
+ * from the shared data, which must not be modified. Once the view is no
+ * longer used, {@link #release()} must be called so that the store can
+ * evict the data.
+ * </p>
+ */
+public class SharedClipboard implements Clipboard {
+
+    private final ClipboardStore store;
+    private final ClipboardStore.Entry entry;
+    private final Clipboard clipboard;
+    private Vector origin;
+    private boolean released;
+
+    /**
+     * Create a new view.
+     *
+     * @param store  the store that holds the data
+     * @param entry  the entry of the data in the store
+     * @param origin the origin
+     */
+    SharedClipboard(ClipboardStore store, ClipboardStore.Entry entry, Vector origin) {
+        checkNotNull(store);
+        checkNotNull(entry);
+        checkNotNull(origin);
+        this.store = store;
+        this.entry = entry;
+        this.clipboard = entry.getClipboard();
+        this.origin = origin;
+    }
+
+    /**
+     * Get the key that the shared data is held under.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return entry.getKey();
+    }
+
+    /**
+     * Release this view's reference to the shared data.
+     *
+     * <p>
+     * Releasing a view more than once has no further effect.
+     * </p>
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            store.release(entry);
+        }
+    }
+
+    @Override
+    public Region getRegion() {
+        return clipboard.getRegion();
+    }
+
+    @Override
+    public Vector getDimensions() {
+        return clipboard.getDimensions();
+    }
+
+    @Override
+    public Vector getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void setOrigin(Vector origin) {
+        checkNotNull(origin);
+        this.origin = origin;
+    }
+
+    @Override
+    public Vector getMinimumPoint() {
+        return clipboard.getMinimumPoint();
+    }
+
+    @Override
+    public Vector getMaximumPoint() {
+        return clipboard.getMaximumPoint();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        return clipboard.getEntities(region);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return clipboard.getEntities();
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        return null;
+    }
+
+    @Override
+    public BaseBlock getBlock(Vector position) {
+        return clipboard.getBlock(position);
+    }
+
+    @Override
+    public BaseBlock getLazyBlock(Vector position) {
+        return clipboard.getLazyBlock(position);
+    }
+
+    @Override
+    public BaseBiome getBiome(Vector2D position) {
+        return clipboard.getBiome(position);
+    }
+
+    @Override
+    public boolean setBlock(Vector position, BaseBlock block) throws WorldEditException {
+        throw new UnsupportedOperationException("Shared clipboards cannot be modified");
+    }
+
+    @Override
+    public boolean setBiome(Vector2D position, BaseBiome biome) {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public Operation commit() {
+        return null;
+    }
+
+}
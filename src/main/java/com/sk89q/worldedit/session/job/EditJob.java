@@ -0,0 +1,221 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.session.job;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Supplier;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+
+/**
+ * An edit that is applied to the world over several server ticks by an
+ * {@link EditJobScheduler}.
+ *
+ * <p>
+ * A job usually carries the operation that commits the queued changes of
+ * an edit session to the world. A job can also be deferred: it then holds
+ * a step, typically a command that was issued while an earlier job of the
+ * same owner was still running, that is only run once the job reaches the
+ * front of its owner's queue and that produces the job to continue with.
+ * </p>
+ *
+ * <p>
+ * When a job that has started is cancelled, it is replaced by a rollback
+ * job that restores the blocks it has changed, under the same budget.
+ * </p>
+ */
+public class EditJob {
+
+    private final Actor owner;
+    private final String description;
+    @Nullable
+    private Supplier<EditJob> starter;
+    @Nullable
+    private EditSession editSession;
+    @Nullable
+    private Operation operation;
+    @Nullable
+    private Runnable completion;
+    private boolean rollback;
+
+    /**
+     * Create a new job that commits the changes of an edit session.
+     *
+     * @param owner       the owner of the job
+     * @param description a description of the job
+     * @param editSession the edit session whose changes are committed
+     * @param operation   the operation that commits the changes, or null if there is nothing to commit
+     * @param completion  a callback to run once the job completes, or null
+     */
+    public EditJob(Actor owner, String description, EditSession editSession, @Nullable Operation operation,
+        @Nullable Runnable completion) {
+        checkNotNull(owner);
+        checkNotNull(description);
+        checkNotNull(editSession);
+        this.owner = owner;
+        this.description = description;
+        this.editSession = editSession;
+        this.operation = operation;
+        this.completion = completion;
+    }
+
+    private EditJob(Actor owner, String description, Supplier<EditJob> starter) {
+        checkNotNull(owner);
+        checkNotNull(description);
+        checkNotNull(starter);
+        this.owner = owner;
+        this.description = description;
+        this.starter = starter;
+    }
+
+    /**
+     * Create a new job that runs the given step once it is its turn.
+     *
+     * @param owner       the owner of the job
+     * @param description a description of the job
+     * @param starter     the step, which returns the job to continue with or null if there is nothing left to do
+     * @return a new job
+     */
+    public static EditJob deferred(Actor owner, String description, Supplier<EditJob> starter) {
+        return new EditJob(owner, description, starter);
+    }
+
+    /**
+     * Get the owner of this job.
+     *
+     * @return the owner
+     */
+    public Actor getOwner() {
+        return owner;
+    }
+
+    /**
+     * Get the description of this job.
+     *
+     * @return the description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Run this job for as long as the run context allows.
+     *
+     * @param run the run context
+     * @return true if the job has completed
+     * @throws WorldEditException thrown by the operation
+     */
+    boolean resume(RunContext run) throws WorldEditException {
+        if (starter != null) {
+            EditJob started = starter.get();
+            starter = null;
+
+            if (started == null) {
+                return true;
+            }
+
+            editSession = started.editSession;
+            operation = started.operation;
+            completion = started.completion;
+        }
+
+        if (operation != null) {
+            operation = operation.resume(run);
+        }
+
+        if (operation == null) {
+            if (completion != null) {
+                completion.run();
+                completion = null;
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Return whether this job rolls back a cancelled job.
+     *
+     * @return true if this is a rollback
+     */
+    public boolean isRollback() {
+        return rollback;
+    }
+
+    /**
+     * Cancel this job and create a job that rolls back the changes that it
+     * has made.
+     *
+     * <p>
+     * Changes that are still queued are dropped, and only the blocks that
+     * have already been changed in the world are restored. The edit session
+     * is removed from the owner's history.
+     * </p>
+     *
+     * @param worldEdit the WorldEdit instance
+     * @return the job that rolls back the changes, or null if the job had not started
+     */
+    @Nullable
+    EditJob cancel(WorldEdit worldEdit) {
+        starter = null;
+        completion = null;
+
+        if (operation != null) {
+            operation.cancel();
+            operation = null;
+        }
+
+        if (editSession == null) {
+            return null;
+        }
+
+        LocalSession session = worldEdit.getSessionManager()
+            .get(owner);
+        session.forget(editSession);
+
+        EditSession rollbackSession;
+        if (owner instanceof Player) {
+            rollbackSession = worldEdit.getEditSessionFactory()
+                .getEditSession(editSession.getWorld(), -1, (Player) owner);
+        } else {
+            rollbackSession = worldEdit.getEditSessionFactory()
+                .getEditSession(editSession.getWorld(), -1);
+        }
+        rollbackSession.enableQueue();
+
+        EditJob job = new EditJob(
+            owner,
+            "rollback of " + description,
+            rollbackSession,
+            editSession.rollback(rollbackSession),
+            null);
+        job.rollback = true;
+        editSession = null;
+        return job;
+    }
+
+}
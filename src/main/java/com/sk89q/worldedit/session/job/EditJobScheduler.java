@@ -0,0 +1,230 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.session.job;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.function.operation.LimitedRunContext;
+
+/**
+ * Runs {@link EditJob}s over several server ticks.
+ *
+ * <p>
+ * Every owner has a queue of jobs of which only the first one runs. Each
+ * tick, a fixed budget of blocks is handed out round-robin across the
+ * owners with pending jobs, so that one large edit cannot monopolise the
+ * server tick nor starve the edits of other players.
+ * </p>
+ *
+ * <p>
+ * The budget and the maximum number of jobs per owner are taken from
+ * {@link LocalConfiguration#jobBlocksPerTick} and
+ * {@link LocalConfiguration#jobQueueDepth}. Jobs are disabled if the
+ * budget is not positive.
+ * </p>
+ */
+public class EditJobScheduler {
+
+    private static final Logger log = Logger.getLogger(EditJobScheduler.class.getCanonicalName());
+
+    private final WorldEdit worldEdit;
+    private final Map<UUID, Deque<EditJob>> queues = new LinkedHashMap<UUID, Deque<EditJob>>();
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param worldEdit the WorldEdit instance
+     */
+    public EditJobScheduler(WorldEdit worldEdit) {
+        checkNotNull(worldEdit);
+        this.worldEdit = worldEdit;
+    }
+
+    /**
+     * Return whether edits should be run as jobs.
+     *
+     * @return true if jobs are enabled
+     */
+    public boolean isEnabled() {
+        return worldEdit.getConfiguration().jobBlocksPerTick > 0;
+    }
+
+    /**
+     * Return whether the given owner has jobs that are queued or running.
+     *
+     * @param owner the owner
+     * @return true if the owner has jobs
+     */
+    public synchronized boolean hasJobs(Actor owner) {
+        return queues.containsKey(owner.getUniqueId());
+    }
+
+    /**
+     * Get the number of jobs that the given owner has queued or running.
+     *
+     * @param owner the owner
+     * @return the number of jobs
+     */
+    public synchronized int getJobCount(Actor owner) {
+        Deque<EditJob> queue = queues.get(owner.getUniqueId());
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Add a job to the end of its owner's queue.
+     *
+     * @param job the job
+     * @return false if the owner's queue is full
+     */
+    public synchronized boolean submit(EditJob job) {
+        checkNotNull(job);
+        UUID id = job.getOwner()
+            .getUniqueId();
+        Deque<EditJob> queue = queues.get(id);
+
+        if (queue == null) {
+            queue = new ArrayDeque<EditJob>();
+            queues.put(id, queue);
+        } else if (queue.size() >= Math.max(1, worldEdit.getConfiguration().jobQueueDepth)) {
+            return false;
+        }
+
+        queue.add(job);
+        return true;
+    }
+
+    /**
+     * Cancel all jobs of the given owner. The jobs that have started are
+     * replaced by jobs that roll back their changes, which cannot be
+     * cancelled themselves.
+     *
+     * @param owner the owner
+     * @return the number of jobs that were cancelled
+     */
+    public synchronized int cancel(Actor owner) {
+        Deque<EditJob> queue = queues.get(owner.getUniqueId());
+        if (queue == null) {
+            return 0;
+        }
+
+        Deque<EditJob> remaining = new ArrayDeque<EditJob>();
+        List<EditJob> rollbacks = new ArrayList<EditJob>();
+        int cancelled = 0;
+
+        // Roll back the newest job first
+        Iterator<EditJob> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            EditJob job = it.next();
+            if (job.isRollback()) {
+                remaining.addFirst(job);
+            } else {
+                EditJob rollback = job.cancel(worldEdit);
+                if (rollback != null) {
+                    rollbacks.add(rollback);
+                }
+                cancelled++;
+            }
+        }
+
+        remaining.addAll(rollbacks);
+        if (remaining.isEmpty()) {
+            queues.remove(owner.getUniqueId());
+        } else {
+            queues.put(owner.getUniqueId(), remaining);
+        }
+
+        return cancelled;
+    }
+
+    /**
+     * Run jobs for one server tick.
+     */
+    public synchronized void tick() {
+        int budget = worldEdit.getConfiguration().jobBlocksPerTick;
+        boolean progress = true;
+
+        while (budget > 0 && progress && !queues.isEmpty()) {
+            progress = false;
+            int share = Math.max(1, budget / queues.size());
+
+            for (UUID id : new ArrayList<UUID>(queues.keySet())) {
+                Deque<EditJob> queue = queues.get(id);
+                EditJob job = queue.peek();
+                LimitedRunContext run = new LimitedRunContext(Math.min(share, budget));
+                boolean complete;
+
+                try {
+                    complete = job.resume(run);
+                } catch (Throwable t) {
+                    log.log(Level.WARNING, "Failed to run the edit job '" + job.getDescription() + "'", t);
+                    job.getOwner()
+                        .printError("Your edit failed to complete: " + t.getMessage());
+                    complete = true;
+                }
+
+                int used = Math.min(share, budget) - run.getRemaining();
+                budget -= used;
+
+                if (complete) {
+                    queue.poll();
+                    if (queue.isEmpty()) {
+                        queues.remove(id);
+                    }
+                }
+
+                if (complete || used > 0) {
+                    progress = true;
+                }
+
+                if (budget <= 0) {
+                    break;
+                }
+            }
+
+            rotate();
+        }
+    }
+
+    /**
+     * Move the owner that went first to the end, so that every owner gets
+     * to go first in turn.
+     */
+    private void rotate() {
+        if (queues.size() > 1) {
+            Iterator<Map.Entry<UUID, Deque<EditJob>>> it = queues.entrySet()
+                .iterator();
+            Map.Entry<UUID, Deque<EditJob>> first = it.next();
+            it.remove();
+            queues.put(first.getKey(), first.getValue());
+        }
+    }
+
+}
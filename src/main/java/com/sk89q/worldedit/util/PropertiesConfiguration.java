@@ -102,10 +102,18 @@ public class PropertiesConfiguration extends LocalConfiguration {
         navigationWandMaxDistance = getInt("nav-wand-distance", navigationWandMaxDistance);
         navigationUseGlass = getBool("nav-use-glass", navigationUseGlass);
         scriptTimeout = getInt("scripting-timeout", scriptTimeout);
+        scriptOptimizationLevel = Math
+            .max(-1, Math.min(9, getInt("scripting-optimization-level", scriptOptimizationLevel)));
         saveDir = getString("schematic-save-dir", saveDir);
         scriptsDir = getString("craftscript-dir", scriptsDir);
         butcherDefaultRadius = getInt("butcher-default-radius", butcherDefaultRadius);
         butcherMaxRadius = getInt("butcher-max-radius", butcherMaxRadius);
+        jobBlocksPerTick = getInt("job-blocks-per-tick", jobBlocksPerTick);
+        jobQueueDepth = getInt("job-queue-depth", jobQueueDepth);
+        sharedClipboardBudget = getInt("shared-clipboard-budget", sharedClipboardBudget);
+        historyIndexRetention = getInt("history-index-retention", historyIndexRetention);
+        historyIndexLimit = getInt("history-index-limit", historyIndexLimit);
+        historyIndexMaxChanges = getInt("history-index-max-changes", historyIndexMaxChanges);
         allowSymlinks = getBool("allow-symbolic-links", allowSymlinks);
 
         LocalSession.MAX_HISTORY_SIZE = Math.max(15, getInt("history-size", 15));
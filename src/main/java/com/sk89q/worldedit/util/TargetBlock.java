@@ -20,15 +20,23 @@ import com.sk89q.worldedit.BlockWorldVector;
 import com.sk89q.worldedit.LocalPlayer;
 import com.sk89q.worldedit.LocalWorld;
 import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.VectorFace;
 import com.sk89q.worldedit.WorldVectorFace;
 import com.sk89q.worldedit.blocks.BlockID;
 import com.sk89q.worldedit.blocks.BlockType;
 import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.internal.LocalWorldAdapter;
 
 /**
- * This class uses an inefficient method to figure out what block a player
- * is looking towards.
+ * This class figures out what block a player is looking towards.
+ *
+ * <p>
+ * The ray is traced with an exact grid traversal (Amanatides and Woo), so
+ * every block the ray passes through is visited exactly once, thin blocks
+ * that the ray only clips are never skipped, and the face through which
+ * the ray entered the current block is known without tracing again.
+ * </p>
  *
  * <p>
  * Originally written by toi. It was ported to WorldEdit and trimmed down by
@@ -37,13 +45,20 @@ import com.sk89q.worldedit.internal.LocalWorldAdapter;
  */
 public class TargetBlock {
 
+    private static final int AXIS_X = 0;
+    private static final int AXIS_Y = 1;
+    private static final int AXIS_Z = 2;
+
     private LocalWorld world;
     private int maxDistance;
-    private double checkDistance, curDistance;
-    private Vector targetPos = new Vector();
-    private Vector targetPosDouble = new Vector();
-    private Vector prevPos = new Vector();
-    private Vector offset = new Vector();
+    private double curDistance;
+
+    private int x, y, z;
+    private int prevX, prevY, prevZ;
+    private int stepX, stepY, stepZ;
+    private double maxX, maxY, maxZ;
+    private double deltaX, deltaY, deltaZ;
+    private int lastAxis = -1;
 
     /**
      * Constructor requiring a player, uses default values
@@ -52,7 +67,7 @@ public class TargetBlock {
      */
     public TargetBlock(LocalPlayer player) {
         this.world = LocalWorldAdapter.adapt(player.getWorld());
-        this.setValues(player.getPosition(), player.getYaw(), player.getPitch(), 300, 1.65, 0.2);
+        this.setValues(player.getPosition(), player.getYaw(), player.getPitch(), 300, 1.65);
     }
 
     /**
@@ -60,7 +75,7 @@ public class TargetBlock {
      *
      * @param player        LocalPlayer to work with
      * @param maxDistance   how far it checks for blocks
-     * @param checkDistance how often to check for blocks, the smaller the more precise
+     * @param checkDistance ignored, as every block along the line of vision is checked
      */
     public TargetBlock(LocalPlayer player, int maxDistance, double checkDistance) {
         this((Player) player, maxDistance, checkDistance);
@@ -71,41 +86,69 @@ public class TargetBlock {
      *
      * @param player        LocalPlayer to work with
      * @param maxDistance   how far it checks for blocks
-     * @param checkDistance how often to check for blocks, the smaller the more precise
+     * @param checkDistance ignored, as every block along the line of vision is checked
      */
     public TargetBlock(Player player, int maxDistance, double checkDistance) {
         this.world = LocalWorldAdapter.adapt(player.getWorld());
-        this.setValues(player.getPosition(), player.getYaw(), player.getPitch(), maxDistance, 1.65, checkDistance);
+        this.setValues(player.getPosition(), player.getYaw(), player.getPitch(), maxDistance, 1.65);
     }
 
     /**
      * Set the values, all constructors uses this function
      *
-     * @param loc           location of the view
-     * @param xRotation     the X rotation
-     * @param yRotation     the Y rotation
-     * @param maxDistance   how far it checks for blocks
-     * @param viewHeight    where the view is positioned in y-axis
-     * @param checkDistance how often to check for blocks, the smaller the more precise
+     * @param loc         location of the view
+     * @param xRotation   the X rotation
+     * @param yRotation   the Y rotation
+     * @param maxDistance how far it checks for blocks
+     * @param viewHeight  where the view is positioned in y-axis
      */
-    private void setValues(Vector loc, double xRotation, double yRotation, int maxDistance, double viewHeight,
-        double checkDistance) {
+    private void setValues(Vector loc, double xRotation, double yRotation, int maxDistance, double viewHeight) {
         this.maxDistance = maxDistance;
-        this.checkDistance = checkDistance;
         this.curDistance = 0;
         xRotation = (xRotation + 90) % 360;
         yRotation = yRotation * -1;
 
-        double h = (checkDistance * Math.cos(Math.toRadians(yRotation)));
+        double h = Math.cos(Math.toRadians(yRotation));
+        double dirX = h * Math.cos(Math.toRadians(xRotation));
+        double dirY = Math.sin(Math.toRadians(yRotation));
+        double dirZ = h * Math.sin(Math.toRadians(xRotation));
+
+        double originX = loc.getX();
+        double originY = loc.getY() + viewHeight;
+        double originZ = loc.getZ();
 
-        offset = new Vector(
-            (h * Math.cos(Math.toRadians(xRotation))),
-            (checkDistance * Math.sin(Math.toRadians(yRotation))),
-            (h * Math.sin(Math.toRadians(xRotation))));
+        x = prevX = (int) Math.floor(originX);
+        y = prevY = (int) Math.floor(originY);
+        z = prevZ = (int) Math.floor(originZ);
 
-        targetPosDouble = loc.add(0, viewHeight, 0);
-        targetPos = targetPosDouble.toBlockPoint();
-        prevPos = targetPos;
+        stepX = (int) Math.signum(dirX);
+        stepY = (int) Math.signum(dirY);
+        stepZ = (int) Math.signum(dirZ);
+        deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dirX);
+        deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dirY);
+        deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dirZ);
+        maxX = getInitialMax(originX, x, stepX, deltaX);
+        maxY = getInitialMax(originY, y, stepY, deltaY);
+        maxZ = getInitialMax(originZ, z, stepZ, deltaZ);
+    }
+
+    /**
+     * Get the distance along the ray to the first boundary on one axis.
+     *
+     * @param origin the coordinate of the origin on the axis
+     * @param block  the block coordinate of the origin on the axis
+     * @param step   the direction of the ray on the axis
+     * @param delta  the distance along the ray to cross one block on the axis
+     * @return the distance to the first boundary
+     */
+    private static double getInitialMax(double origin, int block, int step, double delta) {
+        if (step > 0) {
+            return (block + 1 - origin) * delta;
+        } else if (step < 0) {
+            return (origin - block) * delta;
+        } else {
+            return Double.POSITIVE_INFINITY;
+        }
     }
 
     /**
@@ -140,7 +183,7 @@ public class TargetBlock {
      * @return Block
      */
     public BlockWorldVector getTargetBlock() {
-        while (getNextBlock() != null && world.getBlockType(getCurrentBlock()) == 0);
+        while (getNextBlock() != null && world.getBlockType(new Vector(x, y, z)) == 0);
         return getCurrentBlock();
     }
 
@@ -151,7 +194,19 @@ public class TargetBlock {
      * @return Block
      */
     public BlockWorldVector getSolidTargetBlock() {
-        while (getNextBlock() != null && BlockType.canPassThrough(world.getBlock(getCurrentBlock())));
+        while (getNextBlock() != null && BlockType.canPassThrough(world.getLazyBlock(new Vector(x, y, z))));
+        return getCurrentBlock();
+    }
+
+    /**
+     * Returns the first block at the sight that matches the given mask.
+     * Returns null if out of range or if no matching block was found.
+     *
+     * @param mask the mask that blocks must match to stop the trace
+     * @return Block
+     */
+    public BlockWorldVector getMaskedTargetBlock(Mask mask) {
+        while (getNextBlock() != null && !mask.test(new Vector(x, y, z)));
         return getCurrentBlock();
     }
 
@@ -161,21 +216,36 @@ public class TargetBlock {
      * @return next block position
      */
     public BlockWorldVector getNextBlock() {
-        prevPos = targetPos;
-        do {
-            curDistance += checkDistance;
+        if (curDistance > maxDistance) {
+            return null;
+        }
 
-            targetPosDouble = offset.add(targetPosDouble.getX(), targetPosDouble.getY(), targetPosDouble.getZ());
-            targetPos = targetPosDouble.toBlockPoint();
-        } while (curDistance <= maxDistance && targetPos.getBlockX() == prevPos.getBlockX()
-            && targetPos.getBlockY() == prevPos.getBlockY()
-            && targetPos.getBlockZ() == prevPos.getBlockZ());
+        prevX = x;
+        prevY = y;
+        prevZ = z;
+
+        if (maxX < maxY && maxX < maxZ) {
+            curDistance = maxX;
+            maxX += deltaX;
+            x += stepX;
+            lastAxis = AXIS_X;
+        } else if (maxY < maxZ) {
+            curDistance = maxY;
+            maxY += deltaY;
+            y += stepY;
+            lastAxis = AXIS_Y;
+        } else {
+            curDistance = maxZ;
+            maxZ += deltaZ;
+            z += stepZ;
+            lastAxis = AXIS_Z;
+        }
 
         if (curDistance > maxDistance) {
             return null;
         }
 
-        return new BlockWorldVector(world, targetPos);
+        return new BlockWorldVector(world, x, y, z);
     }
 
     /**
@@ -187,7 +257,7 @@ public class TargetBlock {
         if (curDistance > maxDistance) {
             return null;
         } else {
-            return new BlockWorldVector(world, targetPos);
+            return new BlockWorldVector(world, x, y, z);
         }
     }
 
@@ -197,17 +267,45 @@ public class TargetBlock {
      * @return block position
      */
     public BlockWorldVector getPreviousBlock() {
-        return new BlockWorldVector(world, prevPos);
+        return new BlockWorldVector(world, prevX, prevY, prevZ);
+    }
+
+    /**
+     * Get the face of the current block through which the line of vision
+     * entered it, as the direction from the previous block to the current
+     * one. Returns null if no block has been visited yet.
+     *
+     * @return the face
+     */
+    public VectorFace getHitFace() {
+        switch (lastAxis) {
+            case AXIS_X:
+                return VectorFace.fromMods(stepX, 0, 0);
+            case AXIS_Y:
+                return VectorFace.fromMods(0, stepY, 0);
+            case AXIS_Z:
+                return VectorFace.fromMods(0, 0, stepZ);
+            default:
+                return null;
+        }
     }
 
     public WorldVectorFace getAnyTargetBlockFace() {
         getAnyTargetBlock();
-        return WorldVectorFace.getWorldVectorFace(world, getCurrentBlock(), getPreviousBlock());
+        return getCurrentBlockFace();
     }
 
     public WorldVectorFace getTargetBlockFace() {
         getAnyTargetBlock();
-        return WorldVectorFace.getWorldVectorFace(world, getCurrentBlock(), getPreviousBlock());
+        return getCurrentBlockFace();
+    }
+
+    private WorldVectorFace getCurrentBlockFace() {
+        VectorFace face = getHitFace();
+        if (curDistance > maxDistance || face == null) {
+            return null;
+        }
+        return new WorldVectorFace(world, x, y, z, face);
     }
 
 }
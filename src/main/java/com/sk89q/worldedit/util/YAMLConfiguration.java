@@ -92,13 +92,23 @@ public class YAMLConfiguration extends LocalConfiguration {
         navigationUseGlass = config.getBoolean("navigation.use-glass", navigationUseGlass);
 
         scriptTimeout = config.getInt("scripting.timeout", scriptTimeout);
+        scriptOptimizationLevel = Math
+            .max(-1, Math.min(9, config.getInt("scripting.optimization-level", scriptOptimizationLevel)));
         scriptsDir = config.getString("scripting.dir", scriptsDir);
 
         saveDir = config.getString("saving.dir", saveDir);
 
+        jobBlocksPerTick = config.getInt("jobs.blocks-per-tick", jobBlocksPerTick);
+        jobQueueDepth = config.getInt("jobs.queue-depth", jobQueueDepth);
+
+        sharedClipboardBudget = config.getInt("clipboard.shared-budget", sharedClipboardBudget);
+
         allowSymlinks = config.getBoolean("files.allow-symbolic-links", false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, config.getInt("history.size", 15));
         SessionManager.EXPIRATION_GRACE = config.getInt("history.expiration", 10) * 60 * 1000;
+        historyIndexRetention = config.getInt("history.index-retention", historyIndexRetention);
+        historyIndexLimit = config.getInt("history.index-limit", historyIndexLimit);
+        historyIndexMaxChanges = config.getInt("history.index-max-changes", historyIndexMaxChanges);
 
         showHelpInfo = config.getBoolean("show-help-on-first-use", true);
 
@@ -0,0 +1,111 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A first-in, first-out queue of primitive {@code long} values backed by a
+ * growable ring buffer.
+ */
+public class LongArrayQueue {
+
+    private long[] elements = new long[256];
+    private int head;
+    private int size;
+
+    /**
+     * Add a value to the end of the queue.
+     *
+     * @param value the value
+     */
+    public void add(long value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Remove the value at the front of the queue.
+     *
+     * @return the value
+     * @throws NoSuchElementException thrown if the queue is empty
+     */
+    public long remove() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Remove every value from the queue and return them in order.
+     *
+     * @return the values
+     */
+    public long[] drain() {
+        long[] values = new long[size];
+        int first = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, values, 0, first);
+        System.arraycopy(elements, 0, values, first, size - first);
+        head = 0;
+        size = 0;
+        return values;
+    }
+
+    /**
+     * Test whether the queue is empty.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the number of values in the queue.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the approximate number of bytes used by the queue.
+     *
+     * @return the memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        return (long) elements.length * 8;
+    }
+
+    private void grow() {
+        long[] grown = new long[elements.length << 1];
+        int first = elements.length - head;
+        System.arraycopy(elements, head, grown, 0, first);
+        System.arraycopy(elements, 0, grown, first, head);
+        elements = grown;
+        head = 0;
+    }
+
+}
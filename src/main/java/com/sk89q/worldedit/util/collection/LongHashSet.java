@@ -0,0 +1,169 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive {@code long} values backed by an open-addressed hash
+ * table.
+ *
+ * <p>
+ * Unlike a {@code HashSet<Long>}, no object is allocated per value, which
+ * makes this set suitable for tracking millions of packed block positions.
+ * </p>
+ */
+public class LongHashSet {
+
+    private static final long FREE = 0;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsFree;
+
+    /**
+     * Create a new set.
+     */
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new set with room for the given number of values before it
+     * has to grow.
+     *
+     * @param expectedSize the expected number of values
+     */
+    public LongHashSet(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize >= 0 required");
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 15)) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /**
+     * Add a value to the set.
+     *
+     * @param value the value
+     * @return true if the value was not already in the set
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+
+        long[] table = this.table;
+        int index = hash(value) & mask;
+        long current;
+        while ((current = table[index]) != FREE) {
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        table[index] = value;
+        if (++size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Test whether the set contains a value.
+     *
+     * @param value the value
+     * @return true if the value is in the set
+     */
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+
+        long[] table = this.table;
+        int index = hash(value) & mask;
+        long current;
+        while ((current = table[index]) != FREE) {
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of values in the set.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all values from the set, keeping the allocated table.
+     */
+    public void clear() {
+        Arrays.fill(table, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    /**
+     * Get the approximate number of bytes used by the set.
+     *
+     * @return the memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        return (long) table.length * 8;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldTable = table;
+        long[] newTable = new long[capacity];
+        int newMask = capacity - 1;
+
+        for (long value : oldTable) {
+            if (value != FREE) {
+                int index = hash(value) & newMask;
+                while (newTable[index] != FREE) {
+                    index = (index + 1) & newMask;
+                }
+                newTable[index] = value;
+            }
+        }
+
+        table = newTable;
+        mask = newMask;
+    }
+
+}
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,15 +49,21 @@ import com.sk89q.worldedit.internal.annotation.RequiresNewerGuava;
  * </p>
  *
  * <p>
- * This implementation utilizes naive synchronization on all getter and
- * setter methods. Dispatch does not occur when a lock has been acquired,
- * however.
+ * Registration is synchronized. Posting takes no lock: the handlers for
+ * each event class, including those subscribed to its supertypes, are
+ * flattened and sorted by priority once, and kept in an immutable dispatch
+ * table that is replaced rather than modified whenever a handler is
+ * subscribed or unsubscribed.
  * </p>
  */
 public class EventBus {
 
+    private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+
     private final Logger logger = Logger.getLogger(EventBus.class.getCanonicalName());
 
+    private volatile Map<Class<?>, EventHandler[]> dispatchTable = Collections.emptyMap();
+
     private final SetMultimap<Class<?>, EventHandler> handlersByType = Multimaps
         .newSetMultimap(new HashMap<Class<?>, Collection<EventHandler>>(), new Supplier<Set<EventHandler>>() {
 
@@ -86,6 +93,7 @@ public class EventBus {
         checkNotNull(clazz);
         checkNotNull(handler);
         handlersByType.put(clazz, handler);
+        dispatchTable = Collections.emptyMap();
     }
 
     /**
@@ -96,6 +104,7 @@ public class EventBus {
     public synchronized void subscribeAll(Multimap<Class<?>, EventHandler> handlers) {
         checkNotNull(handlers);
         handlersByType.putAll(handlers);
+        dispatchTable = Collections.emptyMap();
     }
 
     /**
@@ -108,6 +117,7 @@ public class EventBus {
         checkNotNull(clazz);
         checkNotNull(handler);
         handlersByType.remove(clazz, handler);
+        dispatchTable = Collections.emptyMap();
     }
 
     /**
@@ -120,12 +130,12 @@ public class EventBus {
         for (Map.Entry<Class<?>, Collection<EventHandler>> entry : handlers.asMap()
             .entrySet()) {
             Set<EventHandler> currentHandlers = getHandlersForEventType(entry.getKey());
-            Collection<EventHandler> eventMethodsInListener = entry.getValue();
 
-            if (currentHandlers != null && !currentHandlers.containsAll(entry.getValue())) {
-                currentHandlers.removeAll(eventMethodsInListener);
+            if (currentHandlers != null) {
+                currentHandlers.removeAll(entry.getValue());
             }
         }
+        dispatchTable = Collections.emptyMap();
     }
 
     /**
@@ -163,25 +173,49 @@ public class EventBus {
      * @param event event to post.
      */
     public void post(Object event) {
-        List<EventHandler> dispatching = new ArrayList<EventHandler>();
+        Class<?> eventClass = event.getClass();
+        EventHandler[] dispatching = dispatchTable.get(eventClass);
 
-        synchronized (this) {
-            Set<Class<?>> dispatchTypes = flattenHierarchy(event.getClass());
+        if (dispatching == null) {
+            dispatching = buildDispatchEntry(eventClass);
+        }
 
-            for (Class<?> eventType : dispatchTypes) {
-                Set<EventHandler> wrappers = getHandlersForEventType(eventType);
+        for (EventHandler handler : dispatching) {
+            dispatch(event, handler);
+        }
+    }
 
-                if (wrappers != null && !wrappers.isEmpty()) {
-                    dispatching.addAll(wrappers);
-                }
-            }
+    /**
+     * Collect the handlers for an event class, sorted by priority, and add
+     * them to a copy of the dispatch table.
+     *
+     * @param eventClass the class of the event
+     * @return the handlers to dispatch to
+     */
+    private synchronized EventHandler[] buildDispatchEntry(Class<?> eventClass) {
+        Map<Class<?>, EventHandler[]> table = dispatchTable;
+        EventHandler[] dispatching = table.get(eventClass);
+        if (dispatching != null) {
+            return dispatching;
         }
 
-        Collections.sort(dispatching);
+        List<EventHandler> handlers = new ArrayList<EventHandler>();
+        for (Class<?> eventType : flattenHierarchy(eventClass)) {
+            Set<EventHandler> wrappers = getHandlersForEventType(eventType);
 
-        for (EventHandler handler : dispatching) {
-            dispatch(event, handler);
+            if (wrappers != null && !wrappers.isEmpty()) {
+                handlers.addAll(wrappers);
+            }
         }
+
+        Collections.sort(handlers);
+        dispatching = handlers.isEmpty() ? NO_HANDLERS : handlers.toArray(new EventHandler[handlers.size()]);
+
+        Map<Class<?>, EventHandler[]> copy = new IdentityHashMap<Class<?>, EventHandler[]>(table);
+        copy.put(eventClass, dispatching);
+        dispatchTable = copy;
+
+        return dispatching;
     }
 
     /**
@@ -231,7 +265,7 @@ public class EventBus {
      * @param concreteClass class whose type hierarchy will be retrieved.
      * @return {@code clazz}'s complete type hierarchy, flattened and uniqued.
      */
-    Set<Class<?>> flattenHierarchy(Class<?> concreteClass) {
+    synchronized Set<Class<?>> flattenHierarchy(Class<?> concreteClass) {
         return flattenHierarchyCache.get(concreteClass);
     }
 
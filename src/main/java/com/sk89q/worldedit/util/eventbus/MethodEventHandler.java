@@ -18,15 +18,28 @@ package com.sk89q.worldedit.util.eventbus;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 /**
  * Invokes a {@link Method} to dispatch an event.
+ *
+ * <p>
+ * The method is resolved to a {@link MethodHandle} bound to the object
+ * once, so dispatching does not go through reflection.
+ * </p>
  */
 public class MethodEventHandler extends EventHandler {
 
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(void.class, Object.class);
+
     private final Object object;
     private final Method method;
+    private final MethodHandle handle;
 
     /**
      * Create a new event handler.
@@ -39,6 +52,17 @@ public class MethodEventHandler extends EventHandler {
         checkNotNull(method);
         this.object = object;
         this.method = method;
+
+        try {
+            MethodHandle handle = MethodHandles.lookup()
+                .unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(object);
+            }
+            this.handle = handle.asType(DISPATCH_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can't access " + method, e);
+        }
     }
 
     /**
@@ -52,7 +76,13 @@ public class MethodEventHandler extends EventHandler {
 
     @Override
     public void dispatch(Object event) throws Exception {
-        method.invoke(object, event);
+        try {
+            handle.invokeExact(event);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
     }
 
     @Override
@@ -0,0 +1,451 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.io;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import javax.annotation.Nullable;
+
+/**
+ * A read-only index of the entries of a ZIP file.
+ *
+ * <p>
+ * The central directory at the end of the file is parsed once when the index
+ * is opened, so looking up an entry never scans the archive. Entries can be
+ * streamed concurrently, each reading only its own compressed bytes with
+ * positional reads. Deflated entries are decompressed with {@link Inflater}s
+ * that are borrowed from a shared pool and returned when the stream is
+ * closed. ZIP64 archives are supported.
+ * </p>
+ *
+ * <p>
+ * Entry names are normalized to use forward slashes.
+ * </p>
+ */
+public final class ZipIndex implements Closeable {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_SIZE = 46;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_SIZE = 30;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int MAX_COMMENT = 0xFFFF;
+    private static final long MAGIC_32 = 0xFFFFFFFFL;
+    private static final int MAGIC_16 = 0xFFFF;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int FLAG_ENCRYPTED = 1;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int INFLATER_POOL_SIZE = 8;
+    private static final Deque<Inflater> inflaters = new ArrayDeque<Inflater>();
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Open the given file and read its central directory.
+     *
+     * @param file the ZIP file
+     * @throws IOException thrown if the file cannot be read or is not a ZIP file
+     */
+    public ZipIndex(File file) throws IOException {
+        checkNotNull(file);
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        try {
+            this.entries = Collections.unmodifiableMap(readCentralDirectory());
+        } catch (IOException | RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get an entry by name.
+     *
+     * @param name the name, using either type of slashes
+     * @return the entry, or null if there is no such entry
+     */
+    @Nullable
+    public Entry getEntry(String name) {
+        return entries.get(name.replace('\\', '/'));
+    }
+
+    /**
+     * Get all entries, in the order of the central directory.
+     *
+     * @return the entries
+     */
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * Open a stream of the uncompressed data of an entry.
+     *
+     * <p>
+     * The stream must be closed to return its inflater to the pool.
+     * </p>
+     *
+     * @param entry the entry
+     * @return a stream
+     * @throws IOException thrown if the entry cannot be read
+     */
+    public InputStream getInputStream(Entry entry) throws IOException {
+        checkNotNull(entry);
+        if (entry.encrypted) {
+            throw new ZipException("Encrypted ZIP entries are not supported: " + entry.name);
+        }
+
+        ByteBuffer header = read(entry.localHeaderOffset, LOCAL_SIZE);
+        if (header.getInt(0) != LOCAL_SIGNATURE) {
+            throw new ZipException("Bad local header for " + entry.name);
+        }
+        long dataOffset = entry.localHeaderOffset + LOCAL_SIZE
+            + (header.getShort(26) & 0xFFFF)
+            + (header.getShort(28) & 0xFFFF);
+        InputStream raw = new RangeInputStream(dataOffset, entry.compressedSize);
+
+        switch (entry.method) {
+            case METHOD_STORED:
+                return raw;
+            case METHOD_DEFLATED:
+                return new PooledInflaterInputStream(raw, acquireInflater());
+            default:
+                throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private Map<String, Entry> readCentralDirectory() throws IOException {
+        long length = channel.size();
+        if (length < EOCD_SIZE) {
+            throw new ZipException("Not a ZIP file");
+        }
+
+        // The end of central directory record is followed by a comment of up to 64 KiB
+        int tailSize = (int) Math.min(length, EOCD_SIZE + MAX_COMMENT);
+        long tailOffset = length - tailSize;
+        ByteBuffer tail = read(tailOffset, tailSize);
+        int eocd = -1;
+        for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new ZipException("Missing end of central directory");
+        }
+
+        long count = tail.getShort(eocd + 10) & 0xFFFF;
+        long directorySize = tail.getInt(eocd + 12) & MAGIC_32;
+        long directoryOffset = tail.getInt(eocd + 16) & MAGIC_32;
+
+        if (count == MAGIC_16 || directorySize == MAGIC_32 || directoryOffset == MAGIC_32) {
+            long locatorOffset = tailOffset + eocd - ZIP64_LOCATOR_SIZE;
+            if (locatorOffset >= 0) {
+                ByteBuffer locator = read(locatorOffset, ZIP64_LOCATOR_SIZE);
+                if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+                    ByteBuffer record = read(locator.getLong(8), 56);
+                    if (record.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                        throw new ZipException("Bad ZIP64 end of central directory");
+                    }
+                    count = record.getLong(32);
+                    directorySize = record.getLong(40);
+                    directoryOffset = record.getLong(48);
+                }
+            }
+        }
+
+        if (directorySize > Integer.MAX_VALUE || directoryOffset + directorySize > length) {
+            throw new ZipException("Bad central directory size");
+        }
+
+        ByteBuffer directory = read(directoryOffset, (int) directorySize);
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        int position = 0;
+        for (long i = 0; i < count; i++) {
+            if (position + CENTRAL_SIZE > directory.limit() || directory.getInt(position) != CENTRAL_SIGNATURE) {
+                throw new ZipException("Bad central directory entry");
+            }
+            int flags = directory.getShort(position + 8) & 0xFFFF;
+            int method = directory.getShort(position + 10) & 0xFFFF;
+            long compressedSize = directory.getInt(position + 20) & MAGIC_32;
+            long size = directory.getInt(position + 24) & MAGIC_32;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & MAGIC_32;
+
+            byte[] nameBytes = new byte[nameLength];
+            directory.position(position + CENTRAL_SIZE);
+            directory.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8).replace('\\', '/');
+
+            // Sizes and offsets that do not fit in 32 bits are stored in the ZIP64 extra field, in this order
+            int extra = position + CENTRAL_SIZE + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = directory.getShort(extra) & 0xFFFF;
+                int dataLength = directory.getShort(extra + 2) & 0xFFFF;
+                if (id == ZIP64_EXTRA_ID) {
+                    int field = extra + 4;
+                    if (size == MAGIC_32) {
+                        size = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == MAGIC_32) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == MAGIC_32) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + dataLength;
+            }
+
+            entries.put(
+                name,
+                new Entry(
+                    name,
+                    method,
+                    (flags & FLAG_ENCRYPTED) != 0,
+                    compressedSize,
+                    size,
+                    localHeaderOffset));
+            position = extraEnd + commentLength;
+        }
+        return entries;
+    }
+
+    /**
+     * Read a range of the file with a positional read.
+     *
+     * @param offset the offset in the file
+     * @param length the number of bytes
+     * @return a little-endian buffer of exactly the given length
+     * @throws IOException thrown if the range cannot be read in full
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of ZIP file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Inflater acquireInflater() {
+        synchronized (inflaters) {
+            Inflater inflater = inflaters.poll();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater(true);
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        synchronized (inflaters) {
+            if (inflaters.size() < INFLATER_POOL_SIZE) {
+                inflaters.push(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * An entry of the central directory.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final int method;
+        private final boolean encrypted;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        private Entry(String name, int method, boolean encrypted, long compressedSize, long size,
+            long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.encrypted = encrypted;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        /**
+         * Get the name of the entry, using forward slashes.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the uncompressed size of the entry.
+         *
+         * @return the size in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Return whether the entry is a directory.
+         *
+         * @return true if a directory
+         */
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Reads a range of the file with positional reads, so that several
+     * streams can read the same file at once.
+     */
+    private final class RangeInputStream extends InputStream {
+
+        private long position;
+        private final long end;
+
+        private RangeInputStream(long offset, long length) {
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, count), position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of ZIP file");
+            }
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+
+    /**
+     * Inflates raw deflate data with a pooled inflater.
+     */
+    private static final class PooledInflaterInputStream extends InflaterInputStream {
+
+        private boolean padded = false;
+        private boolean released = false;
+
+        private PooledInflaterInputStream(InputStream in, Inflater inflater) {
+            super(in, inflater, BUFFER_SIZE);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                // Raw deflate data may need one extra byte to finish
+                if (padded) {
+                    throw new EOFException("Unexpected end of ZIP entry");
+                }
+                padded = true;
+                len = 1;
+                buf[0] = 0;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                released = true;
+                super.close();
+                releaseInflater(inf);
+            }
+        }
+    }
+
+}
@@ -16,14 +16,17 @@
 
 package com.sk89q.worldedit.world;
 
+import java.util.Map;
 import java.util.PriorityQueue;
 
 import javax.annotation.Nullable;
 
+import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.BlockVector2D;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BaseItem;
@@ -34,8 +37,10 @@ import com.sk89q.worldedit.extension.platform.Platform;
 import com.sk89q.worldedit.function.mask.BlockMask;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.TreeGenerator.TreeType;
+import com.sk89q.worldedit.world.chunk.ChunkHasher;
 
 /**
  * An abstract implementation of {@link World}.
@@ -144,6 +149,66 @@ public abstract class AbstractWorld implements World {
         }
     }
 
+    @Override
+    public BlockHistogram getBlockHistogram(Region region) {
+        BlockHistogram histogram = new BlockHistogram();
+        for (BlockVector pt : region) {
+            BaseBlock block = getLazyBlock(pt);
+            histogram.add(block.getType(), block.getData());
+        }
+        return histogram;
+    }
+
+    @Override
+    public int[] getHighestTerrainBlocks(Region region, boolean naturalOnly) {
+        Vector min = region.getMinimumPoint();
+        Vector max = region.getMaximumPoint();
+        int minX = min.getBlockX();
+        int minY = min.getBlockY();
+        int minZ = min.getBlockZ();
+        int maxY = max.getBlockY();
+        int width = region.getWidth();
+        int length = region.getLength();
+
+        int[] heights = new int[width * length];
+        for (int z = 0; z < length; ++z) {
+            for (int x = 0; x < width; ++x) {
+                int height = minY;
+                for (int y = maxY; y >= minY; --y) {
+                    BaseBlock block = getLazyBlock(new Vector(minX + x, y, minZ + z));
+                    int id = block.getType();
+                    int data = block.getData();
+                    if (naturalOnly ? BlockType.isNaturalTerrainBlock(id, data) : !BlockType.canPassThrough(id, data)) {
+                        height = y;
+                        break;
+                    }
+                }
+                heights[z * width + x] = height;
+            }
+        }
+        return heights;
+    }
+
+    @Override
+    public long getChunkContentHash(Vector2D position) {
+        ChunkHasher hasher = new ChunkHasher();
+        int baseX = position.getBlockX() << 4;
+        int baseZ = position.getBlockZ() << 4;
+        int maxY = Math.min(getMaxY(), ChunkHasher.HEIGHT - 1);
+        for (int y = 0; y <= maxY; ++y) {
+            for (int z = 0; z < 16; ++z) {
+                for (int x = 0; x < 16; ++x) {
+                    BaseBlock block = getLazyBlock(new Vector(baseX + x, y, baseZ + z));
+                    hasher.setBlock(x, y, z, block.getType(), block.getData());
+                    if (block.hasNbtData()) {
+                        hasher.addTileEntity(block.getNbtData());
+                    }
+                }
+            }
+        }
+        return hasher.hash();
+    }
+
     @Override
     public boolean generateTree(EditSession editSession, Vector pt) throws MaxChangedBlocksException {
         return generateTree(TreeType.TREE, editSession, pt);
@@ -172,9 +237,28 @@ public abstract class AbstractWorld implements World {
     @Override
     public void checkLoadedChunk(Vector pt) {}
 
+    @Override
+    public boolean isChunkLoaded(Vector2D position) {
+        return true;
+    }
+
+    @Override
+    public void prefetchChunk(Vector2D position) {}
+
     @Override
     public void fixAfterFastMode(Iterable<BlockVector2D> chunks) {}
 
+    @Override
+    public int setTileEntities(Map<BlockVector, BaseBlock> blocks) throws WorldEditException {
+        int count = 0;
+        for (Map.Entry<BlockVector, BaseBlock> entry : blocks.entrySet()) {
+            if (setBlock(entry.getKey(), entry.getValue(), false)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
     @Override
     public void fixLighting(Iterable<BlockVector2D> chunks) {}
 
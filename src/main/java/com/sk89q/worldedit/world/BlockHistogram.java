@@ -0,0 +1,171 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.util.Countable;
+
+/**
+ * Counts blocks by type and data value in a flat primitive array indexed by
+ * {@code (id << 4) | data}.
+ *
+ * <p>
+ * Instances are not thread safe. When counting in parallel, give each
+ * thread its own histogram and combine them at the end with
+ * {@link #addAll(BlockHistogram)}.
+ * </p>
+ */
+public class BlockHistogram {
+
+    private static final int DATA_VALUES = BaseBlock.MAX_DATA + 1;
+
+    /**
+     * The number of entries in a histogram.
+     */
+    public static final int SIZE = (BaseBlock.MAX_ID + 1) * DATA_VALUES;
+
+    private final int[] counts = new int[SIZE];
+
+    /**
+     * Count one block.
+     *
+     * @param id   the type ID
+     * @param data the data value
+     */
+    public void add(int id, int data) {
+        counts[id << 4 | data]++;
+    }
+
+    /**
+     * Count a number of blocks of the same type and data value.
+     *
+     * @param id     the type ID
+     * @param data   the data value
+     * @param amount the number of blocks
+     */
+    public void add(int id, int data, int amount) {
+        counts[id << 4 | data] += amount;
+    }
+
+    /**
+     * Add the counts of another histogram to this one.
+     *
+     * @param other the other histogram
+     */
+    public void addAll(BlockHistogram other) {
+        checkNotNull(other);
+        int[] otherCounts = other.counts;
+        for (int i = 0; i < SIZE; i++) {
+            counts[i] += otherCounts[i];
+        }
+    }
+
+    /**
+     * Get the number of blocks counted with the given type and data value.
+     *
+     * @param id   the type ID
+     * @param data the data value
+     * @return the count
+     */
+    public int getCount(int id, int data) {
+        return counts[id << 4 | data];
+    }
+
+    /**
+     * Get the number of blocks counted with the given type, regardless
+     * of the data value.
+     *
+     * @param id the type ID
+     * @return the count
+     */
+    public int getCount(int id) {
+        int total = 0;
+        int offset = id << 4;
+        for (int i = 0; i < DATA_VALUES; i++) {
+            total += counts[offset + i];
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of blocks that match any of the given blocks, where a
+     * block with a data value of -1 matches every data value of its type.
+     *
+     * @param blocks the blocks to match
+     * @return the count
+     */
+    public int getCount(Collection<BaseBlock> blocks) {
+        checkNotNull(blocks);
+        boolean[] matched = new boolean[SIZE];
+        int total = 0;
+        for (BaseBlock block : blocks) {
+            int offset = block.getType() << 4;
+            int from = block.hasWildcardData() ? 0 : block.getData();
+            int to = block.hasWildcardData() ? BaseBlock.MAX_DATA : block.getData();
+            for (int data = from; data <= to; data++) {
+                if (!matched[offset + data]) {
+                    matched[offset + data] = true;
+                    total += counts[offset + data];
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the distribution of block types, sorted by ascending count.
+     *
+     * @return a list of counts
+     */
+    public List<Countable<Integer>> getDistribution() {
+        List<Countable<Integer>> distribution = new ArrayList<Countable<Integer>>();
+        for (int id = 0; id <= BaseBlock.MAX_ID; id++) {
+            int count = getCount(id);
+            if (count > 0) {
+                distribution.add(new Countable<Integer>(id, count));
+            }
+        }
+        Collections.sort(distribution);
+        return distribution;
+    }
+
+    /**
+     * Get the distribution of block types and data values, sorted by
+     * ascending count.
+     *
+     * @return a list of counts
+     */
+    public List<Countable<BaseBlock>> getDistributionWithData() {
+        List<Countable<BaseBlock>> distribution = new ArrayList<Countable<BaseBlock>>();
+        for (int i = 0; i < SIZE; i++) {
+            if (counts[i] > 0) {
+                distribution.add(new Countable<BaseBlock>(new BaseBlock(i >> 4, i & BaseBlock.MAX_DATA), counts[i]));
+            }
+        }
+        Collections.sort(distribution);
+        return distribution;
+    }
+
+}
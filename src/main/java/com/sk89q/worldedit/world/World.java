@@ -16,10 +16,14 @@
 
 package com.sk89q.worldedit.world;
 
+import java.util.Map;
+
+import com.sk89q.worldedit.BlockVector;
 import com.sk89q.worldedit.BlockVector2D;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.blocks.BaseItem;
@@ -194,6 +198,52 @@ public interface World extends Extent {
      */
     boolean regenerate(Region region, EditSession editSession);
 
+    /**
+     * Count the blocks in a region by type and data value.
+     *
+     * <p>
+     * Implementations may read chunk data directly and count in parallel,
+     * so this should be preferred over reading every block of the region.
+     * </p>
+     *
+     * @param region the region
+     * @return a histogram of the blocks in the region
+     */
+    BlockHistogram getBlockHistogram(Region region);
+
+    /**
+     * Find the highest terrain block of every column of a region.
+     *
+     * <p>
+     * The heights are returned for the bounding box of the region, indexed by
+     * {@code (z - minZ) * width + (x - minX)}. A column that has no terrain
+     * block between the minimum and maximum Y of the region has the minimum
+     * Y as its height. Implementations may read chunk data directly, so this
+     * should be preferred over probing every column block by block.
+     * </p>
+     *
+     * @param region      the region
+     * @param naturalOnly look at natural blocks or all blocks
+     * @return the height of each column
+     * @see EditSession#getHighestTerrainBlock(int, int, int, int, boolean)
+     */
+    int[] getHighestTerrainBlocks(Region region, boolean naturalOnly);
+
+    /**
+     * Get a hash of the blocks and tile entities of a chunk.
+     *
+     * <p>
+     * The hash is computed with a {@link com.sk89q.worldedit.world.chunk.ChunkHasher},
+     * so it can be compared with the hash of a chunk read from a snapshot to
+     * find out whether the chunk has changed since. Implementations may read
+     * chunk data directly.
+     * </p>
+     *
+     * @param position the position of the chunk, in chunk coordinates
+     * @return the hash
+     */
+    long getChunkContentHash(Vector2D position);
+
     /**
      * Generate a tree at the given position.
      *
@@ -243,6 +293,28 @@ public interface World extends Extent {
      */
     void checkLoadedChunk(Vector position);
 
+    /**
+     * Return whether the chunk at the given chunk position is loaded.
+     *
+     * @param position the chunk position
+     * @return true if the chunk is loaded
+     */
+    boolean isChunkLoaded(Vector2D position);
+
+    /**
+     * Start loading the chunk at the given chunk position in the background
+     * if it is not loaded.
+     *
+     * <p>
+     * Only chunks that exist in storage should be read, so that chunks that
+     * have to be generated are left until they are actually accessed. This
+     * method may do nothing.
+     * </p>
+     *
+     * @param position the chunk position
+     */
+    void prefetchChunk(Vector2D position);
+
     /**
      * Fix the given chunks after fast mode was used.
      *
@@ -258,6 +330,22 @@ public interface World extends Extent {
      */
     void fixAfterFastMode(Iterable<BlockVector2D> chunks);
 
+    /**
+     * Create the tile entities of blocks that have already been set without
+     * their NBT data.
+     *
+     * <p>
+     * Implementations may check that each block is still in place and
+     * create the tile entities in bulk, leaving it to the world to send them
+     * to players with its regular block updates.
+     * </p>
+     *
+     * @param blocks the blocks, including their NBT data, by position
+     * @return the number of tile entities that were created
+     * @throws WorldEditException thrown on a set error
+     */
+    int setTileEntities(Map<BlockVector, BaseBlock> blocks) throws WorldEditException;
+
     /**
      * Relight the given chunks if possible.
      *
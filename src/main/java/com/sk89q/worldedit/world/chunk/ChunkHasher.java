@@ -0,0 +1,218 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.world.chunk;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.sk89q.jnbt.ByteArrayTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntArrayTag;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTUtils;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.world.DataException;
+
+/**
+ * Computes a hash of the content of a 16 by 256 by 16 block chunk.
+ *
+ * <p>
+ * The hash covers the type and data value of every block and the NBT data
+ * of every tile entity, and it does not depend on the order in which the
+ * blocks and tile entities are added. Positions that are never set are
+ * air, so chunks that are stored without their empty sections hash the
+ * same as chunks that store them. This makes the hash of a chunk read
+ * from a backup comparable with the hash of the same chunk in a live world.
+ * </p>
+ *
+ * <p>
+ * A hasher can be reused for several chunks by calling {@link #reset()}
+ * in between. Instances are not thread-safe.
+ * </p>
+ */
+public final class ChunkHasher {
+
+    /**
+     * The height of a chunk.
+     */
+    public static final int HEIGHT = 256;
+
+    private static final HashFunction FUNCTION = Hashing.murmur3_128();
+
+    private final byte[] blocks = new byte[16 * 16 * HEIGHT * 2];
+    private long tileEntities;
+    private int tileEntityCount;
+
+    /**
+     * Set the block at the given position within the chunk.
+     *
+     * @param x    the X coordinate, between 0 and 15
+     * @param y    the Y coordinate, between 0 and {@link #HEIGHT} - 1
+     * @param z    the Z coordinate, between 0 and 15
+     * @param type the type ID
+     * @param data the data value
+     */
+    public void setBlock(int x, int y, int z, int type, int data) {
+        int index = (y << 8 | z << 4 | x) << 1;
+        int packed = type << 4 | (data & BaseBlock.MAX_DATA);
+        blocks[index] = (byte) (packed >> 8);
+        blocks[index + 1] = (byte) packed;
+    }
+
+    /**
+     * Add the NBT data of a tile entity of the chunk.
+     *
+     * <p>
+     * The data is expected to include the position of the tile entity, as
+     * it is stored in a chunk, so two identical tile entities of the same
+     * chunk still count as two.
+     * </p>
+     *
+     * @param tag the NBT data
+     */
+    public void addTileEntity(CompoundTag tag) {
+        checkNotNull(tag);
+        Hasher hasher = FUNCTION.newHasher();
+        putTag(hasher, tag);
+        tileEntities += hasher.hash()
+            .asLong();
+        tileEntityCount++;
+    }
+
+    /**
+     * Get the hash of the blocks and tile entities added so far.
+     *
+     * @return the hash
+     */
+    public long hash() {
+        return FUNCTION.newHasher()
+            .putBytes(blocks)
+            .putLong(tileEntities)
+            .putInt(tileEntityCount)
+            .hash()
+            .asLong();
+    }
+
+    /**
+     * Clear the blocks and tile entities, so that another chunk can be
+     * hashed.
+     */
+    public void reset() {
+        Arrays.fill(blocks, (byte) 0);
+        tileEntities = 0;
+        tileEntityCount = 0;
+    }
+
+    /**
+     * Hash the given chunk, which has usually been read from a
+     * {@link com.sk89q.worldedit.world.storage.ChunkStore}.
+     *
+     * <p>
+     * This hasher is reset first.
+     * </p>
+     *
+     * @param chunk    the chunk
+     * @param position the position of the chunk, in chunk coordinates
+     * @return the hash
+     * @throws DataException thrown if the chunk data is invalid
+     */
+    public long hash(Chunk chunk, Vector2D position) throws DataException {
+        checkNotNull(chunk);
+        checkNotNull(position);
+        reset();
+
+        int baseX = position.getBlockX() << 4;
+        int baseZ = position.getBlockZ() << 4;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    BaseBlock block = chunk.getBlock(new BlockVector(baseX + x, y, baseZ + z));
+                    setBlock(x, y, z, block.getType(), block.getData());
+                    if (block.hasNbtData()) {
+                        addTileEntity(block.getNbtData());
+                    }
+                }
+            }
+        }
+
+        return hash();
+    }
+
+    /**
+     * Add a tag to a hasher in a canonical form, in which the entries of
+     * compound tags are sorted by name.
+     *
+     * @param hasher the hasher
+     * @param tag    the tag
+     */
+    private static void putTag(Hasher hasher, Tag tag) {
+        hasher.putByte((byte) NBTUtils.getTypeCode(tag.getClass()));
+
+        if (tag instanceof CompoundTag) {
+            Map<String, Tag> value = ((CompoundTag) tag).getValue();
+            List<String> names = new ArrayList<String>(value.keySet());
+            Collections.sort(names);
+            hasher.putInt(names.size());
+            for (String name : names) {
+                hasher.putUnencodedChars(name);
+                hasher.putInt(name.length());
+                putTag(hasher, value.get(name));
+            }
+        } else if (tag instanceof ListTag) {
+            List<Tag> value = ((ListTag) tag).getValue();
+            hasher.putInt(value.size());
+            for (Tag element : value) {
+                putTag(hasher, element);
+            }
+        } else if (tag instanceof ByteArrayTag) {
+            byte[] value = ((ByteArrayTag) tag).getValue();
+            hasher.putInt(value.length);
+            hasher.putBytes(value);
+        } else if (tag instanceof IntArrayTag) {
+            int[] value = ((IntArrayTag) tag).getValue();
+            hasher.putInt(value.length);
+            for (int element : value) {
+                hasher.putInt(element);
+            }
+        } else if (tag instanceof StringTag) {
+            String value = ((StringTag) tag).getValue();
+            hasher.putUnencodedChars(value);
+            hasher.putInt(value.length());
+        } else if (tag.getValue() instanceof Number) {
+            Number value = (Number) tag.getValue();
+            if (value instanceof Float || value instanceof Double) {
+                hasher.putLong(Double.doubleToLongBits(value.doubleValue()));
+            } else {
+                hasher.putLong(value.longValue());
+            }
+        }
+    }
+
+}
@@ -22,16 +22,16 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Calendar;
 import java.util.logging.Logger;
-import java.util.zip.ZipFile;
 
+import com.sk89q.worldedit.util.io.ZipIndex;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.FileLegacyChunkStore;
 import com.sk89q.worldedit.world.storage.FileMcRegionChunkStore;
+import com.sk89q.worldedit.world.storage.IndexedZipMcRegionChunkStore;
 import com.sk89q.worldedit.world.storage.TrueZipLegacyChunkStore;
 import com.sk89q.worldedit.world.storage.TrueZipMcRegionChunkStore;
 import com.sk89q.worldedit.world.storage.ZippedLegacyChunkStore;
-import com.sk89q.worldedit.world.storage.ZippedMcRegionChunkStore;
 
 /**
  * A snapshot is a backup.
@@ -83,22 +83,17 @@ public class Snapshot implements Comparable<Snapshot> {
         if (file.getName()
             .toLowerCase()
             .endsWith(".zip")) {
-            try {
-                ChunkStore chunkStore = new TrueZipMcRegionChunkStore(file);
-
-                if (!chunkStore.isValid()) {
-                    return new TrueZipLegacyChunkStore(file);
-                }
+            ChunkStore chunkStore = new IndexedZipMcRegionChunkStore(file);
 
+            if (chunkStore.isValid()) {
                 return chunkStore;
-            } catch (NoClassDefFoundError e) {
-                ChunkStore chunkStore = new ZippedMcRegionChunkStore(file);
-
-                if (!chunkStore.isValid()) {
-                    return new ZippedLegacyChunkStore(file);
-                }
+            }
 
-                return chunkStore;
+            chunkStore.close();
+            try {
+                return new TrueZipLegacyChunkStore(file);
+            } catch (NoClassDefFoundError e) {
+                return new ZippedLegacyChunkStore(file);
             }
         } else if (file.getName()
             .toLowerCase()
@@ -131,6 +126,23 @@ public class Snapshot implements Comparable<Snapshot> {
                 }
     }
 
+    /**
+     * Get the index of the chunk hashes of the given world in this snapshot.
+     *
+     * <p>
+     * The index is stored in a hidden file next to the snapshot, and is
+     * empty until chunks have been indexed and it has been saved.
+     * </p>
+     *
+     * @param worldName the name of the world
+     * @return the index
+     */
+    public SnapshotIndex getIndex(String worldName) {
+        String indexName = "." + file.getName() + "." + worldName.replaceAll("[^A-Za-z0-9_\\-]", "_") + ".chunks";
+        File stamp = file.isDirectory() ? new File(file, "level.dat") : file;
+        return SnapshotIndex.load(new File(file.getParentFile(), indexName), stamp);
+    }
+
     /**
      * Check the zip/tar file it contains the given world.
      *
@@ -141,8 +153,10 @@ public class Snapshot implements Comparable<Snapshot> {
             if (file.getName()
                 .toLowerCase()
                 .endsWith(".zip")) {
-                ZipFile entry = new ZipFile(file);
-                return (entry.getEntry(worldname) != null || entry.getEntry(worldname + "/level.dat") != null);
+                try (ZipIndex index = new ZipIndex(file)) {
+                    return index.getEntry(worldname) != null || index.getEntry(worldname + "/") != null
+                        || index.getEntry(worldname + "/level.dat") != null;
+                }
             } else if (file.getName()
                 .toLowerCase()
                 .endsWith(".tar.bz2")
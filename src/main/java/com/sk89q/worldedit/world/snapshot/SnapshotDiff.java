@@ -0,0 +1,218 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.world.snapshot;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.chunk.Chunk;
+import com.sk89q.worldedit.world.chunk.ChunkHasher;
+import com.sk89q.worldedit.world.storage.ChunkStore;
+import com.sk89q.worldedit.world.storage.MissingChunkException;
+
+/**
+ * Finds the chunks of a region that differ between two snapshots.
+ *
+ * <p>
+ * Chunks are compared by their content hashes, which are taken from the
+ * {@link SnapshotIndex} of each snapshot. A snapshot is only opened when
+ * one of its chunks has not been indexed yet, and the hashes computed for
+ * it are added to its index.
+ * </p>
+ */
+public class SnapshotDiff {
+
+    private static final Logger logger = Logger.getLogger(SnapshotDiff.class.getCanonicalName());
+
+    private final Snapshot from;
+    private final Snapshot to;
+    private final World world;
+    private final Region region;
+    private int chunksCompared;
+    private List<Vector2D> changedChunks;
+    private List<Vector2D> errorChunks;
+    private String lastErrorMessage;
+
+    /**
+     * Construct the snapshot comparison.
+     *
+     * @param from   the older snapshot
+     * @param to     the newer snapshot
+     * @param world  the world that is compared
+     * @param region the region that is compared
+     */
+    public SnapshotDiff(Snapshot from, Snapshot to, World world, Region region) {
+        checkNotNull(from);
+        checkNotNull(to);
+        checkNotNull(world);
+        checkNotNull(region);
+        this.from = from;
+        this.to = to;
+        this.world = world;
+        this.region = region;
+    }
+
+    /**
+     * Compare the chunks of the two snapshots.
+     */
+    public void compare() {
+        changedChunks = new ArrayList<Vector2D>();
+        errorChunks = new ArrayList<Vector2D>();
+
+        Set<Vector2D> chunks = region.getChunks();
+        chunksCompared = chunks.size();
+
+        Side fromSide = new Side(from);
+        Side toSide = new Side(to);
+        try {
+            for (Vector2D chunkPos : chunks) {
+                try {
+                    if (!Objects.equals(fromSide.getHash(chunkPos), toSide.getHash(chunkPos))) {
+                        changedChunks.add(chunkPos);
+                    }
+                } catch (DataException e) {
+                    errorChunks.add(chunkPos);
+                    lastErrorMessage = e.getMessage();
+                } catch (IOException e) {
+                    errorChunks.add(chunkPos);
+                    lastErrorMessage = e.getMessage();
+                }
+            }
+        } finally {
+            fromSide.close();
+            toSide.close();
+        }
+    }
+
+    /**
+     * Get the number of chunks that were compared. compare() must have been
+     * called already.
+     *
+     * @return a number of chunks
+     */
+    public int getChunksCompared() {
+        return chunksCompared;
+    }
+
+    /**
+     * Get a list of the chunks that differ. compare() must have been called
+     * already.
+     *
+     * @return a list of coordinates
+     */
+    public List<Vector2D> getChangedChunks() {
+        return changedChunks;
+    }
+
+    /**
+     * Get a list of the chunks that could not be compared because one of
+     * the snapshots could not be read. compare() must have been called
+     * already.
+     *
+     * @return a list of coordinates
+     */
+    public List<Vector2D> getErrorChunks() {
+        return errorChunks;
+    }
+
+    /**
+     * Get the last error message.
+     *
+     * @return a message
+     */
+    public String getLastErrorMessage() {
+        return lastErrorMessage;
+    }
+
+    /**
+     * One of the two compared snapshots, which is opened on demand.
+     */
+    private final class Side {
+
+        private final Snapshot snapshot;
+        private final SnapshotIndex index;
+        private final ChunkHasher hasher = new ChunkHasher();
+        @Nullable
+        private ChunkStore chunkStore;
+
+        private Side(Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.index = snapshot.getIndex(world.getName());
+        }
+
+        /**
+         * Get the hash of a chunk of the snapshot.
+         *
+         * @param position the position of the chunk
+         * @return the hash, or null if the snapshot does not have the chunk
+         * @throws DataException thrown if the snapshot cannot be read
+         * @throws IOException   thrown on I/O error
+         */
+        @Nullable
+        private Long getHash(Vector2D position) throws DataException, IOException {
+            Long hash = index.getHash(position);
+            if (hash != null) {
+                return hash;
+            }
+
+            if (chunkStore == null) {
+                chunkStore = snapshot.getChunkStore();
+            }
+
+            Chunk chunk;
+            try {
+                chunk = chunkStore.getChunk(position, world);
+            } catch (MissingChunkException e) {
+                return null;
+            }
+
+            hash = hasher.hash(chunk, position);
+            index.putHash(position, hash);
+            return hash;
+        }
+
+        private void close() {
+            try {
+                index.save();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to save snapshot index " + index.getFile(), e);
+            }
+
+            if (chunkStore != null) {
+                try {
+                    chunkStore.close();
+                } catch (IOException ignored) {}
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.world.snapshot;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
+
+import com.sk89q.worldedit.BlockVector2D;
+import com.sk89q.worldedit.Vector2D;
+
+/**
+ * An index of the content hashes of the chunks of one world in a snapshot.
+ *
+ * <p>
+ * Hashes are computed with a {@link com.sk89q.worldedit.world.chunk.ChunkHasher}
+ * and are added lazily, whenever a chunk of the snapshot has to be decoded
+ * anyway. Once a chunk is indexed, it can be compared with the live world
+ * (see {@link com.sk89q.worldedit.world.World#getChunkContentHash(Vector2D)})
+ * or with another snapshot without opening the snapshot again.
+ * </p>
+ *
+ * <p>
+ * The index is stored in a hidden file next to the snapshot. It records
+ * the modification time and size of the snapshot, and is discarded when
+ * the snapshot no longer matches them.
+ * </p>
+ */
+public class SnapshotIndex {
+
+    private static final Logger logger = Logger.getLogger(SnapshotIndex.class.getCanonicalName());
+    private static final int MAGIC = 0x57454349;
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final long snapshotModified;
+    private final long snapshotLength;
+    private final Map<BlockVector2D, Long> hashes = new HashMap<BlockVector2D, Long>();
+    private boolean dirty = false;
+
+    /**
+     * Create a new, empty index.
+     *
+     * @param file         the file the index is stored in
+     * @param snapshotFile the file of the snapshot, or its level.dat if the
+     *                     snapshot is a directory
+     */
+    private SnapshotIndex(File file, File snapshotFile) {
+        this.file = file;
+        this.snapshotModified = snapshotFile.lastModified();
+        this.snapshotLength = snapshotFile.length();
+    }
+
+    /**
+     * Load an index from the given file, or create an empty one if the file
+     * does not exist, cannot be read, or belongs to an older version of the
+     * snapshot.
+     *
+     * @param file         the file the index is stored in
+     * @param snapshotFile the file of the snapshot, or its level.dat if the
+     *                     snapshot is a directory
+     * @return the index
+     */
+    static SnapshotIndex load(File file, File snapshotFile) {
+        checkNotNull(file);
+        checkNotNull(snapshotFile);
+
+        SnapshotIndex index = new SnapshotIndex(file, snapshotFile);
+        if (!file.isFile()) {
+            return index;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                || in.readLong() != index.snapshotModified
+                || in.readLong() != index.snapshotLength) {
+                // Written for another version of the snapshot
+                index.dirty = true;
+                return index;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int x = in.readInt();
+                int z = in.readInt();
+                index.hashes.put(new BlockVector2D(x, z), in.readLong());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read snapshot index " + file.getPath(), e);
+            index.hashes.clear();
+            index.dirty = true;
+        }
+
+        return index;
+    }
+
+    /**
+     * Get the file that the index is stored in.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the hash of a chunk of the snapshot.
+     *
+     * @param position the position of the chunk, in chunk coordinates
+     * @return the hash, or null if the chunk has not been indexed yet
+     */
+    @Nullable
+    public Long getHash(Vector2D position) {
+        return hashes.get(new BlockVector2D(position.getBlockX(), position.getBlockZ()));
+    }
+
+    /**
+     * Record the hash of a chunk of the snapshot.
+     *
+     * @param position the position of the chunk, in chunk coordinates
+     * @param hash     the hash
+     */
+    public void putHash(Vector2D position, long hash) {
+        Long previous = hashes.put(new BlockVector2D(position.getBlockX(), position.getBlockZ()), hash);
+        if (previous == null || previous != hash) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Get the chunks that have been indexed.
+     *
+     * @return an unmodifiable set of chunk positions
+     */
+    public Set<BlockVector2D> getChunks() {
+        return Collections.unmodifiableSet(hashes.keySet());
+    }
+
+    /**
+     * Write the index to its file, if it has changed since it was loaded.
+     *
+     * <p>
+     * The index is written to a temporary file first, so a failed write
+     * does not leave a corrupt index behind.
+     * </p>
+     *
+     * @throws IOException thrown on I/O error
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotModified);
+            out.writeLong(snapshotLength);
+            out.writeInt(hashes.size());
+            for (Map.Entry<BlockVector2D, Long> entry : hashes.entrySet()) {
+                BlockVector2D position = entry.getKey();
+                out.writeInt(position.getBlockX());
+                out.writeInt(position.getBlockZ());
+                out.writeLong(entry.getValue());
+            }
+        }
+
+        if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to replace " + file.getPath());
+        }
+        dirty = false;
+    }
+
+}
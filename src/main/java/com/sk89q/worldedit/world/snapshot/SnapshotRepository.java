@@ -23,7 +23,10 @@ import java.io.FilenameFilter;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
@@ -31,11 +34,19 @@ import com.sk89q.worldedit.world.storage.MissingWorldException;
 
 /**
  * A repository contains zero or more snapshots.
+ *
+ * <p>
+ * Listing the snapshots of a world requires opening every archive in the
+ * repository and detecting its date. The result is remembered for each
+ * file until its modification time or size changes, so later listings only
+ * look at new or changed files.
+ * </p>
  */
 public class SnapshotRepository {
 
     protected File dir;
     protected List<SnapshotDateParser> dateParsers = new ArrayList<SnapshotDateParser>();
+    private final Map<String, Map<File, ListedFile>> listings = new ConcurrentHashMap<String, Map<File, ListedFile>>();
 
     /**
      * Create a new instance of a repository.
@@ -83,24 +94,27 @@ public class SnapshotRepository {
             throw new MissingWorldException(worldName);
         }
         List<Snapshot> list = new ArrayList<Snapshot>(snapshotFiles.length);
+        Map<File, ListedFile> previous = listings.get(worldName);
+        Map<File, ListedFile> listed = new HashMap<File, ListedFile>();
 
         for (File file : snapshotFiles) {
             if (isValidSnapshot(file)) {
                 Snapshot snapshot = new Snapshot(this, file.getName());
-                if (snapshot.containsWorld(worldName)) {
-                    detectDate(snapshot);
+                if (list(snapshot, worldName, true, previous, listed)) {
                     list.add(snapshot);
                 }
             } else if (file.isDirectory() && file.getName()
                 .equalsIgnoreCase(worldName)) {
                     for (String name : file.list(filter)) {
                         Snapshot snapshot = new Snapshot(this, file.getName() + "/" + name);
-                        detectDate(snapshot);
+                        list(snapshot, worldName, false, previous, listed);
                         list.add(snapshot);
                     }
                 }
         }
 
+        listings.put(worldName, listed);
+
         if (newestFirst) {
             Collections.sort(list, Collections.reverseOrder());
         } else {
@@ -110,6 +124,42 @@ public class SnapshotRepository {
         return list;
     }
 
+    /**
+     * Check whether a snapshot contains a world and detect its date,
+     * reusing the result of the previous listing if the file of the snapshot
+     * has not changed since.
+     *
+     * @param snapshot   the snapshot, whose date is set
+     * @param worldName  the name of the world
+     * @param checkWorld true to check whether the snapshot contains the world
+     * @param previous   the files of the previous listing, or null
+     * @param listed     the files of the current listing, which the snapshot
+     *                   is added to
+     * @return true if the snapshot contains the world
+     */
+    private boolean list(Snapshot snapshot, String worldName, boolean checkWorld,
+        @Nullable Map<File, ListedFile> previous, Map<File, ListedFile> listed) {
+        File file = snapshot.getFile();
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        ListedFile entry = previous != null ? previous.get(file) : null;
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            boolean containsWorld = !checkWorld || snapshot.containsWorld(worldName);
+            Calendar date = null;
+            if (containsWorld) {
+                detectDate(snapshot);
+                date = snapshot.getDate();
+            }
+            entry = new ListedFile(lastModified, length, containsWorld, date);
+        } else if (entry.date != null) {
+            snapshot.setDate((Calendar) entry.date.clone());
+        }
+
+        listed.put(file, entry);
+        return entry.containsWorld;
+    }
+
     /**
      * Get the first snapshot after a date.
      *
@@ -250,4 +300,24 @@ public class SnapshotRepository {
         return dir;
     }
 
+    /**
+     * The result of listing a snapshot file.
+     */
+    private static final class ListedFile {
+
+        private final long lastModified;
+        private final long length;
+        private final boolean containsWorld;
+        @Nullable
+        private final Calendar date;
+
+        private ListedFile(long lastModified, long length, boolean containsWorld, @Nullable Calendar date) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.containsWorld = containsWorld;
+            this.date = date != null ? (Calendar) date.clone() : null;
+        }
+
+    }
+
 }
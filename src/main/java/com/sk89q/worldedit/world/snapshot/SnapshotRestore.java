@@ -21,6 +21,10 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
 
 import com.sk89q.worldedit.BlockVector2D;
 import com.sk89q.worldedit.EditSession;
@@ -31,19 +35,33 @@ import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.chunk.Chunk;
+import com.sk89q.worldedit.world.chunk.ChunkHasher;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
 import com.sk89q.worldedit.world.storage.MissingWorldException;
 
 /**
  * A snapshot restore operation.
+ *
+ * <p>
+ * If a {@link SnapshotIndex} is given, the content hash of every chunk of
+ * the snapshot is compared with that of the live chunk first, and chunks
+ * that have not changed are skipped. Chunks that are already indexed are
+ * skipped without being read from the snapshot at all.
+ * </p>
  */
 public class SnapshotRestore {
 
+    private static final Logger logger = Logger.getLogger(SnapshotRestore.class.getCanonicalName());
+
     private final Map<BlockVector2D, ArrayList<Vector>> neededChunks = new LinkedHashMap<BlockVector2D, ArrayList<Vector>>();
     private final ChunkStore chunkStore;
     private final EditSession editSession;
+    @Nullable
+    private final SnapshotIndex index;
+    private int unchangedChunks;
     private ArrayList<Vector2D> missingChunks;
     private ArrayList<Vector2D> errorChunks;
     private String lastErrorMessage;
@@ -56,8 +74,24 @@ public class SnapshotRestore {
      * @param region      The {@link Region} to restore to
      */
     public SnapshotRestore(ChunkStore chunkStore, EditSession editSession, Region region) {
+        this(chunkStore, editSession, region, null);
+    }
+
+    /**
+     * Construct the snapshot restore operation.
+     *
+     * @param chunkStore  The {@link ChunkStore} to restore from
+     * @param editSession The {@link EditSession} to restore to
+     * @param region      The {@link Region} to restore to
+     * @param index       The {@link SnapshotIndex} of the snapshot for the
+     *                    world of the edit session, or null to restore
+     *                    every chunk
+     */
+    public SnapshotRestore(ChunkStore chunkStore, EditSession editSession, Region region,
+        @Nullable SnapshotIndex index) {
         this.chunkStore = chunkStore;
         this.editSession = editSession;
+        this.index = index;
 
         if (region instanceof CuboidRegion) {
             findNeededCuboidChunks(region);
@@ -133,16 +167,40 @@ public class SnapshotRestore {
 
         missingChunks = new ArrayList<Vector2D>();
         errorChunks = new ArrayList<Vector2D>();
+        unchangedChunks = 0;
+
+        World world = editSession.getWorld();
+        ChunkHasher hasher = index != null ? new ChunkHasher() : null;
 
         // Now let's start restoring!
         for (Map.Entry<BlockVector2D, ArrayList<Vector>> entry : neededChunks.entrySet()) {
             BlockVector2D chunkPos = entry.getKey();
             Chunk chunk;
 
+            long liveHash = 0;
+            Long snapshotHash = null;
+            if (index != null) {
+                liveHash = world.getChunkContentHash(chunkPos);
+                snapshotHash = index.getHash(chunkPos);
+                if (snapshotHash != null && snapshotHash == liveHash) {
+                    unchangedChunks++;
+                    continue;
+                }
+            }
+
             try {
-                chunk = chunkStore.getChunk(chunkPos, editSession.getWorld());
+                chunk = chunkStore.getChunk(chunkPos, world);
                 // Good, the chunk could be at least loaded
 
+                if (index != null && snapshotHash == null) {
+                    snapshotHash = hasher.hash(chunk, chunkPos);
+                    index.putHash(chunkPos, snapshotHash);
+                    if (snapshotHash == liveHash) {
+                        unchangedChunks++;
+                        continue;
+                    }
+                }
+
                 // Now just copy blocks!
                 for (Vector pos : entry.getValue()) {
                     try {
@@ -165,6 +223,25 @@ public class SnapshotRestore {
                 lastErrorMessage = ioe.getMessage();
             }
         }
+
+        if (index != null) {
+            try {
+                index.save();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to save snapshot index " + index.getFile(), e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of chunks that were skipped because they are the same
+     * in the snapshot and the world. restore() must have been called
+     * already.
+     *
+     * @return a number of chunks
+     */
+    public int getUnchangedChunks() {
+        return unchangedChunks;
     }
 
     /**
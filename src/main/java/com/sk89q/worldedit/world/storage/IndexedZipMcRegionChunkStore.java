@@ -0,0 +1,301 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.world.storage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.util.io.ZipIndex;
+import com.sk89q.worldedit.world.DataException;
+
+/**
+ * Represents the chunk store used by Minecraft alpha but zipped, read through
+ * an index of the ZIP's central directory.
+ *
+ * <p>
+ * The central directory is read once, so finding a region file or the world
+ * folder never scans the archive. Only the region file of the requested chunk
+ * is decompressed, and only as far as that chunk. The decompressed bytes are
+ * kept while chunks of the same region are read, so those chunks can be read
+ * in any order without decompressing the region again.
+ * </p>
+ *
+ * <p>
+ * Region headers are cached across chunk stores for as long as the ZIP file
+ * is not modified, so a chunk that was never generated is recognized without
+ * decompressing anything.
+ * </p>
+ */
+public class IndexedZipMcRegionChunkStore extends McRegionChunkStore {
+
+    private static final int MAX_CACHED_HEADERS = 256;
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final Cache<String, int[]> headers = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_HEADERS)
+        .build();
+
+    private final ZipIndex index;
+    private final String cacheKey;
+    @Nullable
+    private String folder;
+    @Nullable
+    private RegionBuffer region;
+
+    /**
+     * Create an instance. The folder argument lets you choose a folder or
+     * path to look into in the ZIP for the files. Use a blank string for
+     * the folder to not look into a subdirectory.
+     *
+     * @param zipFile the ZIP file
+     * @param folder  the folder
+     * @throws IOException thrown if the ZIP file cannot be read
+     */
+    public IndexedZipMcRegionChunkStore(File zipFile, String folder) throws IOException {
+        this(zipFile);
+        this.folder = checkNotNull(folder);
+    }
+
+    /**
+     * Create an instance. The sub-folder containing the chunk data will
+     * be detected.
+     *
+     * @param zipFile the ZIP file
+     * @throws IOException thrown if the ZIP file cannot be read
+     */
+    public IndexedZipMcRegionChunkStore(File zipFile) throws IOException {
+        checkNotNull(zipFile);
+        this.index = new ZipIndex(zipFile);
+        this.cacheKey = zipFile.getAbsolutePath() + ":" + zipFile.length() + ":" + zipFile.lastModified() + ":";
+    }
+
+    @Override
+    protected McRegionReader getReader(Vector2D pos, String worldname) throws DataException, IOException {
+        ZipIndex.Entry entry = getEntry(getFilename(pos), worldname);
+        if (region == null || region.entry != entry) {
+            closeRegion();
+            region = new RegionBuffer(entry);
+        }
+
+        String key = cacheKey + entry.getName();
+        int[] offsets = headers.getIfPresent(key);
+        if (offsets == null) {
+            McRegionReader reader = new McRegionReader(region.openStream());
+            headers.put(key, reader.getOffsets());
+            return reader;
+        }
+        return new McRegionReader(region.openStream(), offsets);
+    }
+
+    @Override
+    protected InputStream getInputStream(String name, String worldName) throws IOException, DataException {
+        return index.getInputStream(getEntry(name, worldName));
+    }
+
+    /**
+     * Get the entry of a region file.
+     *
+     * @param name      the name of the region file
+     * @param worldName the world name
+     * @return the entry
+     * @throws DataException thrown if the world or the region file is missing
+     */
+    private ZipIndex.Entry getEntry(String name, String worldName) throws DataException {
+        // Detect subfolder for the world's files
+        if (folder == null) {
+            for (ZipIndex.Entry testEntry : index.getEntries()) {
+                String testName = testEntry.getName();
+                if (testName.startsWith(worldName + "/") && isRegionFile(testName)) {
+                    folder = testName.substring(0, testName.lastIndexOf('/'));
+                    break;
+                }
+            }
+
+            // Check if world is found
+            if (folder == null) {
+                throw new MissingWorldException("Target world is not present in ZIP.", worldName);
+            }
+        }
+
+        String path = folder.isEmpty() ? name : folder + "/" + name;
+        ZipIndex.Entry entry = index.getEntry(path);
+        if (entry == null) {
+            // Allow either file extension, both work the same
+            entry = index.getEntry(path.replaceFirst("\\.mca$", ".mcr"));
+        }
+        if (entry == null) {
+            throw new MissingChunkException();
+        }
+        return entry;
+    }
+
+    private static boolean isRegionFile(String name) {
+        return name.endsWith(".mca") || name.endsWith(".mcr");
+    }
+
+    private void closeRegion() throws IOException {
+        if (region != null) {
+            RegionBuffer closing = region;
+            region = null;
+            closing.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeRegion();
+        } finally {
+            index.close();
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        for (ZipIndex.Entry entry : index.getEntries()) {
+            if (isRegionFile(entry.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The decompressed bytes of a region file, which are only decompressed
+     * as far as they have been read.
+     */
+    private final class RegionBuffer {
+
+        private final ZipIndex.Entry entry;
+        private byte[] data = new byte[0];
+        private int length = 0;
+        @Nullable
+        private InputStream source;
+        private boolean finished = false;
+
+        private RegionBuffer(ZipIndex.Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Open a stream that starts at the beginning of the region file.
+         *
+         * @return a stream
+         */
+        private InputStream openStream() {
+            return new RegionStream(this);
+        }
+
+        /**
+         * Decompress the region file up to the given length, or to its end.
+         *
+         * @param end the length
+         * @throws IOException thrown on a read error
+         */
+        private void ensure(long end) throws IOException {
+            if (end <= length || finished) {
+                return;
+            }
+            if (end > MAX_BUFFER_SIZE) {
+                end = MAX_BUFFER_SIZE;
+            }
+            if (source == null) {
+                source = index.getInputStream(entry);
+            }
+            if (end > data.length) {
+                long capacity = Math.max(end, Math.max(MIN_BUFFER_SIZE, (long) data.length * 2));
+                data = Arrays.copyOf(data, (int) Math.min(capacity, MAX_BUFFER_SIZE));
+            }
+            while (length < end) {
+                int read = source.read(data, length, (int) end - length);
+                if (read < 0) {
+                    finished = true;
+                    source.close();
+                    source = null;
+                    break;
+                }
+                length += read;
+            }
+        }
+
+        private void close() throws IOException {
+            if (source != null) {
+                source.close();
+                source = null;
+            }
+        }
+    }
+
+    /**
+     * A stream over a {@link RegionBuffer} that decompresses it as it is read.
+     */
+    private static final class RegionStream extends InputStream {
+
+        private final RegionBuffer buffer;
+        private int position = 0;
+
+        private RegionStream(RegionBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            buffer.ensure(position + 1L);
+            if (position >= buffer.length) {
+                return -1;
+            }
+            return buffer.data[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            buffer.ensure((long) position + len);
+            int count = Math.min(len, buffer.length - position);
+            if (count <= 0) {
+                return -1;
+            }
+            System.arraycopy(buffer.data, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            buffer.ensure(position + n);
+            int skipped = (int) Math.min(n, buffer.length - position);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+}
@@ -44,6 +44,8 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
@@ -86,6 +88,24 @@ public class McRegionReader {
         readHeader();
     }
 
+    /**
+     * Construct the reader with a header that was read before.
+     *
+     * <p>
+     * The stream must start at the beginning of the region file, but the
+     * header is not read from it again.
+     * </p>
+     *
+     * @param stream  the stream
+     * @param offsets the chunk offsets, as returned by {@link #getOffsets()}
+     */
+    public McRegionReader(InputStream stream, int[] offsets) {
+        checkArgument(offsets.length == SECTOR_INTS, "offsets must have " + SECTOR_INTS + " entries");
+        this.stream = new ForwardSeekableInputStream(stream);
+        this.dataStream = new DataInputStream(this.stream);
+        this.offsets = offsets;
+    }
+
     /**
      * Read the header.
      *
@@ -164,6 +184,19 @@ public class McRegionReader {
         return offsets[x + z * 32];
     }
 
+    /**
+     * Get the chunk offsets read from the header of the file.
+     *
+     * <p>
+     * The returned array must not be modified.
+     * </p>
+     *
+     * @return the offsets, indexed by {@code x + z * 32}
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
     /**
      * Returns whether the file contains a chunk.
      *
@@ -0,0 +1,117 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.history.UndoContext;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.history.changeset.ArrayListHistory;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+/**
+ * Tests {@link ChangeSetExtent}.
+ */
+public class ChangeSetExtentTest {
+
+    private static final Vector POSITION = new Vector(1, 1, 1);
+
+    @Test
+    public void testRedoRestoresNbtDataAtTimeOfEdit() throws Exception {
+        Map<String, Tag> source = new HashMap<String, Tag>();
+        source.put("Text1", new StringTag("before"));
+
+        // The extent below does not read the NBT data of the block
+        ChangeSet changeSet = new ArrayListHistory();
+        ChangeSetExtent extent = new ChangeSetExtent(new NullExtent(), changeSet);
+        extent.setBlock(POSITION, new LazyBlock(BlockID.SIGN_POST, source));
+
+        // The source tile entity changes after the copy
+        source.put("Text1", new StringTag("after"));
+
+        Extent world = new BlockArrayClipboard(new CuboidRegion(new Vector(0, 0, 0), new Vector(3, 3, 3)));
+        UndoContext context = new UndoContext();
+        context.setExtent(world);
+        Iterator<Change> it = changeSet.forwardIterator();
+        while (it.hasNext()) {
+            it.next()
+                .redo(context);
+        }
+
+        assertEquals(
+            "before",
+            world.getBlock(POSITION)
+                .getNbtData()
+                .getString("Text1"));
+    }
+
+    /**
+     * A block that reads its NBT data from a source that may change, like a
+     * block with a tile entity read from a world.
+     */
+    private static class LazyBlock extends BaseBlock {
+
+        @Nullable
+        private Map<String, Tag> source;
+
+        private LazyBlock(int type, Map<String, Tag> source) {
+            super(type, 0);
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNbtData() {
+            return source != null || super.hasNbtData();
+        }
+
+        @Nullable
+        @Override
+        public CompoundTag getNbtData() {
+            Map<String, Tag> source = this.source;
+            if (source != null) {
+                this.source = null;
+                super.setNbtData(new CompoundTag(new HashMap<String, Tag>(source)));
+            }
+            return super.getNbtData();
+        }
+
+        @Override
+        public void setNbtData(@Nullable CompoundTag nbtData) {
+            this.source = null;
+            super.setNbtData(nbtData);
+        }
+
+    }
+
+}
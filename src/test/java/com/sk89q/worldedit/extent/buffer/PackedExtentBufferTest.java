@@ -0,0 +1,129 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.extent.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * Tests {@link PackedExtentBuffer}.
+ */
+public class PackedExtentBufferTest {
+
+    private Extent delegate;
+    private PackedExtentBuffer buffer;
+
+    @Before
+    public void setUp() {
+        delegate = new BlockArrayClipboard(new CuboidRegion(new Vector(0, 0, 0), new Vector(15, 15, 15)));
+        buffer = new PackedExtentBuffer(delegate, new CuboidRegion(new Vector(2, 2, 2), new Vector(5, 5, 5)));
+    }
+
+    @Test
+    public void testBuffersChangesInsideRegion() throws Exception {
+        Vector inside = new Vector(3, 4, 5);
+        assertTrue(buffer.setBlock(inside, new BaseBlock(BlockID.CLOTH, 14)));
+
+        assertEquals(BlockID.AIR, delegate.getBlock(inside)
+            .getType());
+        BaseBlock buffered = buffer.apply(inside);
+        assertEquals(BlockID.CLOTH, buffered.getType());
+        assertEquals(14, buffered.getData());
+        assertEquals(BlockID.AIR, buffer.apply(new Vector(2, 2, 2))
+            .getType());
+    }
+
+    @Test
+    public void testPassesChangesOutsideRegion() throws Exception {
+        Vector outside = new Vector(6, 4, 5);
+        buffer.setBlock(outside, new BaseBlock(BlockID.STONE));
+
+        assertEquals(BlockID.STONE, delegate.getBlock(outside)
+            .getType());
+        assertEquals(BlockID.AIR, buffer.apply(outside)
+            .getType());
+        assertFalse(buffer.asRegion()
+            .contains(outside));
+    }
+
+    @Test
+    public void testKeepsNbtData() throws Exception {
+        Vector position = new Vector(2, 5, 3);
+        CompoundTag tag = new CompoundTag(Collections.<String, Tag>singletonMap("id", new StringTag("Chest")));
+        buffer.setBlock(position, new BaseBlock(BlockID.CHEST, 2, tag));
+
+        BaseBlock buffered = buffer.apply(position);
+        assertEquals(BlockID.CHEST, buffered.getType());
+        assertEquals(2, buffered.getData());
+        assertEquals("Chest", buffered.getNbtData()
+            .getString("id"));
+
+        // A later change without NBT data replaces the buffered block
+        buffer.setBlock(position, new BaseBlock(BlockID.STONE));
+        assertFalse(buffer.apply(position)
+            .hasNbtData());
+    }
+
+    @Test
+    public void testRegionContainsBufferedPositions() throws Exception {
+        // Air is buffered too, as it replaces whatever the delegate holds
+        buffer.setBlock(new Vector(5, 5, 5), new BaseBlock(BlockID.STONE));
+        buffer.setBlock(new Vector(2, 2, 2), new BaseBlock(BlockID.AIR));
+        buffer.setBlock(new Vector(4, 2, 3), new BaseBlock(BlockID.DIRT));
+
+        Region region = buffer.asRegion();
+        List<BlockVector> positions = new ArrayList<BlockVector>();
+        for (BlockVector position : region) {
+            positions.add(position);
+        }
+
+        assertEquals(3, positions.size());
+        assertEquals(new BlockVector(2, 2, 2), positions.get(0));
+        assertEquals(new BlockVector(4, 2, 3), positions.get(1));
+        assertEquals(new BlockVector(5, 5, 5), positions.get(2));
+        assertTrue(region.contains(new Vector(4, 2, 3)));
+        assertFalse(region.contains(new Vector(3, 3, 3)));
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertTrue(PackedExtentBuffer.isSupported(new CuboidRegion(new Vector(0, 0, 0), new Vector(255, 63, 255))));
+        assertFalse(PackedExtentBuffer.isSupported(new CuboidRegion(new Vector(0, 0, 0), new Vector(511, 255, 511))));
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.function.operation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.function.mask.ExistingBlockMask;
+import com.sk89q.worldedit.function.pattern.BlockPattern;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+/**
+ * Tests {@link InPlaceMove}.
+ */
+public class InPlaceMoveTest {
+
+    private static final BaseBlock REPLACEMENT = new BaseBlock(BlockID.OBSIDIAN);
+
+    private Extent extent;
+
+    @Before
+    public void setUp() {
+        extent = new BlockArrayClipboard(new CuboidRegion(new Vector(0, 0, 0), new Vector(15, 15, 15)));
+    }
+
+    @Test
+    public void testOverlappingMoveInPositiveDirection() throws Exception {
+        fillRow(2, 5);
+        move(new CuboidRegion(new Vector(2, 1, 1), new Vector(5, 1, 1)), new Vector(2, 0, 0));
+
+        assertEquals(BlockID.OBSIDIAN, typeAt(2, 1, 1));
+        assertEquals(BlockID.OBSIDIAN, typeAt(3, 1, 1));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 1, typeAt(4 + i, 1, 1));
+        }
+    }
+
+    @Test
+    public void testOverlappingMoveInNegativeDirection() throws Exception {
+        fillRow(4, 7);
+        move(new CuboidRegion(new Vector(4, 1, 1), new Vector(7, 1, 1)), new Vector(-2, 0, 0));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 1, typeAt(2 + i, 1, 1));
+        }
+        assertEquals(BlockID.OBSIDIAN, typeAt(6, 1, 1));
+        assertEquals(BlockID.OBSIDIAN, typeAt(7, 1, 1));
+    }
+
+    @Test
+    public void testOverlappingMoveOnSeveralAxes() throws Exception {
+        CuboidRegion region = new CuboidRegion(new Vector(4, 4, 4), new Vector(6, 6, 6));
+        for (Vector position : region) {
+            extent.setBlock(position, new BaseBlock(idOf(position.subtract(4, 4, 4))));
+        }
+
+        Vector offset = new Vector(1, -1, 1);
+        move(region, offset);
+
+        for (Vector position : region) {
+            Vector destination = position.add(offset);
+            assertEquals(idOf(position.subtract(4, 4, 4)), typeAt(destination));
+        }
+        for (Vector position : region) {
+            if (!region.contains(position.subtract(offset))) {
+                assertEquals(BlockID.OBSIDIAN, typeAt(position));
+            }
+        }
+    }
+
+    @Test
+    public void testSourceMaskSkipsReplacement() throws Exception {
+        extent.setBlock(new Vector(2, 1, 1), new BaseBlock(BlockID.STONE));
+        extent.setBlock(new Vector(4, 1, 1), new BaseBlock(BlockID.DIRT));
+
+        InPlaceMove move = new InPlaceMove(
+            extent,
+            new CuboidRegion(new Vector(2, 1, 1), new Vector(4, 1, 1)),
+            new Vector(0, 1, 0),
+            new BlockPattern(REPLACEMENT));
+        move.setSourceMask(new ExistingBlockMask(extent));
+        Operations.complete(move);
+
+        assertEquals(BlockID.STONE, typeAt(2, 2, 1));
+        assertEquals(BlockID.DIRT, typeAt(4, 2, 1));
+        assertEquals(BlockID.OBSIDIAN, typeAt(2, 1, 1));
+        assertEquals(BlockID.OBSIDIAN, typeAt(4, 1, 1));
+        // The air block did not pass the mask, so it is neither moved nor replaced
+        assertEquals(BlockID.AIR, typeAt(3, 1, 1));
+        assertEquals(2, move.getAffected());
+    }
+
+    private void fillRow(int minX, int maxX) throws Exception {
+        for (int x = minX; x <= maxX; x++) {
+            extent.setBlock(new Vector(x, 1, 1), new BaseBlock(x - minX + 1));
+        }
+    }
+
+    private void move(CuboidRegion region, Vector offset) throws Exception {
+        Operations.complete(new InPlaceMove(extent, region, offset, new BlockPattern(REPLACEMENT)));
+    }
+
+    private static int idOf(Vector relative) {
+        return 1 + relative.getBlockX() + relative.getBlockY() * 3 + relative.getBlockZ() * 9;
+    }
+
+    private int typeAt(int x, int y, int z) {
+        return typeAt(new Vector(x, y, z));
+    }
+
+    private int typeAt(Vector position) {
+        return extent.getBlock(position)
+            .getType();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.math.transform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.sk89q.worldedit.Vector;
+
+/**
+ * Tests {@link AffineTransform}.
+ */
+public class AffineTransformTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final double[] IDENTITY = new AffineTransform().coefficients();
+
+    @Test
+    public void testInverseOfRotationAroundSeveralAxes() {
+        AffineTransform transform = new AffineTransform().rotateY(30)
+            .rotateX(45)
+            .rotateZ(-20)
+            .scale(2, 1, 3)
+            .translate(5, -7, 11);
+
+        assertArrayEquals(IDENTITY, transform.combine(transform.inverse())
+            .coefficients(), EPSILON);
+        assertArrayEquals(IDENTITY, transform.inverse()
+            .combine(transform)
+            .coefficients(), EPSILON);
+    }
+
+    @Test
+    public void testInverseOfGeneralMatrix() {
+        // Every coefficient differs, so a misplaced cofactor cannot cancel out
+        AffineTransform transform = new AffineTransform(2, 3, 5, 1, 7, 11, 13, -2, 17, 19, 29, 3);
+
+        assertArrayEquals(IDENTITY, transform.combine(transform.inverse())
+            .coefficients(), EPSILON);
+    }
+
+    @Test
+    public void testInverseMapsPointsBack() {
+        AffineTransform transform = new AffineTransform().rotateX(60)
+            .rotateY(-35)
+            .translate(1, 2, 3);
+        Vector point = new Vector(4, -5, 6);
+        Vector mapped = transform.inverse()
+            .apply(transform.apply(point));
+
+        assertEquals(point.getX(), mapped.getX(), EPSILON);
+        assertEquals(point.getY(), mapped.getY(), EPSILON);
+        assertEquals(point.getZ(), mapped.getZ(), EPSILON);
+    }
+
+}
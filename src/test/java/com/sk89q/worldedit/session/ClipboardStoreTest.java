@@ -0,0 +1,120 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.google.common.base.Suppliers;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockID;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+/**
+ * Tests {@link ClipboardStore}.
+ */
+public class ClipboardStoreTest {
+
+    // The estimated size of a 4x4x4 clipboard
+    private static final long CLIPBOARD_SIZE = 4 * 4 * 4 * 8;
+
+    @Test
+    public void testShareUnderSameKeyKeepsOneCopy() throws Exception {
+        ClipboardStore store = createStore(CLIPBOARD_SIZE * 4);
+        SharedClipboard first = store.share(createClipboard(BlockID.STONE), "a.schematic");
+        SharedClipboard second = store.share(createClipboard(BlockID.DIRT), "a.schematic");
+
+        assertEquals(1, store.getCount());
+        assertEquals(CLIPBOARD_SIZE, store.getSize());
+        // The second clipboard was discarded in favour of the held data
+        assertEquals(BlockID.STONE, second.getBlock(new Vector(1, 1, 1))
+            .getType());
+        assertEquals(first.getKey(), second.getKey());
+    }
+
+    @Test
+    public void testAcquireByKey() throws Exception {
+        ClipboardStore store = createStore(CLIPBOARD_SIZE * 4);
+        assertNull(store.acquire("a.schematic"));
+
+        SharedClipboard shared = store.share(createClipboard(BlockID.STONE), "a.schematic");
+        shared.setOrigin(new Vector(5, 5, 5));
+        SharedClipboard acquired = store.acquire("a.schematic");
+
+        assertNotNull(acquired);
+        assertEquals(BlockID.STONE, acquired.getBlock(new Vector(2, 2, 2))
+            .getType());
+        // Every view has its own origin, starting at the origin of the shared data
+        assertEquals(new Vector(0, 0, 0), acquired.getOrigin());
+        assertNull(store.acquire("b.schematic"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedUnreferencedData() throws Exception {
+        ClipboardStore store = createStore(CLIPBOARD_SIZE * 2);
+        store.share(createClipboard(BlockID.STONE), "a.schematic")
+            .release();
+        store.share(createClipboard(BlockID.DIRT), "b.schematic")
+            .release();
+        assertEquals(2, store.getCount());
+
+        store.share(createClipboard(BlockID.GLASS), "c.schematic");
+
+        assertEquals(2, store.getCount());
+        assertNull(store.acquire("a.schematic"));
+        assertNotNull(store.acquire("b.schematic"));
+        assertNotNull(store.acquire("c.schematic"));
+    }
+
+    @Test
+    public void testKeepsReferencedData() throws Exception {
+        ClipboardStore store = createStore(CLIPBOARD_SIZE);
+        SharedClipboard first = store.share(createClipboard(BlockID.STONE), "a.schematic");
+        store.share(createClipboard(BlockID.DIRT), "b.schematic");
+        assertEquals(2, store.getCount());
+        assertEquals(CLIPBOARD_SIZE * 2, store.getSize());
+
+        first.release();
+        // Releasing a view again has no further effect
+        first.release();
+
+        assertEquals(1, store.getCount());
+        assertNull(store.acquire("a.schematic"));
+        assertNotNull(store.acquire("b.schematic"));
+    }
+
+    private static ClipboardStore createStore(long budget) {
+        return new ClipboardStore(Suppliers.ofInstance(budget));
+    }
+
+    private static Clipboard createClipboard(int type) throws Exception {
+        CuboidRegion region = new CuboidRegion(new Vector(0, 0, 0), new Vector(3, 3, 3));
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        for (Vector position : region) {
+            clipboard.setBlock(position, new BaseBlock(type));
+        }
+        return clipboard;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LongArrayQueue}.
+ */
+public class LongArrayQueueTest {
+
+    // The initial capacity of the ring buffer
+    private static final int CAPACITY = 256;
+
+    @Test
+    public void testFirstInFirstOut() throws Exception {
+        LongArrayQueue queue = new LongArrayQueue();
+        queue.add(3);
+        queue.add(0);
+        queue.add(-7);
+
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.remove());
+        assertEquals(0, queue.remove());
+        assertEquals(-7, queue.remove());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveFromEmpty() throws Exception {
+        new LongArrayQueue().remove();
+    }
+
+    @Test
+    public void testDrain() throws Exception {
+        LongArrayQueue queue = new LongArrayQueue();
+        add(queue, 0, 10);
+
+        assertArrayEquals(range(0, 10), queue.drain());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testDrainWhenWrapped() throws Exception {
+        LongArrayQueue queue = createWrapped();
+
+        assertArrayEquals(range(CAPACITY - 50, CAPACITY + 150), queue.drain());
+        assertTrue(queue.isEmpty());
+
+        // The queue remains usable after it was drained
+        add(queue, 0, 3);
+        assertArrayEquals(range(0, 3), queue.drain());
+    }
+
+    @Test
+    public void testGrowWhenWrapped() throws Exception {
+        LongArrayQueue queue = createWrapped();
+        long memory = queue.getMemoryUsage();
+        add(queue, CAPACITY + 150, CAPACITY * 2);
+
+        assertTrue(queue.getMemoryUsage() > memory);
+        assertEquals(CAPACITY + 50, queue.size());
+        for (long i = CAPACITY - 50; i < CAPACITY * 2; i++) {
+            assertEquals(i, queue.remove());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testGrowThenDrainWhenWrapped() throws Exception {
+        LongArrayQueue queue = createWrapped();
+        add(queue, CAPACITY + 150, CAPACITY * 2);
+
+        assertArrayEquals(range(CAPACITY - 50, CAPACITY * 2), queue.drain());
+    }
+
+    /**
+     * Create a queue of which the values wrap around the end of the buffer.
+     *
+     * @return a queue holding the values from {@code CAPACITY - 50} to {@code CAPACITY + 150}
+     */
+    private static LongArrayQueue createWrapped() {
+        LongArrayQueue queue = new LongArrayQueue();
+        add(queue, 0, CAPACITY);
+        for (int i = 0; i < CAPACITY - 50; i++) {
+            queue.remove();
+        }
+        add(queue, CAPACITY, CAPACITY + 150);
+        assertEquals(200, queue.size());
+        return queue;
+    }
+
+    private static void add(LongArrayQueue queue, long from, long to) {
+        for (long i = from; i < to; i++) {
+            queue.add(i);
+        }
+    }
+
+    private static long[] range(long from, long to) {
+        long[] values = new long[(int) (to - from)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+
+}
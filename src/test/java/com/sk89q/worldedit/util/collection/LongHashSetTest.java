@@ -0,0 +1,116 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LongHashSet}.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void testEmptySetDoesNotContainZero() throws Exception {
+        LongHashSet set = new LongHashSet();
+        // The empty slots of the table hold zero
+        assertFalse(set.contains(0));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void testAddZero() throws Exception {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testClearRemovesZero() throws Exception {
+        LongHashSet set = new LongHashSet();
+        set.add(0);
+        set.add(1);
+        set.clear();
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(1));
+        assertEquals(0, set.size());
+        assertTrue(set.add(0));
+    }
+
+    @Test
+    public void testAddDuplicate() throws Exception {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testGrowthKeepsValues() throws Exception {
+        LongHashSet set = new LongHashSet(0);
+        long initialMemory = set.getMemoryUsage();
+        for (long i = -5000; i < 5000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+
+        assertTrue(set.getMemoryUsage() > initialMemory);
+        assertEquals(10000, set.size());
+        for (long i = -5000; i < 5000; i++) {
+            assertTrue(set.contains(i * 31));
+            assertFalse(set.contains(i * 31 + 1));
+        }
+    }
+
+    @Test
+    public void testGrowthWithZero() throws Exception {
+        LongHashSet set = new LongHashSet(0);
+        set.add(0);
+        for (long i = 1; i <= 100; i++) {
+            set.add(i);
+        }
+
+        assertEquals(101, set.size());
+        assertTrue(set.contains(0));
+        for (long i = 1; i <= 100; i++) {
+            assertTrue(set.contains(i));
+        }
+    }
+
+    @Test
+    public void testExtremeValues() throws Exception {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertTrue(set.add(-1));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeExpectedSize() throws Exception {
+        new LongHashSet(-1);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ZipIndex}.
+ */
+public class ZipIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadEntries() throws Exception {
+        byte[] deflated = createData(200000, 1);
+        byte[] stored = createData(5000, 2);
+
+        File file = folder.newFile("test.zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("world/region/r.0.0.mca"));
+            out.write(deflated);
+            out.closeEntry();
+
+            ZipEntry entry = new ZipEntry("world/region/r.1.0.mca");
+            CRC32 crc = new CRC32();
+            crc.update(stored);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setCrc(crc.getValue());
+            entry.setSize(stored.length);
+            entry.setCompressedSize(stored.length);
+            out.putNextEntry(entry);
+            out.write(stored);
+            out.closeEntry();
+
+            out.setComment("A comment before the end of the central directory");
+        }
+
+        try (ZipIndex index = new ZipIndex(file)) {
+            assertEquals(2, index.getEntries().size());
+            assertNull(index.getEntry("world/region/r.2.0.mca"));
+            assertNotNull(index.getEntry("world\\region\\r.0.0.mca"));
+            assertArrayEquals(deflated, readAll(index, "world/region/r.0.0.mca"));
+            assertArrayEquals(stored, readAll(index, "world/region/r.1.0.mca"));
+            // Inflaters are reused from the pool
+            assertArrayEquals(deflated, readAll(index, "world/region/r.0.0.mca"));
+        }
+    }
+
+    private static byte[] createData(int length, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) random.nextInt(4);
+        }
+        return data;
+    }
+
+    private static byte[] readAll(ZipIndex index, String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = index.getInputStream(index.getEntry(name))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.world;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.util.Countable;
+
+public class BlockHistogramTest {
+
+    @Test
+    public void testCount() {
+        BlockHistogram histogram = new BlockHistogram();
+        histogram.add(1, 0, 10);
+        histogram.add(35, 3);
+        histogram.add(35, 14, 2);
+
+        assertEquals(10, histogram.getCount(1, 0));
+        assertEquals(3, histogram.getCount(35));
+        assertEquals(3, histogram.getCount(Arrays.asList(new BaseBlock(35, -1))));
+        assertEquals(1, histogram.getCount(Arrays.asList(new BaseBlock(35, 3), new BaseBlock(35, 3))));
+        assertEquals(13, histogram.getCount(Arrays.asList(new BaseBlock(1, 0), new BaseBlock(35, -1))));
+    }
+
+    @Test
+    public void testMerge() {
+        BlockHistogram first = new BlockHistogram();
+        first.add(4095, 15, 5);
+        BlockHistogram second = new BlockHistogram();
+        second.add(4095, 15, 7);
+        first.addAll(second);
+
+        assertEquals(12, first.getCount(4095, 15));
+    }
+
+    @Test
+    public void testDistribution() {
+        BlockHistogram histogram = new BlockHistogram();
+        histogram.add(2, 0, 4);
+        histogram.add(3, 1, 1);
+        histogram.add(3, 2, 1);
+
+        List<Countable<Integer>> distribution = histogram.getDistribution();
+        assertEquals(2, distribution.size());
+        assertEquals(Integer.valueOf(3), distribution.get(0)
+            .getID());
+        assertEquals(2, distribution.get(0)
+            .getAmount());
+        assertEquals(Integer.valueOf(2), distribution.get(1)
+            .getID());
+
+        List<Countable<BaseBlock>> withData = histogram.getDistributionWithData();
+        assertEquals(3, withData.size());
+        assertEquals(new BaseBlock(2, 0), withData.get(2)
+            .getID());
+        assertEquals(4, withData.get(2)
+            .getAmount());
+    }
+
+}